@@ -0,0 +1,53 @@
+package tasktribe;
+
+class Ambassador {
+    private final int id;
+    private volatile String name;
+    private volatile int roleCode;
+
+    public Ambassador(int id, String name, String role) {
+        this.id = id;
+        this.name = name;
+        this.roleCode = Roles.code(role);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getRole() {
+        return Roles.label(roleCode);
+    }
+
+    public int getRoleCode() {
+        return roleCode;
+    }
+
+    public void setRole(String role) {
+        this.roleCode = Roles.code(role);
+    }
+
+    public int getTrainingSessionsAttended() {
+        return TrainingIndex.sessionsAttendedBy(id);
+    }
+
+    void appendTo(StringBuilder sb) {
+        sb.append("ID: ").append(id).append(", Name: ").append(name).append(", Role: ").append(getRole())
+                .append(", Training sessions attended: ").append(getTrainingSessionsAttended());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(96);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
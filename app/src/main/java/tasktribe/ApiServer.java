@@ -0,0 +1,704 @@
+package tasktribe;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP/JSON API over the app model, served by the JDK's {@code com.sun.net.httpserver}.
+ *
+ * <pre>
+ * GET    /api/ambassadors                  GET /api/ambassadors/{id}   GET /api/ambassadors/{id}/tasks
+ * POST   /api/ambassadors                  {"name", "role"}
+ * PUT    /api/ambassadors/{id}             {"name", "role"}
+ * DELETE /api/ambassadors/{id}
+ * GET    /api/projects                     GET /api/projects/{id}      GET /api/projects/{id}/tasks
+ * POST   /api/projects                     {"name"}
+ * POST   /api/projects/{id}/tasks          {"name", "deadline", "assigneeId"}
+ * GET    /api/tasks/{id}
+ * PATCH  /api/tasks/{id}                   {"status"} and/or {"assigneeId"} (null unassigns)
+ * GET    /api/sessions                     GET /api/sessions/{id}/participants
+ * POST   /api/sessions/{id}/participants   {"ambassadorId"}, or {"ambassadorIds": [1, 2, 3]} for a sheet
+ *                                          ("1,2,3" is also accepted)
+ * GET    /api/stats
+ * GET    /api/search?q={words}[&amp;limit={n}]   best name matches: {"ambassadors", "projects", "tasks"}
+ * </pre>
+ *
+ * The ambassador and project lists take {@code ?after={id}&amp;limit={n}} for cursor paging: they
+ * are in ID order, and the last ID of one page is the {@code after} of the next.
+ *
+ * Each request runs on its own virtual thread when the runtime has them (JDK 21+) and on a
+ * bounded platform thread pool otherwise. The model is safe for concurrent use, so requests take
+ * no lock of their own: each task row is copied out under its project's lock and rendered after,
+ * so a slow client never holds up writers. Lists are streamed in chunks as they are rendered.
+ */
+final class ApiServer {
+    private static final int CHUNK = 1 << 15;
+    private static final int FALLBACK_THREADS = 64;
+    private static final int SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    /** The part of the app the API reads and changes; writes go through the logged core operations. */
+    interface Model {
+        Iterable<Ambassador> ambassadors();
+
+        /** Ambassadors with IDs above {@code afterId} in ID order, read as they are streamed. */
+        Iterator<Ambassador> ambassadorsAfter(int afterId);
+
+        Ambassador ambassador(int id);
+
+        Iterable<Project> projects();
+
+        Iterator<Project> projectsAfter(int afterId);
+
+        Project project(int id);
+
+        Iterable<TrainingSession> sessions();
+
+        TrainingSession session(int id);
+
+        Ambassador addAmbassador(String name, String role);
+
+        void editAmbassador(Ambassador a, String name, String role);
+
+        void deleteAmbassador(Ambassador a);
+
+        Project createProject(String name);
+
+        Task addTask(Project p, String name, String deadline, Ambassador a);
+
+        void setTaskStatus(Task t, int status);
+
+        void reassignTask(Task t, Ambassador a);
+
+        boolean markAttendance(TrainingSession s, Ambassador a);
+
+        int markAttendanceSheet(TrainingSession s, List<Ambassador> sheet);
+    }
+
+    private final Model model;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    ApiServer(Model model, InetSocketAddress address) throws IOException {
+        this.model = model;
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(address, 1024);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting requests, waits briefly for the ones in flight, then runs {@code then}. */
+    void stop(Runnable then) {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        then.run();
+    }
+
+    static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newRequestExecutor() {
+        try {
+            // Looked up reflectively so the code still builds and runs on JDK 17.
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+                Thread t = new Thread(r, "api-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // ===== Routing =====
+
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            route(ex);
+        } catch (HttpError e) {
+            sendError(ex, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(ex, 500, e.toString());
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void route(HttpExchange ex) throws IOException {
+        URI uri = ex.getRequestURI();
+        String[] parts = uri.getPath().substring("/api/".length()).split("/");
+        String method = ex.getRequestMethod();
+        String resource = parts[0];
+        int id = parts.length > 1 ? parseId(parts[1]) : -1;
+        String sub = parts.length > 2 ? parts[2] : null;
+        if (parts.length > 3) {
+            throw new HttpError(404, "No such resource: " + uri.getPath());
+        }
+        switch (resource) {
+            case "ambassadors":
+                if (id < 0) {
+                    if (method.equals("GET")) {
+                        int after = intParam(uri, "after", 0, 0, Integer.MAX_VALUE);
+                        int limit = intParam(uri, "limit", Integer.MAX_VALUE, 1, Integer.MAX_VALUE);
+                        read(ex, json -> {
+                            json.beginArray();
+                            Iterator<Ambassador> page = model.ambassadorsAfter(after);
+                            for (int n = 0; n < limit && page.hasNext(); n++) {
+                                json.element();
+                                writeAmbassador(json, page.next());
+                            }
+                            json.endArray();
+                        });
+                    } else if (method.equals("POST")) {
+                        Map<String, String> body = body(ex);
+                        String name = required(body, "name");
+                        String role = required(body, "role");
+                        write(ex, 201, json -> writeAmbassador(json, model.addAmbassador(name, role)));
+                    } else {
+                        throw notAllowed(method);
+                    }
+                } else if (sub == null) {
+                    if (method.equals("GET")) {
+                        read(ex, json -> writeAmbassador(json, ambassador(id)));
+                    } else if (method.equals("PUT")) {
+                        Map<String, String> body = body(ex);
+                        String name = required(body, "name");
+                        String role = required(body, "role");
+                        write(ex, 200, json -> {
+                            Ambassador a = ambassador(id);
+                            model.editAmbassador(a, name, role);
+                            writeAmbassador(json, a);
+                        });
+                    } else if (method.equals("DELETE")) {
+                        write(ex, 204, json -> model.deleteAmbassador(ambassador(id)));
+                    } else {
+                        throw notAllowed(method);
+                    }
+                } else if (sub.equals("tasks") && method.equals("GET")) {
+                    read(ex, json -> {
+                        ambassador(id);
+                        json.beginArray();
+                        for (Task t : TaskIndex.tasksAssignedTo(id)) {
+                            json.element();
+                            writeTask(json, t);
+                        }
+                        json.endArray();
+                    });
+                } else {
+                    throw new HttpError(404, "No such resource: " + uri.getPath());
+                }
+                break;
+            case "projects":
+                if (id < 0) {
+                    if (method.equals("GET")) {
+                        int after = intParam(uri, "after", 0, 0, Integer.MAX_VALUE);
+                        int limit = intParam(uri, "limit", Integer.MAX_VALUE, 1, Integer.MAX_VALUE);
+                        read(ex, json -> {
+                            json.beginArray();
+                            Iterator<Project> page = model.projectsAfter(after);
+                            for (int n = 0; n < limit && page.hasNext(); n++) {
+                                json.element();
+                                writeProject(json, page.next());
+                            }
+                            json.endArray();
+                        });
+                    } else if (method.equals("POST")) {
+                        String name = required(body(ex), "name");
+                        write(ex, 201, json -> writeProject(json, model.createProject(name)));
+                    } else {
+                        throw notAllowed(method);
+                    }
+                } else if (sub == null && method.equals("GET")) {
+                    read(ex, json -> writeProject(json, project(id)));
+                } else if ("tasks".equals(sub) && method.equals("GET")) {
+                    read(ex, json -> {
+                        Project p = project(id);
+                        json.beginArray();
+                        for (int row = 0, n = p.getTaskCount(); row < n; row++) {
+                            json.element();
+                            writeTask(json, p, row);
+                        }
+                        json.endArray();
+                    });
+                } else if ("tasks".equals(sub) && method.equals("POST")) {
+                    Map<String, String> body = body(ex);
+                    String name = required(body, "name");
+                    String deadline = required(body, "deadline");
+                    String assignee = body.get("assigneeId");
+                    write(ex, 201, json -> {
+                        Project p = project(id);
+                        Ambassador a = assignee != null ? ambassador(parseId(assignee)) : null;
+                        writeTask(json, model.addTask(p, name, deadline, a));
+                    });
+                } else if (sub == null || sub.equals("tasks")) {
+                    throw notAllowed(method);
+                } else {
+                    throw new HttpError(404, "No such resource: " + uri.getPath());
+                }
+                break;
+            case "tasks":
+                if (id < 0 || sub != null) {
+                    throw new HttpError(404, "No such resource: " + uri.getPath());
+                }
+                if (method.equals("GET")) {
+                    read(ex, json -> writeTask(json, task(id)));
+                } else if (method.equals("PATCH")) {
+                    Map<String, String> body = body(ex);
+                    int status = -1;
+                    if (body.get("status") != null) {
+                        status = TaskStatus.find(body.get("status"));
+                        if (status < 0) {
+                            throw new IllegalArgumentException("Unknown status: " + body.get("status"));
+                        }
+                    }
+                    int newStatus = status;
+                    boolean reassign = body.containsKey("assigneeId");
+                    String assignee = body.get("assigneeId");
+                    write(ex, 200, json -> {
+                        Task t = task(id);
+                        Ambassador a = assignee != null ? ambassador(parseId(assignee)) : null;
+                        if (newStatus >= 0) {
+                            model.setTaskStatus(t, newStatus);
+                        }
+                        if (reassign) {
+                            model.reassignTask(t, a);
+                        }
+                        writeTask(json, t);
+                    });
+                } else {
+                    throw notAllowed(method);
+                }
+                break;
+            case "sessions":
+                if (id < 0 && method.equals("GET")) {
+                    read(ex, json -> {
+                        json.beginArray();
+                        for (TrainingSession s : model.sessions()) {
+                            json.element();
+                            writeSession(json, s);
+                        }
+                        json.endArray();
+                    });
+                } else if (id >= 0 && "participants".equals(sub) && method.equals("GET")) {
+                    read(ex, json -> {
+                        json.beginArray();
+                        for (Ambassador a : session(id).getParticipants()) {
+                            json.element();
+                            writeAmbassador(json, a);
+                        }
+                        json.endArray();
+                    });
+                } else if (id >= 0 && "participants".equals(sub) && method.equals("POST")) {
+                    Map<String, String> body = body(ex);
+                    // Json reads both [1, 2, 3] and the older "1,2,3" string as comma-joined IDs.
+                    String sheet = body.get("ambassadorIds");
+                    if (sheet != null) {
+                        write(ex, 200, json -> {
+                            TrainingSession s = session(id);
+                            List<Ambassador> attending = new ArrayList<>();
+                            if (!sheet.isBlank()) {
+                                for (String aid : sheet.split(",")) {
+                                    attending.add(ambassador(parseId(aid.trim())));
+                                }
+                            }
+                            int marked = model.markAttendanceSheet(s, attending);
+                            json.beginObject();
+                            json.field("recorded").value(marked);
+                            json.endObject();
+                        });
+                        break;
+                    }
+                    String ambassadorId = required(body, "ambassadorId");
+                    write(ex, 200, json -> {
+                        TrainingSession s = session(id);
+                        boolean added = model.markAttendance(s, ambassador(parseId(ambassadorId)));
+                        json.beginObject();
+                        json.field("recorded").value(added);
+                        json.endObject();
+                    });
+                } else {
+                    throw new HttpError(404, "No such resource: " + uri.getPath());
+                }
+                break;
+            case "stats":
+                if (id >= 0 || !method.equals("GET")) {
+                    throw new HttpError(404, "No such resource: " + uri.getPath());
+                }
+                read(ex, json -> {
+                    StatusCounts counts = TaskIndex.statusCounts();
+                    json.beginObject();
+                    json.field("totalTasks").value(counts.total());
+                    json.field("completedTasks").value(counts.completed());
+                    json.field("byStatus").beginObject();
+                    for (int code = 0; code < TaskStatus.codeCount(); code++) {
+                        json.field(TaskStatus.label(code)).value(counts.count(code));
+                    }
+                    json.endObject();
+                    json.endObject();
+                });
+                break;
+            case "search": {
+                if (id >= 0 || !method.equals("GET")) {
+                    throw new HttpError(404, "No such resource: " + uri.getPath());
+                }
+                String query = queryParam(uri, "q");
+                if (query == null) {
+                    throw new IllegalArgumentException("Missing query parameter: q");
+                }
+                int limit = intParam(uri, "limit", SEARCH_LIMIT, 1, MAX_SEARCH_LIMIT);
+                read(ex, json -> {
+                    json.beginObject();
+                    json.field("ambassadors").beginArray();
+                    for (Ambassador a : SearchIndex.ambassadors(query, limit)) {
+                        json.element();
+                        writeAmbassador(json, a);
+                    }
+                    json.endArray();
+                    json.field("projects").beginArray();
+                    for (Project p : SearchIndex.projects(query, limit)) {
+                        json.element();
+                        writeProject(json, p);
+                    }
+                    json.endArray();
+                    json.field("tasks").beginArray();
+                    for (Task t : SearchIndex.tasks(query, limit)) {
+                        json.element();
+                        writeTask(json, t);
+                    }
+                    json.endArray();
+                    json.endObject();
+                });
+                break;
+            }
+            default:
+                throw new HttpError(404, "No such resource: " + uri.getPath());
+        }
+    }
+
+    private static String queryParam(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static int intParam(URI uri, String name, int orElse, int min, int max) {
+        String param = queryParam(uri, name);
+        int value = param == null ? orElse : Integer.parseInt(param);
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max);
+        }
+        return value;
+    }
+
+    private interface Render {
+        void render(JsonOut json) throws IOException;
+    }
+
+    private static void read(HttpExchange ex, Render render) throws IOException {
+        respond(ex, 200, render);
+    }
+
+    private static void write(HttpExchange ex, int status, Render render) throws IOException {
+        respond(ex, status, render);
+    }
+
+    // Renders into a buffer; the headers go out with the first full chunk, or with the whole
+    // body if it fits in one, so lookups that fail before anything is written still become errors.
+    private static void respond(HttpExchange ex, int status, Render render) throws IOException {
+        JsonOut json = new JsonOut(ex, status);
+        render.render(json);
+        json.finish();
+    }
+
+    private static void sendError(HttpExchange ex, int status, String message) throws IOException {
+        if (ex.getResponseCode() != -1) {
+            return; // Headers already sent while streaming; the client sees a truncated body.
+        }
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        Json.quote(message, sb);
+        sb.append('}');
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        ex.getResponseBody().write(bytes);
+    }
+
+    private static HttpError notAllowed(String method) {
+        return new HttpError(405, "Method not allowed: " + method);
+    }
+
+    private static Map<String, String> body(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return Json.parseFlatObject(text.isBlank() ? "{}" : text);
+        }
+    }
+
+    private static String required(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        return value;
+    }
+
+    private static int parseId(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Not an ID: " + s);
+        }
+    }
+
+    private Ambassador ambassador(int id) {
+        Ambassador a = model.ambassador(id);
+        if (a == null) {
+            throw new HttpError(404, "Ambassador not found: " + id);
+        }
+        return a;
+    }
+
+    private Project project(int id) {
+        Project p = model.project(id);
+        if (p == null) {
+            throw new HttpError(404, "Project not found: " + id);
+        }
+        return p;
+    }
+
+    private static Task task(int id) {
+        Task t = TaskIndex.findTaskById(id);
+        if (t == null) {
+            throw new HttpError(404, "Task not found: " + id);
+        }
+        return t;
+    }
+
+    private TrainingSession session(int id) {
+        TrainingSession s = model.session(id);
+        if (s == null) {
+            throw new HttpError(404, "Training session not found: " + id);
+        }
+        return s;
+    }
+
+    // ===== Rendering =====
+
+    private static void writeAmbassador(JsonOut json, Ambassador a) throws IOException {
+        json.beginObject();
+        json.field("id").value(a.getId());
+        json.field("name").value(a.getName());
+        json.field("role").value(a.getRole());
+        json.field("trainingSessionsAttended").value(a.getTrainingSessionsAttended());
+        json.endObject();
+    }
+
+    private static void writeProject(JsonOut json, Project p) throws IOException {
+        json.beginObject();
+        json.field("id").value(p.getId());
+        json.field("name").value(p.getName());
+        json.field("taskCount").value(p.getTaskCount());
+        json.endObject();
+    }
+
+    private static void writeTask(JsonOut json, Task t) throws IOException {
+        writeTask(json, t.getProject(), t.getRow());
+    }
+
+    private static void writeTask(JsonOut json, Project p, int row) throws IOException {
+        TaskRow t = p.readRow(row, TaskRow::new);
+        json.beginObject();
+        json.field("id").value(t.id);
+        json.field("projectId").value(p.getId());
+        json.field("name").value(t.name);
+        json.field("deadline").value(t.deadline);
+        json.field("status").value(TaskStatus.label(t.status));
+        json.field("assigneeId");
+        int assignee = t.assigneeId;
+        if (assignee == ColumnarTaskStore.NO_ASSIGNEE) {
+            json.nullValue();
+        } else {
+            json.value(assignee);
+        }
+        json.endObject();
+    }
+
+    private static void writeSession(JsonOut json, TrainingSession s) throws IOException {
+        json.beginObject();
+        json.field("id").value(s.getId());
+        json.field("date").value(s.getDate());
+        json.field("topic").value(s.getTopic());
+        json.field("participants").value(s.getParticipantCount());
+        json.endObject();
+    }
+
+    // One task row, copied out of the column store under the project's lock.
+    private static final class TaskRow {
+        final int id;
+        final String name;
+        final String deadline;
+        final int status;
+        final int assigneeId;
+
+        TaskRow(ColumnarTaskStore store, int row) {
+            id = store.id(row);
+            name = store.name(row);
+            deadline = store.deadline(row);
+            status = store.status(row);
+            assigneeId = store.assigneeId(row);
+        }
+    }
+
+    /** Minimal streaming JSON writer; the response starts once the first chunk is full. */
+    private static final class JsonOut {
+        private final HttpExchange ex;
+        private final int status;
+        private final StringBuilder buf = new StringBuilder(1024);
+        private Writer out;
+        private boolean first;
+
+        JsonOut(HttpExchange ex, int status) {
+            this.ex = ex;
+            this.status = status;
+        }
+
+        void beginArray() {
+            buf.append('[');
+            first = true;
+        }
+
+        /** Starts the next array element. */
+        void element() throws IOException {
+            if (!first) {
+                buf.append(',');
+            }
+            first = false;
+            if (buf.length() >= CHUNK) {
+                drain();
+            }
+        }
+
+        void endArray() {
+            buf.append(']');
+            first = false;
+        }
+
+        void beginObject() {
+            buf.append('{');
+            first = true;
+        }
+
+        void endObject() {
+            buf.append('}');
+            first = false;
+        }
+
+        JsonOut field(String name) {
+            if (!first) {
+                buf.append(',');
+            }
+            first = false;
+            Json.quote(name, buf);
+            buf.append(':');
+            return this;
+        }
+
+        void value(String s) {
+            Json.quote(s, buf);
+        }
+
+        void value(int n) {
+            buf.append(n);
+        }
+
+        void value(boolean b) {
+            buf.append(b);
+        }
+
+        void nullValue() {
+            buf.append("null");
+        }
+
+        private void drain() throws IOException {
+            if (out == null) {
+                ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                ex.sendResponseHeaders(status, 0);
+                out = new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8);
+            }
+            out.append(buf);
+            buf.setLength(0);
+        }
+
+        void finish() throws IOException {
+            if (out != null) {
+                drain();
+                out.flush();
+                return;
+            }
+            if (status == 204) {
+                ex.sendResponseHeaders(204, -1);
+                return;
+            }
+            byte[] bytes = buf.toString().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            ex.sendResponseHeaders(status, bytes.length);
+            ex.getResponseBody().write(bytes);
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package tasktribe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of the whole app state, read back through {@link FileChannel#map}.
+ *
+ * <p>Layout: a fixed header (magic, version, last journal sequence number, offset of the table of
+ * contents), then sections, then the table of contents listing each section's kind, offset,
+ * length and CRC32. Sections hold fixed-width records; all text outside task data goes into one
+ * shared string table and records refer to it by index. Each project's tasks are stored as the
+ * raw columns of its {@link ColumnarTaskStore}, so loading a project is a few bulk copies out of
+ * the mapped region and creates no per-task objects.
+ *
+ * <p>Version 3 added training programs and cohorts; version 2 files are still read, with their
+ * sessions in the default program.
+ */
+final class BinarySnapshot {
+    static final String FILE = "snapshot.bin";
+
+    private static final long MAGIC = 0x5454534E41500000L; // "TTSNAP\0\0"
+    private static final int VERSION = 3;
+    private static final int VERSION_WITHOUT_PROGRAMS = 2;
+    private static final int DEFAULT_PROGRAM_ID = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private static final int STRINGS = 1;
+    private static final int COUNTERS = 2;
+    private static final int STATUS_LABELS = 3;
+    private static final int SESSIONS = 4;
+    private static final int AMBASSADORS = 5;
+    private static final int PROJECT = 6;
+    private static final int ATTENDANCE = 7;
+    private static final int PROGRAMS = 8;
+    private static final int COHORTS = 9;
+
+    private static final int DELETED = 1;
+
+    /** What the app exposes for writing a snapshot. */
+    interface State {
+        int[] counters();
+
+        Iterable<TrainingProgram> programs();
+
+        Iterable<TrainingSession> sessions();
+
+        Iterable<Ambassador> ambassadors();
+
+        Iterable<Cohort> cohorts();
+
+        Iterable<Ambassador> formerAmbassadors();
+
+        Iterable<Project> projects();
+    }
+
+    /** Receives the entities of a snapshot as it is loaded, in dependency order. */
+    interface Loader {
+        void counters(int ambassadorIdCounter, int projectIdCounter, int taskIdCounter);
+
+        void program(int id, String name);
+
+        void session(int id, String date, String topic, int programId);
+
+        void ambassador(int id, String name, String role, boolean deleted);
+
+        void cohort(int id, int programId, String name, int[] members);
+
+        void project(int id, String name, ColumnarTaskStore tasks);
+
+        void attend(int sessionId, int ambassadorId);
+    }
+
+    private BinarySnapshot() {
+    }
+
+    // ===== Writing =====
+
+    /**
+     * The state as of one moment, captured while no operation runs so that it can be written out
+     * without holding them up. Records are already encoded against the string table; task columns
+     * are shared with their projects copy-on-write (see {@link Project#captureTasks}).
+     */
+    static final class Cut {
+        private final StringPool strings = new StringPool(true);
+        private final Ints counters = new Ints();
+        private final Ints statusLabels = new Ints();
+        private final Ints programs = new Ints();
+        private final Ints sessions = new Ints();
+        private final Ints ambassadors = new Ints();
+        private final Ints cohorts = new Ints();
+        private final Ints attendance = new Ints();
+        private final List<Project> projects = new ArrayList<>();
+        private final Ints projectNames = new Ints();
+        // Null where the columns were spilled; the write copies the spill file instead.
+        private final List<ColumnarTaskStore> projectTasks = new ArrayList<>();
+
+        private Cut() {
+        }
+    }
+
+    /** Growable int array holding the encoded records of one section. */
+    private static final class Ints {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+    }
+
+    /** Captures the state for {@link #write(Path, long, Cut)}; the caller keeps operations out meanwhile. */
+    static Cut capture(State state) {
+        Cut cut = new Cut();
+        StringPool strings = cut.strings;
+        for (int c : state.counters()) {
+            cut.counters.add(c);
+        }
+
+        int statusCount = TaskStatus.codeCount();
+        cut.statusLabels.add(statusCount);
+        for (int code = 0; code < statusCount; code++) {
+            cut.statusLabels.add(strings.add(TaskStatus.label(code)));
+        }
+
+        List<TrainingProgram> programs = new ArrayList<>();
+        state.programs().forEach(programs::add);
+        cut.programs.add(programs.size());
+        for (TrainingProgram p : programs) {
+            cut.programs.add(p.getId());
+            cut.programs.add(strings.add(p.getName()));
+        }
+
+        List<TrainingSession> sessions = new ArrayList<>();
+        for (TrainingProgram p : programs) {
+            sessions.addAll(p.getSessions());
+        }
+        cut.sessions.add(sessions.size());
+        for (TrainingSession s : sessions) {
+            cut.sessions.add(s.getId());
+            cut.sessions.add(strings.add(s.getDate()));
+            cut.sessions.add(strings.add(s.getTopic()));
+            cut.sessions.add(s.getProgram().getId());
+        }
+
+        List<Ambassador> ambassadors = new ArrayList<>();
+        state.ambassadors().forEach(ambassadors::add);
+        int active = ambassadors.size();
+        state.formerAmbassadors().forEach(ambassadors::add);
+        cut.ambassadors.add(ambassadors.size());
+        for (int i = 0; i < ambassadors.size(); i++) {
+            Ambassador a = ambassadors.get(i);
+            cut.ambassadors.add(a.getId());
+            cut.ambassadors.add(strings.add(a.getName()));
+            cut.ambassadors.add(strings.add(a.getRole()));
+            cut.ambassadors.add(i < active ? 0 : DELETED);
+        }
+
+        List<Cohort> cohorts = new ArrayList<>();
+        state.cohorts().forEach(cohorts::add);
+        cut.cohorts.add(cohorts.size());
+        for (Cohort c : cohorts) {
+            int[] members = TrainingIndex.members(c).toArray();
+            cut.cohorts.add(c.getId());
+            cut.cohorts.add(c.getProgram().getId());
+            cut.cohorts.add(strings.add(c.getName()));
+            cut.cohorts.add(members.length);
+            for (int m : members) {
+                cut.cohorts.add(m);
+            }
+        }
+
+        List<int[]> attendees = new ArrayList<>(sessions.size());
+        int pairs = 0;
+        for (TrainingSession s : sessions) {
+            int[] ids = s.attendees().toArray();
+            attendees.add(ids);
+            pairs += ids.length;
+        }
+        cut.attendance.add(pairs);
+        for (int i = 0; i < sessions.size(); i++) {
+            int sessionId = sessions.get(i).getId();
+            for (int aid : attendees.get(i)) {
+                cut.attendance.add(sessionId);
+                cut.attendance.add(aid);
+            }
+        }
+
+        for (Project p : state.projects()) {
+            cut.projects.add(p);
+            cut.projectNames.add(strings.add(p.getName()));
+            cut.projectTasks.add(p.captureTasks());
+        }
+        return cut;
+    }
+
+    static void write(Path file, long lastSeq, State state) throws IOException {
+        write(file, lastSeq, capture(state));
+    }
+
+    /**
+     * Writes a captured state. Needs no lock, so operations go on meanwhile; the projects get their
+     * columns back to change in place once it is done, whether or not it succeeded.
+     */
+    static void write(Path file, long lastSeq, Cut cut) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(ch);
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0);
+            out.writeLong(lastSeq);
+            out.writeLong(0); // table of contents offset, patched below
+
+            out.begin(STRINGS);
+            cut.strings.writeTo(out);
+            out.end();
+
+            writeSection(out, COUNTERS, cut.counters);
+            writeSection(out, STATUS_LABELS, cut.statusLabels);
+            writeSection(out, PROGRAMS, cut.programs);
+            writeSection(out, SESSIONS, cut.sessions);
+            writeSection(out, AMBASSADORS, cut.ambassadors);
+            writeSection(out, COHORTS, cut.cohorts);
+
+            for (int i = 0; i < cut.projects.size(); i++) {
+                int projectId = cut.projects.get(i).getId();
+                ColumnarTaskStore tasks = cut.projectTasks.get(i);
+                out.begin(PROJECT);
+                out.writeInt(projectId);
+                out.writeInt(cut.projectNames.values[i]);
+                if (tasks != null) {
+                    tasks.writeTo(out);
+                } else {
+                    TaskTier.copySpill(projectId, out);
+                }
+                out.end();
+            }
+
+            writeSection(out, ATTENDANCE, cut.attendance);
+
+            long tocOffset = out.position();
+            out.writeInt(out.toc.size());
+            for (long[] entry : out.toc) {
+                out.writeInt((int) entry[0]);
+                out.writeLong(entry[1]);
+                out.writeLong(entry[2]);
+                out.writeInt((int) entry[3]);
+            }
+            out.flush();
+
+            ByteBuffer patch = ByteBuffer.allocate(8);
+            patch.putLong(0, tocOffset);
+            ch.write(patch, 24);
+            ch.force(true);
+        } finally {
+            for (Project p : cut.projects) {
+                p.snapshotWritten();
+            }
+        }
+    }
+
+    private static void writeSection(Out out, int kind, Ints records) throws IOException {
+        out.begin(kind);
+        out.writeInts(records.values, records.size);
+        out.end();
+    }
+
+    /** Buffered channel writer that tracks section offsets and checksums. */
+    static final class Out {
+        private final FileChannel channel;
+        private final ByteBuffer buf;
+        private final CRC32 crc = new CRC32();
+        private final List<long[]> toc = new ArrayList<>();
+        private long flushed;
+        private long sectionStart = -1;
+        private int sectionKind;
+
+        Out(FileChannel channel) {
+            this(channel, 1 << 20);
+        }
+
+        Out(FileChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buf = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        long position() {
+            return flushed + buf.position();
+        }
+
+        void begin(int kind) throws IOException {
+            drain();
+            sectionKind = kind;
+            sectionStart = position();
+            crc.reset();
+        }
+
+        void end() throws IOException {
+            drain();
+            toc.add(new long[] {sectionKind, sectionStart, position() - sectionStart, crc.getValue()});
+            sectionStart = -1;
+        }
+
+        void writeInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+        }
+
+        void writeLong(long v) throws IOException {
+            ensure(8);
+            buf.putLong(v);
+        }
+
+        void writeInts(int[] values, int count) throws IOException {
+            int off = 0;
+            while (off < count) {
+                ensure(4);
+                int n = Math.min(count - off, buf.remaining() / 4);
+                buf.asIntBuffer().put(values, off, n);
+                buf.position(buf.position() + n * 4);
+                off += n;
+            }
+        }
+
+        void writeBytes(byte[] values, int count) throws IOException {
+            int off = 0;
+            while (off < count) {
+                ensure(1);
+                int n = Math.min(count - off, buf.remaining());
+                buf.put(values, off, n);
+                off += n;
+            }
+            // Keep the following int columns 4-byte aligned.
+            while ((count & 3) != 0) {
+                ensure(1);
+                buf.put((byte) 0);
+                count++;
+            }
+        }
+
+        void writeChars(char[] values, int count) throws IOException {
+            int off = 0;
+            while (off < count) {
+                ensure(2);
+                int n = Math.min(count - off, buf.remaining() / 2);
+                buf.asCharBuffer().put(values, off, n);
+                buf.position(buf.position() + n * 2);
+                off += n;
+            }
+            if ((count & 1) != 0) {
+                writeChar0();
+            }
+        }
+
+        private void writeChar0() throws IOException {
+            ensure(2);
+            buf.putChar('\0');
+        }
+
+        /** Copies the rest of {@code in} as it is; it must keep the 4-byte alignment of the columns. */
+        void copyFrom(FileChannel in) throws IOException {
+            while (true) {
+                ensure(1);
+                if (in.read(buf) < 0) {
+                    return;
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buf.flip();
+            if (sectionStart >= 0) {
+                crc.update(buf.duplicate());
+            }
+            while (buf.hasRemaining()) {
+                flushed += channel.write(buf);
+            }
+            buf.clear();
+        }
+    }
+
+    // ===== Loading =====
+
+    /** Loads the snapshot into the loader and returns the last journal sequence number it covers. */
+    static long load(Path file, Loader loader) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE) {
+                throw new IOException("Snapshot is truncated: " + file);
+            }
+            MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            int version = header.getInt(8);
+            if (version != VERSION && version != VERSION_WITHOUT_PROGRAMS) {
+                throw new IOException("Unsupported snapshot version " + header.getInt(8) + " in " + file);
+            }
+            long lastSeq = header.getLong(16);
+            long tocOffset = header.getLong(24);
+            if (tocOffset < HEADER_SIZE || tocOffset + 4 > ch.size()) {
+                throw new IOException("Snapshot is incomplete: " + file);
+            }
+            MappedByteBuffer toc = ch.map(FileChannel.MapMode.READ_ONLY, tocOffset, ch.size() - tocOffset);
+            int sections = toc.getInt();
+
+            StringPool strings = null;
+            byte[] statusMap = null;
+            for (int i = 0; i < sections; i++) {
+                int kind = toc.getInt();
+                long offset = toc.getLong();
+                long length = toc.getLong();
+                int expectedCrc = toc.getInt();
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot section too large to map: " + length + " bytes");
+                }
+                MappedByteBuffer sec = ch.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                CRC32 crc = new CRC32();
+                crc.update(sec.duplicate());
+                if ((int) crc.getValue() != expectedCrc) {
+                    throw new IOException("Damaged snapshot section at offset " + offset + " in " + file);
+                }
+                switch (kind) {
+                    case STRINGS:
+                        strings = StringPool.readFrom(sec, false);
+                        break;
+                    case COUNTERS:
+                        loader.counters(sec.getInt(), sec.getInt(), sec.getInt());
+                        break;
+                    case STATUS_LABELS: {
+                        int n = sec.getInt();
+                        statusMap = new byte[n];
+                        for (int code = 0; code < n; code++) {
+                            statusMap[code] = (byte) TaskStatus.parse(strings.get(sec.getInt()));
+                        }
+                        break;
+                    }
+                    case PROGRAMS: {
+                        int n = sec.getInt();
+                        for (int j = 0; j < n; j++) {
+                            loader.program(sec.getInt(), strings.get(sec.getInt()));
+                        }
+                        break;
+                    }
+                    case SESSIONS: {
+                        int n = sec.getInt();
+                        for (int j = 0; j < n; j++) {
+                            int id = sec.getInt();
+                            String date = strings.get(sec.getInt());
+                            String topic = strings.get(sec.getInt());
+                            int programId = version == VERSION_WITHOUT_PROGRAMS ? DEFAULT_PROGRAM_ID : sec.getInt();
+                            loader.session(id, date, topic, programId);
+                        }
+                        break;
+                    }
+                    case COHORTS: {
+                        int n = sec.getInt();
+                        for (int j = 0; j < n; j++) {
+                            int id = sec.getInt();
+                            int programId = sec.getInt();
+                            String name = strings.get(sec.getInt());
+                            int[] members = new int[sec.getInt()];
+                            for (int k = 0; k < members.length; k++) {
+                                members[k] = sec.getInt();
+                            }
+                            loader.cohort(id, programId, name, members);
+                        }
+                        break;
+                    }
+                    case AMBASSADORS: {
+                        int n = sec.getInt();
+                        for (int j = 0; j < n; j++) {
+                            int id = sec.getInt();
+                            String name = strings.get(sec.getInt());
+                            String role = strings.get(sec.getInt());
+                            loader.ambassador(id, name, role, (sec.getInt() & DELETED) != 0);
+                        }
+                        break;
+                    }
+                    case PROJECT: {
+                        int id = sec.getInt();
+                        String name = strings.get(sec.getInt());
+                        loader.project(id, name, ColumnarTaskStore.readFrom(sec, statusMap));
+                        break;
+                    }
+                    case ATTENDANCE: {
+                        int n = sec.getInt();
+                        for (int j = 0; j < n; j++) {
+                            loader.attend(sec.getInt(), sec.getInt());
+                        }
+                        break;
+                    }
+                    default:
+                        throw new IOException("Unknown snapshot section kind " + kind + " in " + file);
+                }
+            }
+            return lastSeq;
+        }
+    }
+
+    static int[] readInts(ByteBuffer buf, int count) {
+        int[] values = new int[Math.max(count, 1)];
+        IntBuffer view = buf.asIntBuffer();
+        view.get(values, 0, count);
+        buf.position(buf.position() + count * 4);
+        return values;
+    }
+
+    static byte[] readBytes(ByteBuffer buf, int count) {
+        byte[] values = new byte[Math.max(count, 1)];
+        buf.get(values, 0, count);
+        buf.position(buf.position() + ((4 - (count & 3)) & 3));
+        return values;
+    }
+
+    static char[] readChars(ByteBuffer buf, int count) {
+        char[] values = new char[Math.max(count, 1)];
+        buf.asCharBuffer().get(values, 0, count);
+        buf.position(buf.position() + count * 2 + (count & 1) * 2);
+        return values;
+    }
+}
@@ -0,0 +1,524 @@
+package tasktribe;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Streams ambassadors, projects and tasks from a CSV or NDJSON file into the app in batches.
+ *
+ * <p>Every row has a {@code type} ({@code ambassador}, {@code project} or {@code task}) and the
+ * fields {@code key, name, role, project, deadline, assignee, status}; CSV files name them in a
+ * header line, NDJSON rows as object keys. {@code key} is an optional file-local name that later
+ * rows use in {@code project} and {@code assignee}; {@code #<id>} refers to an entity that
+ * already exists. Only the key maps grow with the input; rows are parsed into a fixed set of
+ * reused batch slots. IDs are reserved per batch, so rows that fail leave gaps in the ID ranges.
+ */
+final class BulkImporter {
+    static final int BATCH_SIZE = 4096;
+    static final int MAX_REPORTED_ERRORS = 20;
+
+    static final int AMBASSADOR = 0;
+    static final int PROJECT = 1;
+    static final int TASK = 2;
+    private static final String[] TYPES = {"ambassador", "project", "task"};
+    private static final String[] FIELDS = {"type", "key", "name", "role", "project", "deadline", "assignee", "status"};
+
+    enum Format {
+        CSV, NDJSON;
+
+        static Format of(Path file) throws IOException {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+                return NDJSON;
+            }
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                int c;
+                while ((c = in.read()) >= 0 && Character.isWhitespace(c)) {
+                    // skip
+                }
+                return c == '{' ? NDJSON : CSV;
+            }
+        }
+    }
+
+    /** Receives validated rows; implemented by the app over its registries and journal. */
+    interface Target {
+        /** Reserves {@code count} consecutive IDs and returns the first. */
+        int reserveAmbassadorIds(int count);
+
+        int reserveProjectIds(int count);
+
+        int reserveTaskIds(int count);
+
+        boolean hasAmbassador(int id);
+
+        boolean hasProject(int id);
+
+        /** Applies the first {@code count} rows, in order, once their references are resolved. */
+        void apply(Row[] rows, int count);
+
+        /** Called once after the last batch. */
+        void finish();
+    }
+
+    /** One input row; slots are reused from batch to batch. */
+    static final class Row {
+        long line;
+        String error;
+        int type;
+        String key;
+        String name;
+        String role;
+        String project;
+        String deadline;
+        String assignee;
+        String status;
+
+        int id;
+        int projectId;
+        int assigneeId;
+        int statusCode;
+
+        void clear() {
+            error = key = name = role = project = deadline = assignee = status = null;
+            type = id = projectId = assigneeId = statusCode = 0;
+        }
+    }
+
+    static final class Result {
+        long rows;
+        int ambassadors;
+        int projects;
+        int tasks;
+        long errors;
+        final List<String> errorSamples = new ArrayList<>();
+        long elapsedNanos;
+
+        private void error(long line, String message) {
+            errors++;
+            if (errorSamples.size() < MAX_REPORTED_ERRORS) {
+                errorSamples.add("Line " + line + ": " + message);
+            }
+        }
+    }
+
+    private final Target target;
+    private final Map<String, Integer> ambassadorKeys = new HashMap<>();
+    private final Map<String, Integer> projectKeys = new HashMap<>();
+    private final Row[] batch = new Row[BATCH_SIZE];
+    private final Result result = new Result();
+
+    BulkImporter(Target target) {
+        this.target = target;
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Row();
+        }
+    }
+
+    static Result importFile(Path file, Target target) throws IOException {
+        Format format = Format.of(file);
+        try (BufferedReader in = new BufferedReader(
+                Files.newBufferedReader(file, StandardCharsets.UTF_8), 1 << 16)) {
+            return new BulkImporter(target).run(in, format);
+        }
+    }
+
+    Result run(BufferedReader in, Format format) throws IOException {
+        long start = System.nanoTime();
+        RowSource source = format == Format.CSV ? new CsvSource(in) : new NdjsonSource(in);
+        try {
+            int n;
+            while ((n = fill(source)) > 0) {
+                n = resolve(n);
+                if (n > 0) {
+                    target.apply(batch, n);
+                }
+            }
+        } finally {
+            target.finish();
+            result.elapsedNanos = System.nanoTime() - start;
+        }
+        return result;
+    }
+
+    // Reads up to one batch of rows. Malformed ones keep their slot with the error set, so that
+    // resolve reports parse and reference errors together in line order.
+    private int fill(RowSource source) throws IOException {
+        int n = 0;
+        while (n < batch.length) {
+            Row row = batch[n];
+            row.clear();
+            try {
+                if (!source.next(row)) {
+                    break;
+                }
+            } catch (IllegalArgumentException e) {
+                row.error = e.getMessage();
+            }
+            result.rows++;
+            n++;
+        }
+        return n;
+    }
+
+    // Assigns IDs and resolves references; compacts the rows that pass to the front of the batch.
+    private int resolve(int n) {
+        int[] counts = new int[TYPES.length];
+        for (int i = 0; i < n; i++) {
+            if (batch[i].error == null) {
+                counts[batch[i].type]++;
+            }
+        }
+        int nextAmbassador = counts[AMBASSADOR] > 0 ? target.reserveAmbassadorIds(counts[AMBASSADOR]) : 0;
+        int nextProject = counts[PROJECT] > 0 ? target.reserveProjectIds(counts[PROJECT]) : 0;
+        int nextTask = counts[TASK] > 0 ? target.reserveTaskIds(counts[TASK]) : 0;
+
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            Row row = batch[i];
+            if (row.error != null) {
+                result.error(row.line, row.error);
+                continue;
+            }
+            String error;
+            switch (row.type) {
+                case AMBASSADOR:
+                    row.id = nextAmbassador++;
+                    error = checkAmbassador(row);
+                    break;
+                case PROJECT:
+                    row.id = nextProject++;
+                    error = checkProject(row);
+                    break;
+                default:
+                    row.id = nextTask++;
+                    error = checkTask(row);
+            }
+            if (error != null) {
+                result.error(row.line, error);
+                continue;
+            }
+            switch (row.type) {
+                case AMBASSADOR:
+                    result.ambassadors++;
+                    break;
+                case PROJECT:
+                    result.projects++;
+                    break;
+                default:
+                    result.tasks++;
+            }
+            batch[i] = batch[kept];
+            batch[kept++] = row;
+        }
+        return kept;
+    }
+
+    private String checkAmbassador(Row row) {
+        if (row.name == null) {
+            return "Ambassador needs a name";
+        }
+        if (row.role == null) {
+            return "Ambassador needs a role";
+        }
+        return claimKey(row, ambassadorKeys, "ambassador");
+    }
+
+    private String checkProject(Row row) {
+        if (row.name == null) {
+            return "Project needs a name";
+        }
+        return claimKey(row, projectKeys, "project");
+    }
+
+    private String checkTask(Row row) {
+        if (row.name == null) {
+            return "Task needs a name";
+        }
+        if (row.project == null) {
+            return "Task needs a project";
+        }
+        row.projectId = lookup(row.project, projectKeys, target::hasProject);
+        if (row.projectId < 0) {
+            return "Unknown project '" + row.project + "'";
+        }
+        if (row.assignee != null) {
+            row.assigneeId = lookup(row.assignee, ambassadorKeys, target::hasAmbassador);
+            if (row.assigneeId < 0) {
+                return "Unknown ambassador '" + row.assignee + "'";
+            }
+        } else {
+            row.assigneeId = ColumnarTaskStore.NO_ASSIGNEE;
+        }
+        if (row.status != null) {
+            row.statusCode = TaskStatus.find(row.status);
+            if (row.statusCode < 0) {
+                return "Unknown status '" + row.status + "'";
+            }
+        } else {
+            row.statusCode = TaskStatus.NOT_STARTED;
+        }
+        if (row.deadline == null) {
+            row.deadline = "";
+        }
+        return null;
+    }
+
+    private static String claimKey(Row row, Map<String, Integer> keys, String what) {
+        if (row.key != null && keys.putIfAbsent(row.key, row.id) != null) {
+            return "Duplicate " + what + " key '" + row.key + "'";
+        }
+        return null;
+    }
+
+    private static int lookup(String ref, Map<String, Integer> keys, IntPredicate exists) {
+        Integer id = keys.get(ref);
+        if (id != null) {
+            return id;
+        }
+        if (ref.length() > 1 && ref.charAt(0) == '#') {
+            try {
+                int existing = Integer.parseInt(ref.substring(1));
+                if (exists.test(existing)) {
+                    return existing;
+                }
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // ===== Row sources =====
+
+    private abstract static class RowSource {
+        /** Fills {@code row}, setting {@link Row#error} if it is malformed; false at end of input. */
+        abstract boolean next(Row row) throws IOException;
+
+        static String set(Row row, int field, String value) {
+            if (value != null) {
+                value = value.trim();
+                if (value.isEmpty()) {
+                    value = null;
+                }
+            }
+            switch (field) {
+                case 0:
+                    if (value == null) {
+                        return "Missing type";
+                    }
+                    for (int t = 0; t < TYPES.length; t++) {
+                        if (TYPES[t].equalsIgnoreCase(value)) {
+                            row.type = t;
+                            return null;
+                        }
+                    }
+                    return "Unknown type '" + value + "'";
+                case 1:
+                    row.key = value;
+                    break;
+                case 2:
+                    row.name = value;
+                    break;
+                case 3:
+                    row.role = value;
+                    break;
+                case 4:
+                    row.project = value;
+                    break;
+                case 5:
+                    row.deadline = value;
+                    break;
+                case 6:
+                    row.assignee = value;
+                    break;
+                default:
+                    row.status = value;
+            }
+            return null;
+        }
+
+        static int fieldIndex(String name) {
+            for (int f = 0; f < FIELDS.length; f++) {
+                if (FIELDS[f].equalsIgnoreCase(name.trim())) {
+                    return f;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class NdjsonSource extends RowSource {
+        private final BufferedReader in;
+        private long line;
+
+        NdjsonSource(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        boolean next(Row row) throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                line++;
+                if (text == null) {
+                    return false;
+                }
+            } while (text.isBlank());
+            row.line = line;
+            Map<String, String> values = Json.parseFlatObject(text);
+            row.error = "Missing type";
+            for (Map.Entry<String, String> e : values.entrySet()) {
+                int f = fieldIndex(e.getKey());
+                if (f >= 0) {
+                    String error = set(row, f, e.getValue());
+                    if (f == 0) {
+                        row.error = error;
+                    } else if (error != null) {
+                        row.error = error;
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /** RFC 4180 CSV: quoted fields may hold commas, doubled quotes and line breaks. */
+    private static final class CsvSource extends RowSource {
+        private final Reader in;
+        // Own buffer rather than BufferedReader.read(), which takes a lock per character.
+        private final char[] buf = new char[1 << 16];
+        private int pos;
+        private int limit;
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> fields = new ArrayList<>();
+        private int[] columns;
+        private long line = 1;
+
+        CsvSource(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        boolean next(Row row) throws IOException {
+            if (columns == null && !readHeader()) {
+                return false;
+            }
+            do {
+                row.line = line;
+                if (!readRecord()) {
+                    return false;
+                }
+            } while (fields.size() == 1 && fields.get(0).isEmpty());
+            if (fields.size() > columns.length) {
+                row.error = "Expected " + columns.length + " fields but found " + fields.size();
+                return true;
+            }
+            row.error = "Missing type";
+            for (int i = 0; i < fields.size(); i++) {
+                if (columns[i] >= 0) {
+                    String error = set(row, columns[i], fields.get(i));
+                    if (columns[i] == 0) {
+                        row.error = error;
+                    } else if (error != null) {
+                        row.error = error;
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean readHeader() throws IOException {
+            if (!readRecord()) {
+                return false;
+            }
+            columns = new int[fields.size()];
+            boolean hasType = false;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = fieldIndex(fields.get(i));
+                hasType |= columns[i] == 0;
+            }
+            if (!hasType) {
+                throw new IOException("CSV header has no 'type' column");
+            }
+            return true;
+        }
+
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            pos++;
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c < 0) {
+                    line++;
+                    int end = field.length();
+                    if (end > 0 && field.charAt(end - 1) == '\r') {
+                        field.setLength(end - 1);
+                    }
+                    fields.add(field.toString());
+                    return true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            return pos < limit || fillBuffer() ? buf[pos++] : -1;
+        }
+
+        private int peek() throws IOException {
+            return pos < limit || fillBuffer() ? buf[pos] : -1;
+        }
+
+        private boolean fillBuffer() throws IOException {
+            int n = in.read(buf, 0, buf.length);
+            pos = 0;
+            limit = Math.max(0, n);
+            return n > 0;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package tasktribe;
+
+/**
+ * Typed change events from the points where the store is mutated, delivered to subscribed
+ * {@link Listener}s such as the materialized report views. Each kind of event is a method of
+ * the listener rather than an event object, so emitting costs no allocation, and a listener
+ * overrides only the events it needs.
+ *
+ * <p>Events are delivered synchronously on the thread making the change, while it still holds
+ * the lock of what changed: task events under the project's write lock, training events under
+ * the {@link TrainingIndex} lock. Events about one project, or about training, therefore
+ * arrive in the order they happened. Listeners must be quick, keep their own state safe for
+ * concurrent use, and must not call back into the store, except from {@link Listener#tasksLoaded},
+ * which is delivered with no lock held. Listeners are subscribed once at startup, before any
+ * data is loaded; TaskTribeApp registers its views in its static fields.
+ */
+final class ChangeFeed {
+    /** Receives change events; every method ignores its event unless overridden. */
+    interface Listener {
+        default void ambassadorAdded(Ambassador a) {
+        }
+
+        default void ambassadorDeleted(Ambassador a) {
+        }
+
+        default void projectAdded(Project p) {
+        }
+
+        /** Tasks already in the project's store when it was loaded, e.g. from a snapshot. */
+        default void tasksLoaded(Project p) {
+        }
+
+        default void taskAdded(Project p, int taskId, int assigneeId, int status) {
+        }
+
+        default void taskStatusChanged(Project p, int taskId, int assigneeId, int from, int to) {
+        }
+
+        default void taskAssigneeChanged(Project p, int taskId, int status, int from, int to) {
+        }
+
+        /** A session joined the program; {@code attendees} is only valid during the call. */
+        default void sessionAdded(TrainingProgram p, TrainingSession s, IdBitmap attendees) {
+        }
+
+        /** The ambassador newly attended the session; {@code p} is null if it is in no program yet. */
+        default void attendanceMarked(TrainingProgram p, TrainingSession s, int ambassadorId) {
+        }
+    }
+
+    private static volatile Listener[] listeners = new Listener[0];
+
+    private ChangeFeed() {
+    }
+
+    static synchronized <L extends Listener> L subscribe(L listener) {
+        Listener[] current = listeners;
+        Listener[] next = new Listener[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = listener;
+        listeners = next;
+        return listener;
+    }
+
+    static void ambassadorAdded(Ambassador a) {
+        for (Listener l : listeners) {
+            l.ambassadorAdded(a);
+        }
+    }
+
+    static void ambassadorDeleted(Ambassador a) {
+        for (Listener l : listeners) {
+            l.ambassadorDeleted(a);
+        }
+    }
+
+    static void projectAdded(Project p) {
+        for (Listener l : listeners) {
+            l.projectAdded(p);
+        }
+    }
+
+    static void tasksLoaded(Project p) {
+        for (Listener l : listeners) {
+            l.tasksLoaded(p);
+        }
+    }
+
+    static void taskAdded(Project p, int taskId, int assigneeId, int status) {
+        for (Listener l : listeners) {
+            l.taskAdded(p, taskId, assigneeId, status);
+        }
+    }
+
+    static void taskStatusChanged(Project p, int taskId, int assigneeId, int from, int to) {
+        for (Listener l : listeners) {
+            l.taskStatusChanged(p, taskId, assigneeId, from, to);
+        }
+    }
+
+    static void taskAssigneeChanged(Project p, int taskId, int status, int from, int to) {
+        for (Listener l : listeners) {
+            l.taskAssigneeChanged(p, taskId, status, from, to);
+        }
+    }
+
+    static void sessionAdded(TrainingProgram p, TrainingSession s, IdBitmap attendees) {
+        for (Listener l : listeners) {
+            l.sessionAdded(p, s, attendees);
+        }
+    }
+
+    static void attendanceMarked(TrainingProgram p, TrainingSession s, int ambassadorId) {
+        for (Listener l : listeners) {
+            l.attendanceMarked(p, s, ambassadorId);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package tasktribe;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Intern table that maps a small set of repeated labels (task statuses, ambassador roles) to
+ * dense integer codes, so objects store a code instead of their own String and comparisons are
+ * integer compares. Labels that are not predefined get the next free code the first time they
+ * are seen, so any legacy value still round-trips.
+ */
+class CodeDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final boolean lenient;
+    private volatile String[] labels;
+    private int size;
+
+    /**
+     * @param lenient when true, labels are matched ignoring case, blanks, '_' and '-', so
+     *                "in progress", "IN_PROGRESS" and "InProgress" share one code
+     */
+    public CodeDictionary(boolean lenient, String... predefined) {
+        this.lenient = lenient;
+        this.labels = new String[Math.max(8, predefined.length)];
+        for (String label : predefined) {
+            code(label);
+        }
+    }
+
+    public synchronized int code(String label) {
+        if (label == null) {
+            throw new IllegalArgumentException("Null label");
+        }
+        String key = key(label);
+        Integer existing = codes.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        String[] current = labels;
+        if (code == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[code] = label;
+        labels = current;
+        codes.put(key, code);
+        size++;
+        return code;
+    }
+
+    /** Returns the code for the label, or -1 if it has never been interned. */
+    public synchronized int find(String label) {
+        Integer existing = codes.get(key(label));
+        return existing == null ? -1 : existing;
+    }
+
+    public String label(int code) {
+        String[] current = labels;
+        if (code < 0 || code >= current.length || current[code] == null) {
+            throw new IllegalArgumentException("Unknown code: " + code);
+        }
+        return current[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private String key(String label) {
+        if (!lenient) {
+            return label;
+        }
+        StringBuilder sb = new StringBuilder(label.length());
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (!Character.isWhitespace(c) && c != '_' && c != '-') {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
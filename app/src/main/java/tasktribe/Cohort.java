@@ -0,0 +1,53 @@
+package tasktribe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Cohort {
+    private final int id;
+    private final String name;
+    private final TrainingProgram program;
+    // Guarded by TrainingIndex: the members, per program session the members who have not
+    // attended it, and how many members have attended every session.
+    final IdBitmap members = new IdBitmap();
+    final List<IdBitmap> missing = new ArrayList<>();
+    int completed;
+
+    public Cohort(int id, String name, TrainingProgram program) {
+        this.id = id;
+        this.name = name;
+        this.program = program;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TrainingProgram getProgram() {
+        return program;
+    }
+
+    public int getMemberCount() {
+        return TrainingIndex.memberCount(this);
+    }
+
+    public int getCompletedCount() {
+        return TrainingIndex.completedCount(this);
+    }
+
+    void appendTo(StringBuilder sb) {
+        sb.append("Cohort ").append(id).append(" - ").append(name).append(", Program: ").append(program.getName())
+                .append(", Members: ").append(getMemberCount());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(64);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
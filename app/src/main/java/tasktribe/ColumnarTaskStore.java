@@ -0,0 +1,231 @@
+package tasktribe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Struct-of-arrays storage for the tasks of one project. Each task is a row spread over primitive
+ * columns (ID, assignee ID, status code, deadline as epoch day) plus references into string pools
+ * for the name and the deadline text, so a project with millions of tasks is a handful of arrays
+ * rather than millions of objects. {@link Task} is the object facade over a row; aggregate scans
+ * work directly on the columns.
+ */
+class ColumnarTaskStore {
+    static final int NO_ASSIGNEE = 0;
+
+    private int[] ids;
+    private int[] assigneeIds;
+    private byte[] statuses;
+    private int[] deadlineDays;
+    private int[] nameRefs;
+    private int[] deadlineRefs;
+    private int size;
+
+    private final StringPool names;
+    private final StringPool deadlineTexts;
+
+    public ColumnarTaskStore() {
+        this(8);
+    }
+
+    public ColumnarTaskStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        ids = new int[capacity];
+        assigneeIds = new int[capacity];
+        statuses = new byte[capacity];
+        deadlineDays = new int[capacity];
+        nameRefs = new int[capacity];
+        deadlineRefs = new int[capacity];
+        names = new StringPool(false);
+        deadlineTexts = new StringPool(true);
+    }
+
+    private ColumnarTaskStore(int size, int[] ids, int[] assigneeIds, byte[] statuses, int[] deadlineDays,
+            int[] nameRefs, int[] deadlineRefs, StringPool names, StringPool deadlineTexts) {
+        this.size = size;
+        this.ids = ids;
+        this.assigneeIds = assigneeIds;
+        this.statuses = statuses;
+        this.deadlineDays = deadlineDays;
+        this.nameRefs = nameRefs;
+        this.deadlineRefs = deadlineRefs;
+        this.names = names;
+        this.deadlineTexts = deadlineTexts;
+    }
+
+    /** Appends a task and returns its row. */
+    public int append(int id, String name, String deadline, int assigneeId, int status) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = id;
+        assigneeIds[row] = assigneeId;
+        statuses[row] = (byte) status;
+        deadlineDays[row] = Deadlines.parse(deadline);
+        nameRefs[row] = names.add(name);
+        deadlineRefs[row] = deadlineTexts.add(deadline);
+        return row;
+    }
+
+    /**
+     * Returns a store with the same rows, for a writer to change while a snapshot still reads this
+     * one (see {@link Project#captureTasks}).
+     */
+    ColumnarTaskStore copy() {
+        int capacity = ids.length;
+        return new ColumnarTaskStore(size, Arrays.copyOf(ids, capacity), Arrays.copyOf(assigneeIds, capacity),
+                Arrays.copyOf(statuses, capacity), Arrays.copyOf(deadlineDays, capacity),
+                Arrays.copyOf(nameRefs, capacity), Arrays.copyOf(deadlineRefs, capacity), names.copy(),
+                deadlineTexts.copy());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int row) {
+        return ids[row];
+    }
+
+    public String name(int row) {
+        return names.get(nameRefs[row]);
+    }
+
+    public String deadline(int row) {
+        return deadlineTexts.get(deadlineRefs[row]);
+    }
+
+    public void appendName(int row, StringBuilder sb) {
+        names.appendTo(nameRefs[row], sb);
+    }
+
+    public void appendDeadline(int row, StringBuilder sb) {
+        deadlineTexts.appendTo(deadlineRefs[row], sb);
+    }
+
+    public int deadlineDay(int row) {
+        return deadlineDays[row];
+    }
+
+    public int status(int row) {
+        return statuses[row];
+    }
+
+    public void setStatus(int row, int status) {
+        statuses[row] = (byte) status;
+    }
+
+    public int assigneeId(int row) {
+        return assigneeIds[row];
+    }
+
+    public void setAssigneeId(int row, int assigneeId) {
+        assigneeIds[row] = assigneeId;
+    }
+
+    /** Adds one count per row to the given counters. */
+    public void countStatuses(StatusCounts into) {
+        byte[] s = statuses;
+        for (int row = 0, n = size; row < n; row++) {
+            into.add(s[row]);
+        }
+    }
+
+    public int countWithStatus(int status) {
+        byte[] s = statuses;
+        byte code = (byte) status;
+        int count = 0;
+        for (int row = 0, n = size; row < n; row++) {
+            if (s[row] == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int countCompletedBy(int assigneeId) {
+        byte[] s = statuses;
+        int[] a = assigneeIds;
+        int count = 0;
+        for (int row = 0, n = size; row < n; row++) {
+            if (a[row] == assigneeId && s[row] == TaskStatus.COMPLETED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Adds the assignee of every completed task in rows [from, to) to {@code into}. */
+    public void addCompletedAssignees(int from, int to, BitSet into) {
+        byte[] s = statuses;
+        int[] a = assigneeIds;
+        for (int row = from, n = Math.min(to, size); row < n; row++) {
+            if (s[row] == TaskStatus.COMPLETED && a[row] != NO_ASSIGNEE) {
+                into.set(a[row]);
+            }
+        }
+    }
+
+    /** Adds one to {@code counts[assignee]} for every completed task in rows [from, to); larger IDs are skipped. */
+    public void countCompletedByAssignee(int from, int to, int[] counts) {
+        byte[] s = statuses;
+        int[] a = assigneeIds;
+        for (int row = from, n = Math.min(to, size); row < n; row++) {
+            if (s[row] == TaskStatus.COMPLETED && a[row] != NO_ASSIGNEE && a[row] < counts.length) {
+                counts[a[row]]++;
+            }
+        }
+    }
+
+    void writeTo(BinarySnapshot.Out out) throws IOException {
+        out.writeInt(size);
+        out.writeInts(ids, size);
+        out.writeInts(assigneeIds, size);
+        out.writeInts(deadlineDays, size);
+        out.writeInts(nameRefs, size);
+        out.writeInts(deadlineRefs, size);
+        out.writeBytes(statuses, size);
+        names.writeTo(out);
+        deadlineTexts.writeTo(out);
+    }
+
+    /**
+     * Reads columns written by {@link #writeTo}. {@code statusMap} translates the status codes of
+     * the writing process to this process's codes; null if this process wrote them.
+     */
+    static ColumnarTaskStore readFrom(ByteBuffer buf, byte[] statusMap) {
+        int size = buf.getInt();
+        int[] ids = BinarySnapshot.readInts(buf, size);
+        int[] assigneeIds = BinarySnapshot.readInts(buf, size);
+        int[] deadlineDays = BinarySnapshot.readInts(buf, size);
+        int[] nameRefs = BinarySnapshot.readInts(buf, size);
+        int[] deadlineRefs = BinarySnapshot.readInts(buf, size);
+        byte[] statuses = BinarySnapshot.readBytes(buf, size);
+        boolean identity = true;
+        for (int code = 0; statusMap != null && code < statusMap.length; code++) {
+            identity &= statusMap[code] == code;
+        }
+        if (!identity) {
+            for (int row = 0; row < size; row++) {
+                statuses[row] = statusMap[statuses[row]];
+            }
+        }
+        StringPool names = StringPool.readFrom(buf, false);
+        StringPool deadlineTexts = StringPool.readFrom(buf, true);
+        return new ColumnarTaskStore(size, ids, assigneeIds, statuses, deadlineDays, nameRefs, deadlineRefs,
+                names, deadlineTexts);
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1) + 1;
+        ids = Arrays.copyOf(ids, capacity);
+        assigneeIds = Arrays.copyOf(assigneeIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        deadlineDays = Arrays.copyOf(deadlineDays, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+        deadlineRefs = Arrays.copyOf(deadlineRefs, capacity);
+    }
+}
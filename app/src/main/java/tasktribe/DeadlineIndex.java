@@ -0,0 +1,70 @@
+package tasktribe;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Calendar of task IDs bucketed by deadline day, kept in a sorted map so range queries such as
+ * "overdue" or "due this week" cost O(log d + k) for d distinct days and k matching tasks.
+ * Tasks whose deadline could not be parsed are only counted.
+ */
+class DeadlineIndex {
+    private final TreeMap<Integer, IntHashSet> tasksByDay = new TreeMap<>();
+    private int undated;
+
+    public void add(int deadlineDay, int taskId) {
+        if (deadlineDay == Deadlines.NONE) {
+            undated++;
+            return;
+        }
+        tasksByDay.computeIfAbsent(deadlineDay, d -> new IntHashSet(4)).add(taskId);
+    }
+
+    public void remove(int deadlineDay, int taskId) {
+        if (deadlineDay == Deadlines.NONE) {
+            undated--;
+            return;
+        }
+        IntHashSet taskIds = tasksByDay.get(deadlineDay);
+        if (taskIds != null && taskIds.remove(taskId) && taskIds.isEmpty()) {
+            tasksByDay.remove(deadlineDay);
+        }
+    }
+
+    /** Receives one (deadline day, task ID) pair. */
+    interface Visitor {
+        void visit(int day, int taskId);
+    }
+
+    /** Visits the tasks with a deadline in [fromDay, toDay], earliest day first; IDs within a day are unordered. */
+    public void forEachBetween(int fromDay, int toDay, Visitor visitor) {
+        if (fromDay > toDay) {
+            return;
+        }
+        for (Map.Entry<Integer, IntHashSet> e : tasksByDay.subMap(fromDay, true, toDay, true).entrySet()) {
+            int day = e.getKey();
+            e.getValue().forEach(taskId -> visitor.visit(day, taskId));
+        }
+    }
+
+    /** Number of tasks with a deadline in [fromDay, toDay]; O(d) for the d days in the range. */
+    public int countBetween(int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            return 0;
+        }
+        int count = 0;
+        for (IntHashSet taskIds : tasksByDay.subMap(fromDay, true, toDay, true).values()) {
+            count += taskIds.size();
+        }
+        return count;
+    }
+
+    public int undatedCount() {
+        return undated;
+    }
+
+    public void clear() {
+        tasksByDay.clear();
+        undated = 0;
+    }
+}
@@ -0,0 +1,50 @@
+package tasktribe;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Parses task deadlines into epoch days. The menus ask for dates such as "12/30/2025"
+ * (month/day/year); ISO dates ("2025-12-30") are accepted too. Anything else is kept only as
+ * text and parses to {@link #NONE}.
+ */
+final class Deadlines {
+    static final int NONE = Integer.MIN_VALUE;
+
+    private Deadlines() {
+    }
+
+    static int parse(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        String s = text.trim();
+        try {
+            int first = s.indexOf('/');
+            if (first > 0) {
+                int second = s.indexOf('/', first + 1);
+                if (second > 0 && s.indexOf('/', second + 1) < 0) {
+                    int month = parsePart(s, 0, first);
+                    int day = parsePart(s, first + 1, second);
+                    int year = parsePart(s, second + 1, s.length());
+                    return (int) LocalDate.of(year, month, day).toEpochDay();
+                }
+            } else if (s.indexOf('-') > 0) {
+                return (int) LocalDate.parse(s).toEpochDay();
+            }
+        } catch (NumberFormatException | DateTimeException e) {
+            return NONE;
+        }
+        return NONE;
+    }
+
+    private static int parsePart(String s, int from, int to) {
+        while (from < to && Character.isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) {
+            to--;
+        }
+        return Integer.parseInt(s, from, to, 10);
+    }
+}
@@ -0,0 +1,420 @@
+package tasktribe;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Set of non-negative {@code int} IDs stored as a compressed bitmap. IDs are split by their high
+ * 16 bits into chunks of 65536; a chunk with few IDs keeps their low 16 bits in a sorted array,
+ * and one with more than {@value #ARRAY_MAX} switches to a 1024-word bitmap, so sparse and dense
+ * sets both stay small. Set operations work chunk by chunk, word by word where both sides are
+ * bitmaps, and skip chunks the other side does not have. Not thread-safe.
+ */
+final class IdBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1 << 10;
+
+    private int[] keys;
+    private Chunk[] chunks;
+    private int count;
+    private int cardinality;
+
+    IdBitmap() {
+        this(4);
+    }
+
+    private IdBitmap(int capacity) {
+        keys = new int[capacity];
+        chunks = new Chunk[capacity];
+    }
+
+    boolean contains(int id) {
+        int i = find(id >>> 16);
+        return i >= 0 && chunks[i].contains(id & 0xffff);
+    }
+
+    /** Adds the ID; returns false if it was already present. */
+    boolean add(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        int key = id >>> 16;
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, key, new Chunk());
+        }
+        if (chunks[i].add(id & 0xffff)) {
+            cardinality++;
+            return true;
+        }
+        return false;
+    }
+
+    /** Adds every ID in {@code other}; returns how many were not present before. */
+    int addAll(IdBitmap other) {
+        int before = cardinality;
+        for (int j = 0; j < other.count; j++) {
+            int i = find(other.keys[j]);
+            if (i < 0) {
+                insert(-i - 1, other.keys[j], other.chunks[j].copy());
+                cardinality += other.chunks[j].size;
+            } else {
+                Chunk c = chunks[i];
+                cardinality -= c.size;
+                c.or(other.chunks[j]);
+                cardinality += c.size;
+            }
+        }
+        return cardinality - before;
+    }
+
+    boolean remove(int id) {
+        int i = find(id >>> 16);
+        if (i < 0 || !chunks[i].remove(id & 0xffff)) {
+            return false;
+        }
+        cardinality--;
+        if (chunks[i].size == 0) {
+            System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+            System.arraycopy(chunks, i + 1, chunks, i, count - i - 1);
+            chunks[--count] = null;
+        }
+        return true;
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    IdBitmap copy() {
+        IdBitmap b = new IdBitmap(Math.max(4, count));
+        for (int i = 0; i < count; i++) {
+            b.keys[i] = keys[i];
+            b.chunks[i] = chunks[i].copy();
+        }
+        b.count = count;
+        b.cardinality = cardinality;
+        return b;
+    }
+
+    /** The IDs in both this set and {@code other}. */
+    IdBitmap and(IdBitmap other) {
+        IdBitmap b = new IdBitmap(Math.max(4, Math.min(count, other.count)));
+        int i = 0;
+        int j = 0;
+        while (i < count && j < other.count) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                b.append(keys[i], chunks[i].and(other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return b;
+    }
+
+    /** The IDs in this set but not in {@code other}. */
+    IdBitmap andNot(IdBitmap other) {
+        IdBitmap b = new IdBitmap(Math.max(4, count));
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            while (j < other.count && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.count && other.keys[j] == keys[i]) {
+                b.append(keys[i], chunks[i].andNot(other.chunks[j]));
+            } else {
+                b.append(keys[i], chunks[i].copy());
+            }
+        }
+        return b;
+    }
+
+    /** Visits the IDs in ascending order. */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < count; i++) {
+            chunks[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /** Visits the IDs in ascending order until {@code action} returns false. */
+    void forEachWhile(IntPredicate action) {
+        for (int i = 0; i < count; i++) {
+            if (!chunks[i].forEachWhile(keys[i] << 16, action)) {
+                return;
+            }
+        }
+    }
+
+    int[] toArray() {
+        int[] ids = new int[cardinality];
+        int[] n = new int[1];
+        forEach(id -> ids[n[0]++] = id);
+        return ids;
+    }
+
+    void clear() {
+        Arrays.fill(chunks, 0, count, null);
+        count = 0;
+        cardinality = 0;
+    }
+
+    private int find(int key) {
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    private void insert(int i, int key, Chunk c) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            chunks = Arrays.copyOf(chunks, count * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, count - i);
+        System.arraycopy(chunks, i, chunks, i + 1, count - i);
+        keys[i] = key;
+        chunks[i] = c;
+        count++;
+    }
+
+    // Adds a chunk with a key above all present ones; empty chunks are dropped.
+    private void append(int key, Chunk c) {
+        if (c.size > 0) {
+            insert(count, key, c);
+            cardinality += c.size;
+        }
+    }
+
+    /** The low 16 bits of the IDs in one 65536-ID range, as a sorted array or a bitmap. */
+    private static final class Chunk {
+        char[] values = new char[4];
+        long[] words;
+        int size;
+
+        boolean contains(int low) {
+            if (words != null) {
+                return (words[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, size, (char) low) >= 0;
+        }
+
+        boolean add(int low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) != 0) {
+                    return false;
+                }
+                words[low >>> 6] |= bit;
+                size++;
+                return true;
+            }
+            int i = Arrays.binarySearch(values, 0, size, (char) low);
+            if (i >= 0) {
+                return false;
+            }
+            if (size == ARRAY_MAX) {
+                toWords();
+                return add(low);
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = (char) low;
+            size++;
+            return true;
+        }
+
+        boolean remove(int low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0) {
+                    return false;
+                }
+                words[low >>> 6] &= ~bit;
+                size--;
+                return true;
+            }
+            int i = Arrays.binarySearch(values, 0, size, (char) low);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        void or(Chunk other) {
+            if (words != null && other.words != null) {
+                int n = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] |= other.words[w];
+                    n += Long.bitCount(words[w]);
+                }
+                size = n;
+            } else {
+                other.forEach(0, this::add);
+            }
+        }
+
+        Chunk and(Chunk other) {
+            Chunk c = new Chunk();
+            if (words != null && other.words != null) {
+                c.values = null;
+                c.words = new long[WORDS];
+                int n = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    c.words[w] = words[w] & other.words[w];
+                    n += Long.bitCount(c.words[w]);
+                }
+                c.size = n;
+                c.compact();
+            } else if (words == null && other.words == null) {
+                // Two sorted arrays: merge them.
+                c.values = new char[Math.max(4, Math.min(size, other.size))];
+                int i = 0;
+                int j = 0;
+                while (i < size && j < other.size) {
+                    if (values[i] < other.values[j]) {
+                        i++;
+                    } else if (values[i] > other.values[j]) {
+                        j++;
+                    } else {
+                        c.values[c.size++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                // Probe the array side against the bitmap; the result is never larger than it.
+                Chunk small = words == null ? this : other;
+                Chunk large = small == this ? other : this;
+                c.values = new char[Math.max(4, small.size)];
+                for (int i = 0; i < small.size; i++) {
+                    if (large.contains(small.values[i])) {
+                        c.values[c.size++] = small.values[i];
+                    }
+                }
+            }
+            return c;
+        }
+
+        Chunk andNot(Chunk other) {
+            Chunk c = new Chunk();
+            if (words != null) {
+                c.values = null;
+                c.words = words.clone();
+                c.size = size;
+                if (other.words != null) {
+                    int n = 0;
+                    for (int w = 0; w < WORDS; w++) {
+                        c.words[w] &= ~other.words[w];
+                        n += Long.bitCount(c.words[w]);
+                    }
+                    c.size = n;
+                } else {
+                    for (int i = 0; i < other.size; i++) {
+                        c.remove(other.values[i]);
+                    }
+                }
+                c.compact();
+            } else if (other.words == null) {
+                c.values = new char[Math.max(4, size)];
+                int j = 0;
+                for (int i = 0; i < size; i++) {
+                    while (j < other.size && other.values[j] < values[i]) {
+                        j++;
+                    }
+                    if (j == other.size || other.values[j] != values[i]) {
+                        c.values[c.size++] = values[i];
+                    }
+                }
+            } else {
+                c.values = new char[Math.max(4, size)];
+                for (int i = 0; i < size; i++) {
+                    if (!other.contains(values[i])) {
+                        c.values[c.size++] = values[i];
+                    }
+                }
+            }
+            return c;
+        }
+
+        void forEach(int base, IntConsumer action) {
+            if (words == null) {
+                for (int i = 0; i < size; i++) {
+                    action.accept(base | values[i]);
+                }
+                return;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        boolean forEachWhile(int base, IntPredicate action) {
+            if (words == null) {
+                for (int i = 0; i < size; i++) {
+                    if (!action.test(base | values[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    if (!action.test(base | (w << 6) | Long.numberOfTrailingZeros(word))) {
+                        return false;
+                    }
+                    word &= word - 1;
+                }
+            }
+            return true;
+        }
+
+        Chunk copy() {
+            Chunk c = new Chunk();
+            c.size = size;
+            if (words != null) {
+                c.values = null;
+                c.words = words.clone();
+            } else {
+                c.values = Arrays.copyOf(values, Math.max(4, size));
+            }
+            return c;
+        }
+
+        private void toWords() {
+            words = new long[WORDS];
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        // Goes back to the array form once a bitmap result is small enough.
+        private void compact() {
+            if (size > ARRAY_MAX) {
+                return;
+            }
+            char[] v = new char[Math.max(4, size)];
+            int[] n = new int[1];
+            forEach(0, low -> v[n[0]++] = (char) low);
+            values = v;
+            words = null;
+        }
+    }
+}
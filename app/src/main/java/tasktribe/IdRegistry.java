@@ -0,0 +1,161 @@
+package tasktribe;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Registry of entities keyed by the sequential IDs handed out by the counters in TaskTribeApp.
+ * IDs are dense and start at 1, so a plain array slot per ID gives O(1) lookup, and walking the
+ * slots in ID order yields the entities in the order they were added.
+ *
+ * <p>Safe for concurrent use: lookups and iteration read the slots without locking (iteration
+ * is weakly consistent), while puts and removes are serialized.
+ *
+ * <p>Lists are paged by cursor: the cursor is the last ID shown, and the next page starts after
+ * it. IDs are never reused and new ones are higher than all before them, so entities added while
+ * a list is being paged land on later pages and removals never shift a page, as they would with
+ * an offset.
+ */
+class IdRegistry<T> implements Iterable<T> {
+    /** The cursor after the last page. */
+    static final int END = -1;
+
+    private volatile AtomicReferenceArray<T> slots;
+    private volatile int size;
+    private volatile int highestId;
+
+    public IdRegistry() {
+        this.slots = new AtomicReferenceArray<>(16);
+    }
+
+    public T get(int id) {
+        AtomicReferenceArray<T> s = slots;
+        return id < 0 || id >= s.length() ? null : s.get(id);
+    }
+
+    public boolean contains(int id) {
+        return get(id) != null;
+    }
+
+    public synchronized void put(int id, T value) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Null value for ID: " + id);
+        }
+        AtomicReferenceArray<T> s = slots;
+        if (id >= s.length()) {
+            AtomicReferenceArray<T> grown =
+                    new AtomicReferenceArray<>(Math.max(id + 1, s.length() + (s.length() >> 1)));
+            for (int i = 0; i <= highestId; i++) {
+                grown.lazySet(i, s.get(i));
+            }
+            slots = s = grown;
+        }
+        if (s.getAndSet(id, value) == null) {
+            size++;
+        }
+        if (id > highestId) {
+            highestId = id;
+        }
+    }
+
+    public synchronized T remove(int id) {
+        T old = get(id);
+        if (old != null) {
+            AtomicReferenceArray<T> s = slots;
+            s.set(id, null);
+            size--;
+            int h = highestId;
+            while (h > 0 && s.get(h) == null) {
+                h--;
+            }
+            highestId = h;
+        }
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        slots = new AtomicReferenceArray<>(16);
+        size = 0;
+        highestId = 0;
+    }
+
+    /**
+     * Passes up to {@code limit} entities with IDs above {@code afterId} to {@code action}, in ID
+     * order, and returns the cursor of the next page: the last ID passed, or {@link #END} if no
+     * entity follows it.
+     */
+    public int forEachAfter(int afterId, int limit, Consumer<? super T> action) {
+        AtomicReferenceArray<T> s = slots;
+        int last = Math.min(highestId, s.length() - 1);
+        int passed = 0;
+        int cursor = afterId;
+        for (int i = Math.max(afterId + 1, 0); i <= last; i++) {
+            T v = s.get(i);
+            if (v != null) {
+                if (passed == limit) {
+                    return cursor;
+                }
+                action.accept(v);
+                passed++;
+                cursor = i;
+            }
+        }
+        return END;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return iteratorAfter(-1);
+    }
+
+    /** Streams the entities with IDs above {@code afterId} in ID order, as weakly consistent as {@link #iterator}. */
+    public Iterator<T> iteratorAfter(int afterId) {
+        AtomicReferenceArray<T> s = slots;
+        int last = Math.min(highestId, s.length() - 1);
+        int first = Math.max(afterId + 1, 0);
+        return new Iterator<T>() {
+            private int next = -1;
+            private T value = advance(first);
+
+            private T advance(int from) {
+                for (int i = from; i <= last; i++) {
+                    T v = s.get(i);
+                    if (v != null) {
+                        next = i;
+                        return v;
+                    }
+                }
+                next = last + 1;
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return value != null;
+            }
+
+            @Override
+            public T next() {
+                if (value == null) {
+                    throw new NoSuchElementException();
+                }
+                T result = value;
+                value = advance(next + 1);
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package tasktribe;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Open-addressing set of primitive {@code int} values, the set counterpart of
+ * {@link IntObjectMap}.
+ */
+class IntHashSet {
+    private static final int FREE = 0;
+
+    private int[] slots;
+    private int size;
+    private int mask;
+    private boolean hasFree;
+
+    public IntHashSet() {
+        this(8);
+    }
+
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public boolean contains(int value) {
+        if (value == FREE) {
+            return hasFree;
+        }
+        int i = slot(value);
+        while (slots[i] != FREE) {
+            if (slots[i] == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean add(int value) {
+        if (value == FREE) {
+            if (hasFree) {
+                return false;
+            }
+            hasFree = true;
+            size++;
+            return true;
+        }
+        int i = slot(value);
+        while (slots[i] != FREE) {
+            if (slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    public boolean remove(int value) {
+        if (value == FREE) {
+            if (!hasFree) {
+                return false;
+            }
+            hasFree = false;
+            size--;
+            return true;
+        }
+        int i = slot(value);
+        while (slots[i] != FREE) {
+            if (slots[i] == value) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, FREE);
+        hasFree = false;
+        size = 0;
+    }
+
+    /** Visits every value in unspecified order. */
+    public void forEach(IntConsumer action) {
+        if (hasFree) {
+            action.accept(FREE);
+        }
+        for (int v : slots) {
+            if (v != FREE) {
+                action.accept(v);
+            }
+        }
+    }
+
+    /** Returns whether any value matches, stopping at the first match. */
+    public boolean anyMatch(IntPredicate predicate) {
+        if (hasFree && predicate.test(FREE)) {
+            return true;
+        }
+        for (int v : slots) {
+            if (v != FREE && predicate.test(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        if (hasFree) {
+            result[n++] = FREE;
+        }
+        for (int v : slots) {
+            if (v != FREE) {
+                result[n++] = v;
+            }
+        }
+        return result;
+    }
+
+    private int slot(int value) {
+        int h = value * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            int v = slots[i];
+            if (v == FREE) {
+                break;
+            }
+            int home = slot(v);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                slots[gap] = v;
+                gap = i;
+            }
+        }
+        slots[gap] = FREE;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] old = slots;
+        slots = new int[newCapacity];
+        mask = newCapacity - 1;
+        for (int v : old) {
+            if (v != FREE) {
+                int i = slot(v);
+                while (slots[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = v;
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package tasktribe;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Open-addressing hash map from primitive {@code int} keys to objects, used where IDs are
+ * sparse (for example the tasks of a single project, whose IDs come from the global task counter)
+ * and a dense {@link IdRegistry} would waste space. Avoids boxing every key as HashMap would.
+ */
+class IntObjectMap<V> {
+    private static final int FREE_KEY = 0;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private boolean hasFreeKey;
+    private Object freeKeyValue;
+
+    public IntObjectMap() {
+        this(16);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? (V) freeKeyValue : null;
+        }
+        int i = slot(key);
+        while (keys[i] != FREE_KEY) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        int i = slot(key);
+        while (keys[i] != FREE_KEY) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == FREE_KEY) {
+            V old = (V) freeKeyValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return old;
+        }
+        int i = slot(key);
+        while (keys[i] != FREE_KEY) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return null;
+            }
+            V old = (V) freeKeyValue;
+            hasFreeKey = false;
+            freeKeyValue = null;
+            size--;
+            return old;
+        }
+        int i = slot(key);
+        while (keys[i] != FREE_KEY) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                shiftBack(i);
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, null);
+        hasFreeKey = false;
+        freeKeyValue = null;
+        size = 0;
+    }
+
+    /** Visits every value in unspecified order. */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        if (hasFreeKey) {
+            action.accept((V) freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    /** Returns whether any value matches, stopping at the first match. */
+    @SuppressWarnings("unchecked")
+    public boolean anyValue(Predicate<? super V> predicate) {
+        if (hasFreeKey && predicate.test((V) freeKeyValue)) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY && predicate.test((V) values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones.
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            int key = keys[i];
+            if (key == FREE_KEY) {
+                break;
+            }
+            int home = slot(key);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE_KEY;
+        values[gap] = null;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[newCapacity];
+        values = new Object[newCapacity];
+        mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int key = oldKeys[j];
+            if (key != FREE_KEY) {
+                int i = slot(key);
+                while (keys[i] != FREE_KEY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package tasktribe;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only operation log split into segment files named after the first sequence number they
+ * hold. Each record is one line: sequence number, operation, escaped fields and a CRC32, so a
+ * torn write at the tail is detected and ignored on replay.
+ *
+ * <p>Writers only encode into a shared buffer; a background thread drains it and fsyncs, so
+ * every writer that arrives during one commit window is made durable by the same fsync (group
+ * commit). {@link #awaitDurable} blocks until a given record has been forced to disk.
+ */
+final class Journal implements Closeable {
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** One decoded log record. */
+    static final class Record {
+        final long seq;
+        final String op;
+        final String[] fields;
+
+        Record(long seq, String op, String[] fields) {
+            this.seq = seq;
+            this.op = op;
+            this.fields = fields;
+        }
+    }
+
+    private final Path dir;
+    private final long commitWindowNanos;
+    private final Object lock = new Object();
+    private final Object ioLock = new Object();
+    private final Thread flusher;
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+    private ByteArrayOutputStream draining = new ByteArrayOutputStream(4096);
+    private FileChannel channel;
+    private long segmentStart;
+    private long nextSeq;
+    private long durableSeq;
+    private long commits;
+    private IOException failure;
+    private boolean closed;
+
+    private Journal(Path dir, long nextSeq, long commitWindowMicros) throws IOException {
+        this.dir = dir;
+        this.nextSeq = nextSeq;
+        this.durableSeq = nextSeq - 1;
+        this.commitWindowNanos = commitWindowMicros * 1000L;
+        openSegment(nextSeq);
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Replays every intact record after {@code afterSeq} and opens a fresh segment for new
+     * records. A damaged record ends its segment; replay stops at the first sequence gap.
+     */
+    static Journal open(Path dir, long afterSeq, long commitWindowMicros, Consumer<Record> replay)
+            throws IOException {
+        long last = afterSeq;
+        boolean gap = false;
+        for (Path segment : segments(dir)) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    Files.newInputStream(segment), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    Record r = decode(line);
+                    if (r == null) {
+                        // Torn tail of a segment written before a crash; the next segment picks up.
+                        break;
+                    }
+                    if (r.seq <= last) {
+                        continue;
+                    }
+                    if (r.seq != last + 1) {
+                        gap = true;
+                        break;
+                    }
+                    replay.accept(r);
+                    last = r.seq;
+                }
+            }
+            if (gap) {
+                break;
+            }
+        }
+        return new Journal(dir, last + 1, commitWindowMicros);
+    }
+
+    /** Queues a record and returns its sequence number; it is durable once {@link #awaitDurable} returns. */
+    long append(String op, String... fields) {
+        synchronized (lock) {
+            checkUsable();
+            long seq = nextSeq++;
+            byte[] line = encode(seq, op, fields);
+            pending.write(line, 0, line.length);
+            lock.notifyAll();
+            return seq;
+        }
+    }
+
+    void awaitDurable(long seq) {
+        synchronized (lock) {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal write failed", failure);
+                }
+                if (closed) {
+                    throw new IllegalStateException("Journal closed before record " + seq + " was written");
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for journal", e);
+                }
+            }
+        }
+    }
+
+    long lastSeq() {
+        synchronized (lock) {
+            return nextSeq - 1;
+        }
+    }
+
+    /** Number of fsyncs so far; with group commit, usually fewer than the records made durable. */
+    long commits() {
+        synchronized (lock) {
+            return commits;
+        }
+    }
+
+    /**
+     * Makes everything appended so far durable and continues in a new segment. Returns the last
+     * sequence number of the closed segment; older segments can be deleted once a snapshot
+     * covering that number is safely on disk.
+     */
+    long roll() throws IOException {
+        long last;
+        synchronized (lock) {
+            last = nextSeq - 1;
+        }
+        awaitDurable(last);
+        synchronized (ioLock) {
+            channel.force(true);
+            channel.close();
+            openSegment(last + 1);
+        }
+        return last;
+    }
+
+    /** Deletes segments that hold only records up to {@code seq}. May run on another thread than appends. */
+    void deleteSegmentsThrough(long seq) throws IOException {
+        Path current;
+        synchronized (ioLock) {
+            current = currentSegment();
+        }
+        List<Path> all = segments(dir);
+        for (int i = 0; i < all.size(); i++) {
+            long nextStart = i + 1 < all.size() ? startOf(all.get(i + 1)) : Long.MAX_VALUE;
+            if (nextStart <= seq + 1 && !all.get(i).equals(current)) {
+                Files.deleteIfExists(all.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            boolean empty = channel.size() == 0;
+            channel.close();
+            if (empty) {
+                Files.deleteIfExists(currentSegment());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long upTo;
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    waitQuietly(0);
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                if (commitWindowNanos > 0 && !closed) {
+                    // Give concurrent writers a moment to join this commit.
+                    long deadline = System.nanoTime() + commitWindowNanos;
+                    long left;
+                    while (!closed && (left = deadline - System.nanoTime()) > 0) {
+                        waitQuietly(Math.max(1, left / 1_000_000));
+                    }
+                }
+                ByteArrayOutputStream batch = pending;
+                pending = draining;
+                draining = batch;
+                upTo = nextSeq - 1;
+            }
+            try {
+                synchronized (ioLock) {
+                    ByteBuffer buf = ByteBuffer.wrap(draining.toByteArray());
+                    while (buf.hasRemaining()) {
+                        channel.write(buf);
+                    }
+                    channel.force(false);
+                }
+                draining.reset();
+                synchronized (lock) {
+                    durableSeq = upTo;
+                    commits++;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void waitQuietly(long millis) {
+        try {
+            lock.wait(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    private void openSegment(long start) throws IOException {
+        segmentStart = start;
+        // Any existing file at this start holds no intact records past the replay point.
+        channel = FileChannel.open(currentSegment(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private Path currentSegment() {
+        return dir.resolve(segmentName(segmentStart));
+    }
+
+    static String segmentName(long start) {
+        return SEGMENT_PREFIX + String.format("%019d", start) + SEGMENT_SUFFIX;
+    }
+
+    private static long startOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path p : ds) {
+                result.add(p);
+            }
+        }
+        result.sort((a, b) -> Long.compare(startOf(a), startOf(b)));
+        return result;
+    }
+
+    // ===== Record encoding =====
+
+    static byte[] encode(long seq, String op, String... fields) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(seq).append('\t').append(op);
+        for (String f : fields) {
+            sb.append('\t');
+            escape(f, sb);
+        }
+        byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        byte[] line = Arrays.copyOf(body, body.length + 10);
+        line[body.length] = '\t';
+        writeHex(crc.getValue(), line, body.length + 1);
+        line[line.length - 1] = '\n';
+        return line;
+    }
+
+    private static void writeHex(long crc, byte[] into, int at) {
+        for (int i = 7; i >= 0; i--) {
+            into[at + i] = (byte) HEX[(int) (crc & 0xf)];
+            crc >>>= 4;
+        }
+    }
+
+    /** Decodes one line, or returns null if it is truncated or fails its checksum. */
+    static Record decode(String line) {
+        int lastTab = line.lastIndexOf('\t');
+        if (lastTab < 0 || line.length() - lastTab - 1 != 8) {
+            return null;
+        }
+        String body = line.substring(0, lastTab);
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        long expected = crc.getValue();
+        for (int i = 7; i >= 0; i--) {
+            if (line.charAt(lastTab + 1 + i) != HEX[(int) (expected & 0xf)]) {
+                return null;
+            }
+            expected >>>= 4;
+        }
+        String[] parts = body.split("\t", -1);
+        if (parts.length < 2) {
+            return null;
+        }
+        String[] fields = new String[parts.length - 2];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = unescape(parts[i + 2]);
+        }
+        try {
+            return new Record(Long.parseLong(parts[0]), parts[1], fields);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void escape(String s, StringBuilder sb) {
+        if (s == null) {
+            sb.append("\\N");
+            return;
+        }
+        if (!needsEscape(s)) {
+            sb.append(s);
+            return;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    private static boolean needsEscape(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' || c == '\t' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String unescape(String s) {
+        if (s.equals("\\N")) {
+            return null;
+        }
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char n = s.charAt(++i);
+                switch (n) {
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    default:
+                        sb.append(n);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
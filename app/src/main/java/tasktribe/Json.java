@@ -0,0 +1,260 @@
+package tasktribe;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the flat objects the app exchanges: one level of string, number,
+ * boolean or null values, or flat arrays of integers. Numbers and booleans are returned as their
+ * text, and an integer array as its elements joined by commas ({@code [1, 2]} reads as "1,2").
+ */
+final class Json {
+    private Json() {
+    }
+
+    /** Parses a flat JSON object; null values map to null and integer arrays to comma-joined text. */
+    static Map<String, String> parseFlatObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, String> result = new LinkedHashMap<>();
+        p.skipSpace();
+        p.expect('{');
+        p.skipSpace();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipSpace();
+                String key = p.readString();
+                p.skipSpace();
+                p.expect(':');
+                p.skipSpace();
+                result.put(key, p.readScalar());
+                p.skipSpace();
+                char c = p.next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw p.error("Expected ',' or '}'");
+                }
+            }
+        }
+        p.skipSpace();
+        if (p.pos < text.length()) {
+            throw p.error("Unexpected trailing content");
+        }
+        return result;
+    }
+
+    /** Appends {@code s} as a quoted JSON string. */
+    static void quote(String s, StringBuilder out) {
+        if (s == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            if (pos >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void expect(char c) {
+            if (next() != c) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        String readScalar() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '[') {
+                return readIntArray();
+            }
+            if (c == '{') {
+                throw error("Nested values are not supported");
+            }
+            int start = pos;
+            while (pos < text.length() && ",}".indexOf(text.charAt(pos)) < 0
+                    && !Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            String word = text.substring(start, pos);
+            if (word.equals("null")) {
+                return null;
+            }
+            if (word.equals("true") || word.equals("false") || isNumber(word)) {
+                return word;
+            }
+            throw error("Invalid value '" + word + "'");
+        }
+
+        String readIntArray() {
+            expect('[');
+            skipSpace();
+            StringBuilder sb = new StringBuilder();
+            if (peek() == ']') {
+                pos++;
+                return "";
+            }
+            while (true) {
+                skipSpace();
+                int start = pos;
+                while (pos < text.length() && ",]".indexOf(text.charAt(pos)) < 0
+                        && !Character.isWhitespace(text.charAt(pos))) {
+                    pos++;
+                }
+                String word = text.substring(start, pos);
+                if (!isInteger(word)) {
+                    pos = start;
+                    throw error("Only flat arrays of integers are supported");
+                }
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(word);
+                skipSpace();
+                char c = next();
+                if (c == ']') {
+                    return sb.toString();
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or ']'");
+                }
+            }
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder sb = null;
+            int start = pos;
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return sb == null ? text.substring(start, pos - 1) : sb.toString();
+                }
+                if (c == '\\') {
+                    if (sb == null) {
+                        sb = new StringBuilder(text.substring(start, pos - 1));
+                    }
+                    char e = next();
+                    switch (e) {
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'u':
+                            if (pos + 4 > text.length()) {
+                                throw error("Truncated \\u escape");
+                            }
+                            try {
+                                sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            } catch (NumberFormatException ex) {
+                                throw error("Invalid \\u escape");
+                            }
+                            pos += 4;
+                            break;
+                        default:
+                            sb.append(e);
+                    }
+                } else if (sb != null) {
+                    sb.append(c);
+                }
+            }
+        }
+
+        private static boolean isNumber(String word) {
+            if (word.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (!(c >= '0' && c <= '9') && "+-.eE".indexOf(c) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isInteger(String word) {
+            int i = word.startsWith("-") ? 1 : 0;
+            if (i == word.length()) {
+                return false;
+            }
+            for (; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
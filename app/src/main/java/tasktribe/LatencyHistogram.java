@@ -0,0 +1,96 @@
+package tasktribe;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets: each power of two is split
+ * into {@value #SUB} equal buckets, so a percentile is within 1/16 of the true value whatever
+ * the scale, in a fixed array of counters. Recording is one atomic increment and one add, with
+ * no locks and no allocation, and may run on any number of threads; reads are not atomic with
+ * respect to concurrent recording but never miss a completed one.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    // Latencies of 2^40 ns (about 18 minutes) and above share the last bucket.
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        long m = max.get();
+        while (nanos > m && !max.compareAndSet(m, nanos)) {
+            m = max.get();
+        }
+    }
+
+    long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        return n;
+    }
+
+    long totalNanos() {
+        return total.sum();
+    }
+
+    long maxNanos() {
+        return max.get();
+    }
+
+    /** The latency at or below which {@code fraction} of the recorded ones fall, or 0 if none. */
+    long percentileNanos(double fraction) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.set(0);
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB - 1);
+        return (exponent - SUB_BITS + 1) * SUB + sub;
+    }
+
+    /** The largest latency that falls in the bucket. */
+    static long upperBound(int bucket) {
+        if (bucket < SUB) {
+            return bucket;
+        }
+        int shift = bucket / SUB - 1;
+        long lower = (long) (SUB + bucket % SUB) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,290 @@
+package tasktribe;
+
+import java.util.Arrays;
+
+/**
+ * Materialized ranking of active ambassadors: most completed tasks first, then most training
+ * sessions attended, then lowest ID. Kept up to date from the {@link ChangeFeed} in an
+ * order-statistic treap whose nodes are ambassador IDs, so a completed task or an attendance
+ * moves one ambassador in O(log n) expected time, the top K are the first K nodes in order,
+ * and an ambassador's rank is the size of what precedes them on one root-to-node path.
+ *
+ * <p>The tree lives in parallel int arrays indexed by ambassador ID (0 is the empty tree), and
+ * node priorities are a hash of the ID, so it allocates only when the arrays grow. Counts are
+ * kept for deleted ambassadors too, so events about their tasks stay balanced, but they leave
+ * the tree. Attendance counts sessions that belong to a program, like
+ * {@link Ambassador#getTrainingSessionsAttended}.
+ */
+final class LeaderboardView implements ChangeFeed.Listener {
+    private int[] completed = new int[64];
+    private int[] attended = new int[64];
+    private int[] left = new int[64];
+    private int[] right = new int[64];
+    // Nodes in the subtree rooted at each ID; 0 for an ID not in the tree.
+    private int[] size = new int[64];
+    private int root;
+    // The two halves returned by split().
+    private int splitBefore;
+    private int splitRest;
+
+    /** One ambassador's place on the board. */
+    static final class Standing {
+        final int rank;
+        final int ambassadorId;
+        final int completedTasks;
+        final int sessionsAttended;
+
+        Standing(int rank, int ambassadorId, int completedTasks, int sessionsAttended) {
+            this.rank = rank;
+            this.ambassadorId = ambassadorId;
+            this.completedTasks = completedTasks;
+            this.sessionsAttended = sessionsAttended;
+        }
+    }
+
+    /** Active ambassadors on the board. */
+    synchronized int size() {
+        return size[root];
+    }
+
+    /** The first {@code k} standings, best first. */
+    synchronized Standing[] top(int k) {
+        Standing[] result = new Standing[Math.max(0, Math.min(k, size[root]))];
+        int[] path = new int[64];
+        int depth = 0;
+        int t = root;
+        int n = 0;
+        while (n < result.length) {
+            while (t != 0) {
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                }
+                path[depth++] = t;
+                t = left[t];
+            }
+            t = path[--depth];
+            result[n] = new Standing(n + 1, t, completed[t], attended[t]);
+            n++;
+            t = right[t];
+        }
+        return result;
+    }
+
+    /** The ambassador's standing, or null if they are not an active ambassador. */
+    synchronized Standing standing(int ambassadorId) {
+        if (ambassadorId <= 0 || ambassadorId >= size.length || size[ambassadorId] == 0) {
+            return null;
+        }
+        int before = 0;
+        int t = root;
+        while (t != ambassadorId) {
+            if (precedes(ambassadorId, t)) {
+                t = left[t];
+            } else {
+                before += size[left[t]] + 1;
+                t = right[t];
+            }
+        }
+        before += size[left[t]];
+        return new Standing(before + 1, ambassadorId, completed[ambassadorId], attended[ambassadorId]);
+    }
+
+    @Override
+    public synchronized void ambassadorAdded(Ambassador a) {
+        int id = a.getId();
+        ensureCapacity(id);
+        if (size[id] == 0) {
+            insert(id);
+        }
+    }
+
+    @Override
+    public synchronized void ambassadorDeleted(Ambassador a) {
+        int id = a.getId();
+        if (id < size.length && size[id] != 0) {
+            root = remove(root, id);
+            left[id] = 0;
+            right[id] = 0;
+            size[id] = 0;
+        }
+    }
+
+    @Override
+    public void tasksLoaded(Project p) {
+        // Completed tasks per assignee as {ID, count}, so each ambassador moves once.
+        IntObjectMap<int[]> counts = new IntObjectMap<>();
+        long stamp = p.readLock();
+        try {
+            ColumnarTaskStore store = p.getStore();
+            for (int row = 0, n = store.size(); row < n; row++) {
+                int aid = store.assigneeId(row);
+                if (store.status(row) == TaskStatus.COMPLETED && aid != ColumnarTaskStore.NO_ASSIGNEE) {
+                    int[] entry = counts.get(aid);
+                    if (entry == null) {
+                        counts.put(aid, entry = new int[] {aid, 0});
+                    }
+                    entry[1]++;
+                }
+            }
+        } finally {
+            p.unlockRead(stamp);
+        }
+        synchronized (this) {
+            counts.forEachValue(entry -> adjust(entry[0], entry[1], 0));
+        }
+    }
+
+    @Override
+    public void taskAdded(Project p, int taskId, int assigneeId, int status) {
+        if (status == TaskStatus.COMPLETED && assigneeId != ColumnarTaskStore.NO_ASSIGNEE) {
+            synchronized (this) {
+                adjust(assigneeId, 1, 0);
+            }
+        }
+    }
+
+    @Override
+    public void taskStatusChanged(Project p, int taskId, int assigneeId, int from, int to) {
+        boolean wasCompleted = from == TaskStatus.COMPLETED;
+        boolean isCompleted = to == TaskStatus.COMPLETED;
+        if (wasCompleted != isCompleted && assigneeId != ColumnarTaskStore.NO_ASSIGNEE) {
+            synchronized (this) {
+                adjust(assigneeId, isCompleted ? 1 : -1, 0);
+            }
+        }
+    }
+
+    @Override
+    public void taskAssigneeChanged(Project p, int taskId, int status, int from, int to) {
+        if (status != TaskStatus.COMPLETED) {
+            return;
+        }
+        synchronized (this) {
+            if (from != ColumnarTaskStore.NO_ASSIGNEE) {
+                adjust(from, -1, 0);
+            }
+            if (to != ColumnarTaskStore.NO_ASSIGNEE) {
+                adjust(to, 1, 0);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void sessionAdded(TrainingProgram p, TrainingSession s, IdBitmap attendees) {
+        attendees.forEach(aid -> adjust(aid, 0, 1));
+    }
+
+    @Override
+    public void attendanceMarked(TrainingProgram p, TrainingSession s, int ambassadorId) {
+        // A session outside any program is counted when it joins one, attendees included.
+        if (p != null) {
+            synchronized (this) {
+                adjust(ambassadorId, 0, 1);
+            }
+        }
+    }
+
+    // Moves the ambassador to the place of their new counts. Caller holds this view's lock.
+    private void adjust(int id, int completedDelta, int attendedDelta) {
+        ensureCapacity(id);
+        boolean onBoard = size[id] != 0;
+        if (onBoard) {
+            root = remove(root, id);
+        }
+        completed[id] += completedDelta;
+        attended[id] += attendedDelta;
+        if (onBoard) {
+            insert(id);
+        }
+    }
+
+    // True if ambassador a ranks before ambassador b.
+    private boolean precedes(int a, int b) {
+        if (completed[a] != completed[b]) {
+            return completed[a] > completed[b];
+        }
+        if (attended[a] != attended[b]) {
+            return attended[a] > attended[b];
+        }
+        return a < b;
+    }
+
+    private void insert(int id) {
+        left[id] = 0;
+        right[id] = 0;
+        size[id] = 1;
+        split(root, id);
+        int rest = splitRest;
+        root = merge(merge(splitBefore, id), rest);
+    }
+
+    // Splits tree t into the nodes that rank before x (splitBefore) and the others (splitRest).
+    private void split(int t, int x) {
+        if (t == 0) {
+            splitBefore = 0;
+            splitRest = 0;
+        } else if (precedes(t, x)) {
+            split(right[t], x);
+            right[t] = splitBefore;
+            resize(t);
+            splitBefore = t;
+        } else {
+            split(left[t], x);
+            left[t] = splitRest;
+            resize(t);
+            splitRest = t;
+        }
+    }
+
+    // Joins two trees where every node of a ranks before every node of b.
+    private int merge(int a, int b) {
+        if (a == 0 || b == 0) {
+            return a != 0 ? a : b;
+        }
+        if (priority(a) > priority(b)) {
+            right[a] = merge(right[a], b);
+            resize(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        resize(b);
+        return b;
+    }
+
+    private int remove(int t, int x) {
+        if (t == x) {
+            return merge(left[t], right[t]);
+        }
+        if (precedes(x, t)) {
+            left[t] = remove(left[t], x);
+        } else {
+            right[t] = remove(right[t], x);
+        }
+        resize(t);
+        return t;
+    }
+
+    private void resize(int t) {
+        size[t] = size[left[t]] + size[right[t]] + 1;
+    }
+
+    // A well-mixed hash of the ID stands in for a random priority; the same for every run.
+    private static int priority(int id) {
+        int h = id * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= size.length) {
+            int capacity = Math.max(id + 1, size.length * 2);
+            completed = Arrays.copyOf(completed, capacity);
+            attended = Arrays.copyOf(attended, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            size = Arrays.copyOf(size, capacity);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package tasktribe;
+
+import java.util.Arrays;
+
+/**
+ * Materialized "ambassadors who have not attended every session", per training program: how
+ * many of the program's sessions each ambassador ID has attended, and the bitmap of those who
+ * have attended them all. The answer is the active roster AND-NOT that bitmap, one step however
+ * many sessions the program has. Kept up to date from the {@link ChangeFeed}; training events
+ * already arrive in order under the TrainingIndex lock.
+ */
+final class MissingTrainingView implements ChangeFeed.Listener {
+    private final IdBitmap active = new IdBitmap();
+    private final IntObjectMap<ProgramState> programs = new IntObjectMap<>();
+
+    private static final class ProgramState {
+        int sessions;
+        int[] attendedByAmbassador = new int[64];
+        IdBitmap attendedAll = new IdBitmap();
+
+        void attended(int ambassadorId) {
+            if (ambassadorId >= attendedByAmbassador.length) {
+                attendedByAmbassador = Arrays.copyOf(attendedByAmbassador,
+                        Math.max(ambassadorId + 1, attendedByAmbassador.length * 2));
+            }
+            if (++attendedByAmbassador[ambassadorId] == sessions) {
+                attendedAll.add(ambassadorId);
+            }
+        }
+    }
+
+    /** IDs of active ambassadors who have missed a session of the program, in ID order. */
+    synchronized IdBitmap missingAnySession(TrainingProgram p) {
+        ProgramState state = programs.get(p.getId());
+        return state == null ? new IdBitmap() : active.andNot(state.attendedAll);
+    }
+
+    @Override
+    public synchronized void ambassadorAdded(Ambassador a) {
+        active.add(a.getId());
+    }
+
+    @Override
+    public synchronized void ambassadorDeleted(Ambassador a) {
+        active.remove(a.getId());
+    }
+
+    @Override
+    public synchronized void sessionAdded(TrainingProgram p, TrainingSession s, IdBitmap attendees) {
+        ProgramState state = programs.get(p.getId());
+        if (state == null) {
+            programs.put(p.getId(), state = new ProgramState());
+        }
+        // Only those who had attended every earlier session and this one have attended all.
+        state.sessions++;
+        state.attendedAll = state.sessions == 1 ? new IdBitmap() : state.attendedAll.and(attendees);
+        ProgramState target = state;
+        attendees.forEach(target::attended);
+    }
+
+    @Override
+    public void attendanceMarked(TrainingProgram p, TrainingSession s, int ambassadorId) {
+        // A session outside any program is counted when it joins one, attendees included.
+        if (p == null) {
+            return;
+        }
+        synchronized (this) {
+            ProgramState state = programs.get(p.getId());
+            if (state != null) {
+                state.attended(ambassadorId);
+            }
+        }
+    }
+}
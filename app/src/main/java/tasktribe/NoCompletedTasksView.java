@@ -0,0 +1,117 @@
+package tasktribe;
+
+import java.util.Arrays;
+
+/**
+ * Materialized "ambassadors with no completed tasks": a count per ambassador ID of the
+ * completed tasks assigned to them, and the bitmap of active ambassadors whose count is zero,
+ * kept up to date from the {@link ChangeFeed}. Task events that cannot change a count (a task
+ * added unfinished, a status change between two open statuses) return before taking the lock.
+ */
+final class NoCompletedTasksView implements ChangeFeed.Listener {
+    private int[] completedByAmbassador = new int[64];
+    private final IdBitmap active = new IdBitmap();
+    private final IdBitmap withoutCompleted = new IdBitmap();
+
+    /** IDs of active ambassadors with no completed task, in ID order. */
+    synchronized IdBitmap ambassadorIds() {
+        return withoutCompleted.copy();
+    }
+
+    synchronized int completedCount(int ambassadorId) {
+        return ambassadorId < completedByAmbassador.length ? completedByAmbassador[ambassadorId] : 0;
+    }
+
+    @Override
+    public synchronized void ambassadorAdded(Ambassador a) {
+        active.add(a.getId());
+        if (completedCount(a.getId()) == 0) {
+            withoutCompleted.add(a.getId());
+        }
+    }
+
+    @Override
+    public synchronized void ambassadorDeleted(Ambassador a) {
+        active.remove(a.getId());
+        withoutCompleted.remove(a.getId());
+    }
+
+    @Override
+    public void tasksLoaded(Project p) {
+        int[] completers;
+        long stamp = p.readLock();
+        try {
+            ColumnarTaskStore store = p.getStore();
+            completers = new int[store.countWithStatus(TaskStatus.COMPLETED)];
+            int n = 0;
+            for (int row = 0, size = store.size(); row < size; row++) {
+                if (store.status(row) == TaskStatus.COMPLETED) {
+                    completers[n++] = store.assigneeId(row);
+                }
+            }
+        } finally {
+            p.unlockRead(stamp);
+        }
+        synchronized (this) {
+            for (int aid : completers) {
+                if (aid != ColumnarTaskStore.NO_ASSIGNEE) {
+                    adjust(aid, 1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void taskAdded(Project p, int taskId, int assigneeId, int status) {
+        if (status == TaskStatus.COMPLETED && assigneeId != ColumnarTaskStore.NO_ASSIGNEE) {
+            synchronized (this) {
+                adjust(assigneeId, 1);
+            }
+        }
+    }
+
+    @Override
+    public void taskStatusChanged(Project p, int taskId, int assigneeId, int from, int to) {
+        boolean wasCompleted = from == TaskStatus.COMPLETED;
+        boolean isCompleted = to == TaskStatus.COMPLETED;
+        if (wasCompleted != isCompleted && assigneeId != ColumnarTaskStore.NO_ASSIGNEE) {
+            synchronized (this) {
+                adjust(assigneeId, isCompleted ? 1 : -1);
+            }
+        }
+    }
+
+    @Override
+    public void taskAssigneeChanged(Project p, int taskId, int status, int from, int to) {
+        if (status != TaskStatus.COMPLETED) {
+            return;
+        }
+        synchronized (this) {
+            if (from != ColumnarTaskStore.NO_ASSIGNEE) {
+                adjust(from, -1);
+            }
+            if (to != ColumnarTaskStore.NO_ASSIGNEE) {
+                adjust(to, 1);
+            }
+        }
+    }
+
+    // Caller holds this view's lock.
+    private void adjust(int ambassadorId, int delta) {
+        if (ambassadorId >= completedByAmbassador.length) {
+            completedByAmbassador = Arrays.copyOf(completedByAmbassador,
+                    Math.max(ambassadorId + 1, completedByAmbassador.length * 2));
+        }
+        int before = completedByAmbassador[ambassadorId];
+        int after = before + delta;
+        completedByAmbassador[ambassadorId] = after;
+        if (!active.contains(ambassadorId)) {
+            return;
+        }
+        if (before == 0) {
+            withoutCompleted.remove(ambassadorId);
+        } else if (after == 0) {
+            withoutCompleted.add(ambassadorId);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package tasktribe;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Call count and latency histogram of one kind of operation, such as adding a task or running
+ * a report. Operations are registered once, as constants, and each run records its latency
+ * from a {@link System#nanoTime} taken at its start; recording allocates nothing and takes no
+ * lock, so metrics stay on under full load.
+ */
+final class OperationMetrics implements OperationMetricsMBean {
+    private static final List<OperationMetrics> registered = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile long since = System.nanoTime();
+
+    private OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    static OperationMetrics register(String name) {
+        OperationMetrics m = new OperationMetrics(name);
+        registered.add(m);
+        return m;
+    }
+
+    /** Every registered operation, in the order they were registered. */
+    static List<OperationMetrics> all() {
+        return registered;
+    }
+
+    /** Publishes every registered operation as a platform MBean. */
+    static void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationMetrics m : registered) {
+            ObjectName objectName = new ObjectName("tasktribe:type=Operation,name=" + m.name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(m, objectName);
+            }
+        }
+    }
+
+    void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.count();
+    }
+
+    @Override
+    public double getOpsPerSecond() {
+        double seconds = (System.nanoTime() - since) / 1e9;
+        return seconds > 0 ? latency.count() / seconds : 0;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = latency.count();
+        return n == 0 ? 0 : latency.totalNanos() / 1e3 / n;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.percentileNanos(0.50) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.percentileNanos(0.99) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.maxNanos() / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        since = System.nanoTime();
+    }
+
+    void appendTo(StringBuilder sb) {
+        sb.append(String.format(Locale.ROOT, "%-26s %9d %10.1f %10.1f %10.1f %10.1f", name, getCount(),
+                getOpsPerSecond(), getP50Micros(), getP99Micros(), getMaxMicros()));
+    }
+}
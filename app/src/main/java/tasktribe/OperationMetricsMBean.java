@@ -0,0 +1,24 @@
+package tasktribe;
+
+/**
+ * JMX view of one operation's {@link OperationMetrics}, registered as
+ * {@code tasktribe:type=Operation,name=<operation>}. Latencies are in microseconds and rates
+ * are averaged since start or since the last reset.
+ */
+public interface OperationMetricsMBean {
+    String getName();
+
+    long getCount();
+
+    double getOpsPerSecond();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,302 @@
+package tasktribe;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps the app state durable in a data directory: a compacted snapshot of the whole state plus
+ * the {@link Journal} of operations logged since. Startup loads the snapshot and replays only
+ * the journal tail after it; every {@code snapshotEvery} operations a new snapshot is written
+ * and the journal segments it covers are deleted, so recovery time stays bounded.
+ *
+ * <p>Snapshots are written in the {@link BinarySnapshot} format. Data directories from before
+ * that format hold a text snapshot (the journal's record encoding, one record per entity); it is
+ * still loaded and is replaced by a binary one at the next snapshot.
+ *
+ * <p>Operations may run on many threads. Each holds {@link #operationLock} from logging its
+ * record to applying it. A snapshot takes the exclusive side of the same lock only to roll the
+ * journal and capture the state ({@link BinarySnapshot#capture}), so it never contains a change
+ * whose record falls after the roll, or misses one before it; the file is then written on a
+ * background thread while operations go on. At most one snapshot is being written at a time, and
+ * a failed write is reported by the next {@link #applied} that finds a snapshot due.
+ *
+ * <p>Only one process may use a data directory: {@link #lock} takes an OS lock on its
+ * {@value #LOCK_FILE} file before anything is read, and {@link #close} releases it.
+ */
+final class Persistence implements Closeable {
+    static final String TEXT_SNAPSHOT_FILE = "snapshot.txt";
+    static final String LOCK_FILE = "LOCK";
+
+    private static final String SNAPSHOT_HEADER = "TASKTRIBE-SNAPSHOT";
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String END = "END";
+
+    private final Path dir;
+    private final int snapshotEvery;
+    private final BiConsumer<String, String[]> applier;
+    private final BinarySnapshot.State state;
+    private final BinarySnapshot.Loader loader;
+
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+    private final AtomicInteger opsSinceSnapshot = new AtomicInteger();
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "tasktribe-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    // The snapshot being written, if any; guarded by this.
+    private Future<?> pendingSnapshot;
+    private Journal journal;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private boolean snapshotLoaded;
+    private int replayedRecords;
+
+    Persistence(Path dir, int snapshotEvery, BiConsumer<String, String[]> applier,
+            BinarySnapshot.State state, BinarySnapshot.Loader loader) {
+        this.dir = dir;
+        this.snapshotEvery = snapshotEvery;
+        this.applier = applier;
+        this.state = state;
+        this.loader = loader;
+    }
+
+    /**
+     * Claims the data directory for this process; fails if another process holds it. Held until
+     * {@link #close}. Called by {@link #recover}, or earlier by callers that keep files of their own there.
+     */
+    synchronized void lock() throws IOException {
+        if (lock != null) {
+            return;
+        }
+        Files.createDirectories(dir);
+        Path file = dir.resolve(LOCK_FILE);
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = ch.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+        if (acquired == null) {
+            ch.close();
+            throw new IOException("the directory is in use by another TaskTribe process (" + file + " is locked)");
+        }
+        lockChannel = ch;
+        lock = acquired;
+    }
+
+    /** Loads the latest snapshot, replays the journal tail after it and opens the journal for writing. */
+    void recover() throws IOException {
+        lock();
+        long snapshotSeq = 0;
+        Path snapshot = dir.resolve(BinarySnapshot.FILE);
+        Path textSnapshot = dir.resolve(TEXT_SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            snapshotSeq = BinarySnapshot.load(snapshot, loader);
+            snapshotLoaded = true;
+        } else if (Files.exists(textSnapshot)) {
+            snapshotSeq = loadTextSnapshot(textSnapshot);
+            snapshotLoaded = true;
+        }
+        journal = Journal.open(dir, snapshotSeq, 0, r -> {
+            applier.accept(r.op, r.fields);
+            replayedRecords++;
+        });
+    }
+
+    boolean snapshotLoaded() {
+        return snapshotLoaded;
+    }
+
+    int replayedRecords() {
+        return replayedRecords;
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    /** Logs one operation and returns once it is durable. */
+    void log(String op, String... fields) {
+        journal.awaitDurable(journal.append(op, fields));
+    }
+
+    /** Queues one operation without waiting; batch writers call {@link #awaitDurable} once at the end. */
+    long append(String op, String... fields) {
+        return journal.append(op, fields);
+    }
+
+    void awaitDurable(long seq) {
+        journal.awaitDurable(seq);
+    }
+
+    /** Called after each logged operation has been applied; starts a snapshot when one is due. */
+    void applied() throws IOException {
+        applied(1);
+    }
+
+    /** Must be called without holding {@link #operationLock}. */
+    void applied(int count) throws IOException {
+        if (opsSinceSnapshot.addAndGet(count) >= snapshotEvery) {
+            synchronized (this) {
+                if (pendingSnapshot != null && pendingSnapshot.isDone()) {
+                    awaitSnapshot();
+                }
+                if (pendingSnapshot == null && opsSinceSnapshot.get() >= snapshotEvery) {
+                    pendingSnapshot = startSnapshot();
+                }
+            }
+        }
+    }
+
+    /** Held (shared) by each operation from logging its record until the change is applied. */
+    Lock operationLock() {
+        return gate.readLock();
+    }
+
+    /** Takes a snapshot and returns once it is written. */
+    synchronized void snapshot() throws IOException {
+        awaitSnapshot();
+        pendingSnapshot = startSnapshot();
+        awaitSnapshot();
+    }
+
+    // Caller holds this.
+    private Future<?> startSnapshot() throws IOException {
+        long last;
+        BinarySnapshot.Cut cut;
+        Lock exclusive = gate.writeLock();
+        exclusive.lock();
+        try {
+            last = journal.roll();
+            cut = BinarySnapshot.capture(state);
+            opsSinceSnapshot.set(0);
+        } finally {
+            exclusive.unlock();
+        }
+        return snapshotWriter.submit(() -> {
+            writeSnapshot(last, cut);
+            return null;
+        });
+    }
+
+    private void writeSnapshot(long last, BinarySnapshot.Cut cut) throws IOException {
+        Path tmp = dir.resolve(BinarySnapshot.FILE + ".tmp");
+        BinarySnapshot.write(tmp, last, cut);
+        Files.move(tmp, dir.resolve(BinarySnapshot.FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(dir.resolve(TEXT_SNAPSHOT_FILE));
+        journal.deleteSegmentsThrough(last);
+    }
+
+    // Caller holds this. Waits for the snapshot being written, if any, and rethrows its failure.
+    private void awaitSnapshot() throws IOException {
+        if (pendingSnapshot == null) {
+            return;
+        }
+        try {
+            pendingSnapshot.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for a snapshot to be written");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } finally {
+            if (pendingSnapshot.isDone()) {
+                pendingSnapshot = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (journal == null) {
+                return;
+            }
+            awaitSnapshot();
+            if (opsSinceSnapshot.get() > 0) {
+                snapshot();
+            }
+            journal.close();
+            journal = null;
+        } finally {
+            snapshotWriter.shutdown();
+            unlock();
+        }
+    }
+
+    private void unlock() throws IOException {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+        } finally {
+            lock = null;
+            lockChannel.close();
+            lockChannel = null;
+        }
+    }
+
+    private long loadTextSnapshot(Path snapshot) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            String[] h = header == null ? new String[0] : header.split("\t");
+            if (h.length != 3 || !h[0].equals(SNAPSHOT_HEADER)) {
+                throw new IOException("Not a snapshot file: " + snapshot);
+            }
+            if (Integer.parseInt(h[1]) != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + h[1] + " in " + snapshot);
+            }
+            long lastSeq = Long.parseLong(h[2]);
+            long count = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                Journal.Record r = Journal.decode(line);
+                if (r == null || r.seq != count + 1) {
+                    throw new IOException("Damaged snapshot record " + (count + 1) + " in " + snapshot);
+                }
+                if (r.op.equals(END)) {
+                    if (Long.parseLong(r.fields[0]) != count) {
+                        throw new IOException("Snapshot record count mismatch in " + snapshot);
+                    }
+                    return lastSeq;
+                }
+                applier.accept(r.op, r.fields);
+                count++;
+            }
+            throw new IOException("Snapshot is truncated: " + snapshot);
+        }
+    }
+}
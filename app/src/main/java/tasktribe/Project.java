@@ -0,0 +1,387 @@
+package tasktribe;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+class Project {
+    /** Reads one value from a row of the column store. */
+    interface RowReader<T> {
+        T read(ColumnarTaskStore store, int row);
+    }
+
+    interface RowIntReader {
+        int read(ColumnarTaskStore store, int row);
+    }
+
+    private final int id;
+    private final String name;
+    // Null while the columns are spilled to the TaskTier; readLock() and write() read them back.
+    private ColumnarTaskStore store;
+    private final StatusCounts statusCounts;
+    private volatile int taskCount;
+    // Guards store and statusCounts. Each project has its own lock, so writes to different
+    // projects never contend; single-row reads are optimistic and usually take no lock at all.
+    private final StampedLock lock = new StampedLock();
+    private Thread writer;
+    // Set on each use of the columns and cleared by the TaskTier's eviction sweep.
+    volatile boolean referenced = true;
+    // The columns changed since they were last spilled; guarded by the write lock.
+    private boolean dirty = true;
+    // What a pending snapshot captured: the columns it shares, copied before the next change, or
+    // the spill file it copies, which eviction must not rewrite until the snapshot is written.
+    private ColumnarTaskStore snapshotStore;
+    private boolean snapshotSpill;
+
+    public Project(int id, String name) {
+        this(id, name, new ColumnarTaskStore());
+    }
+
+    // Adopts tasks already in a column store, e.g. one read from a snapshot.
+    Project(int id, String name, ColumnarTaskStore store) {
+        this.id = id;
+        this.name = name;
+        this.store = store;
+        this.statusCounts = new StatusCounts();
+        store.countStatuses(statusCounts);
+        this.taskCount = store.size();
+        TaskTier.admit(this, store.size());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Task> getTaskList() {
+        return new AbstractList<Task>() {
+            @Override
+            public Task get(int index) {
+                int size = getTaskCount();
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+                }
+                return taskAt(index);
+            }
+
+            @Override
+            public int size() {
+                return getTaskCount();
+            }
+        };
+    }
+
+    // Kept apart from the columns, so it is known while they are spilled.
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public void addTask(Task task) {
+        if (task.getProject() != null) {
+            throw new IllegalStateException("Task " + task.getId() + " already belongs to project "
+                    + task.getProject().getId());
+        }
+        Ambassador assignee = task.getAssignee();
+        int status = task.getStatusCode();
+        write(() -> {
+            int row = store.append(task.getId(), task.getName(), task.getDeadline(),
+                    assignee != null ? assignee.getId() : ColumnarTaskStore.NO_ASSIGNEE, status);
+            statusCounts.add(status);
+            taskCount = row + 1;
+            TaskTier.rowAdded();
+            TaskIndex.register(this, row, task.getId(), store.deadlineDay(row), status, assignee);
+            task.attach(this, row);
+            ChangeFeed.taskAdded(this, task.getId(), store.assigneeId(row), status);
+            return null;
+        });
+    }
+
+    void setTaskStatus(int row, int status) {
+        write(() -> {
+            int previous = store.status(row);
+            if (previous != status) {
+                store.setStatus(row, status);
+                statusCounts.change(previous, status);
+                TaskIndex.statusChanged(store.id(row), store.deadlineDay(row), previous, status);
+                ChangeFeed.taskStatusChanged(this, store.id(row), store.assigneeId(row), previous, status);
+            }
+            return null;
+        });
+    }
+
+    void setTaskAssignee(int row, Ambassador assignee) {
+        write(() -> {
+            int previous = store.assigneeId(row);
+            store.setAssigneeId(row, assignee != null ? assignee.getId() : ColumnarTaskStore.NO_ASSIGNEE);
+            TaskIndex.assigneeChanged(store.id(row), previous, assignee);
+            int current = store.assigneeId(row);
+            if (current != previous) {
+                ChangeFeed.taskAssigneeChanged(this, store.id(row), store.status(row), previous, current);
+            }
+            return null;
+        });
+    }
+
+    /** A copy of the per-status counters. */
+    public StatusCounts getStatusCounts() {
+        StatusCounts copy = new StatusCounts();
+        addStatusCountsTo(copy);
+        return copy;
+    }
+
+    /** Tasks with the status, read from the counters rather than the columns. */
+    int countWithStatus(int status) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int count = statusCounts.count(status);
+                if (lock.validate(stamp)) {
+                    return count;
+                }
+            } catch (RuntimeException e) {
+                // Raced with the counters growing for a new status; retry under the read lock.
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return statusCounts.count(status);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void addStatusCountsTo(StatusCounts into) {
+        long stamp = lock.readLock();
+        try {
+            into.addAll(statusCounts);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Recounts the store into {@code recount} and copies the counters, as of the same moment. */
+    void recountStatuses(StatusCounts recount, StatusCounts counters) {
+        long stamp = readLock();
+        try {
+            store.countStatuses(recount);
+            counters.addAll(statusCounts);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Adds the assignees of the completed tasks in rows [fromRow, toRow) to {@code into}. */
+    void addCompletedAssignees(int fromRow, int toRow, BitSet into) {
+        long stamp = readLock();
+        try {
+            store.addCompletedAssignees(fromRow, toRow, into);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Counts the completed tasks in rows [fromRow, toRow) into {@code counts}, indexed by assignee. */
+    void countCompletedByAssignee(int fromRow, int toRow, int[] counts) {
+        long stamp = readLock();
+        try {
+            store.countCompletedByAssignee(fromRow, toRow, counts);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Task findTaskById(int taskId) {
+        Task t = TaskIndex.findTaskById(taskId);
+        return t != null && t.getProject() == this ? t : null;
+    }
+
+    Task taskAt(int row) {
+        return new Task(this, row);
+    }
+
+    /** The column store; scans over it must hold {@link #readLock}. */
+    ColumnarTaskStore getStore() {
+        return store;
+    }
+
+    /** Takes the read lock with the columns in memory, reading them back from the TaskTier if needed. */
+    long readLock() {
+        long stamp = lock.readLock();
+        if (store != null) {
+            TaskTier.hit(this);
+            return stamp;
+        }
+        long writeStamp = lock.tryConvertToWriteLock(stamp);
+        if (writeStamp == 0) {
+            lock.unlockRead(stamp);
+            writeStamp = lock.writeLock();
+        }
+        try {
+            makeResident();
+        } catch (RuntimeException e) {
+            lock.unlockWrite(writeStamp);
+            throw e;
+        }
+        return lock.tryConvertToReadLock(writeStamp);
+    }
+
+    void unlockRead(long stamp) {
+        lock.unlockRead(stamp);
+    }
+
+    <T> T readRow(int row, RowReader<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.read(store, row);
+                if (lock.validate(stamp)) {
+                    TaskTier.touch(this);
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // Raced with an append growing the columns, or the columns are spilled; retry under the read lock.
+            }
+        }
+        stamp = readLock();
+        try {
+            return reader.read(store, row);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int readRowInt(int row, RowIntReader reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int value = reader.read(store, row);
+                if (lock.validate(stamp)) {
+                    TaskTier.touch(this);
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                // Raced with an append growing the columns, or the columns are spilled; retry under the read lock.
+            }
+        }
+        stamp = readLock();
+        try {
+            return reader.read(store, row);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs {@code action} holding this project's write lock. Re-entrant for the owning thread,
+     * so a caller can log and apply a change to the project as one step.
+     */
+    <T> T write(Supplier<T> action) {
+        if (writer == Thread.currentThread()) {
+            return action.get();
+        }
+        long stamp = lock.writeLock();
+        writer = Thread.currentThread();
+        try {
+            makeResident();
+            if (store == snapshotStore) {
+                store = store.copy();
+            }
+            dirty = true;
+            return action.get();
+        } finally {
+            writer = null;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Caller holds the write lock.
+    private void makeResident() {
+        if (store != null) {
+            TaskTier.hit(this);
+            return;
+        }
+        store = TaskTier.pageIn(this);
+        dirty = false;
+    }
+
+    /**
+     * Spills the columns to the TaskTier, unless they are unchanged since the last spill, and
+     * drops them. Returns the rows dropped, or -1 if the project is in use, a snapshot still has
+     * to copy the spill file that a changed project would overwrite, or the spill failed.
+     */
+    int tryEvict() {
+        long stamp = lock.tryWriteLock();
+        if (stamp == 0) {
+            return -1;
+        }
+        try {
+            if (dirty) {
+                if (snapshotSpill) {
+                    return -1;
+                }
+                TaskTier.spill(id, store);
+                dirty = false;
+            }
+            int rows = store.size();
+            store = null;
+            return rows;
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Captures the columns for a snapshot as of now. Returns them, shared until {@link #snapshotWritten}
+     * and copied by the first write before then, or null if they are spilled, in which case the
+     * snapshot copies the spill file.
+     */
+    ColumnarTaskStore captureTasks() {
+        long stamp = lock.writeLock();
+        try {
+            snapshotStore = store;
+            snapshotSpill = store == null;
+            return store;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void snapshotWritten() {
+        long stamp = lock.writeLock();
+        try {
+            snapshotStore = null;
+            snapshotSpill = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void appendTask(int row, StringBuilder sb) {
+        long stamp = readLock();
+        try {
+            Task.appendRow(store, row, sb);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void appendTo(StringBuilder sb) {
+        sb.append("Project ID: ").append(id).append(", Name: ").append(name)
+                .append(", Number of tasks: ").append(getTaskCount());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(64);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
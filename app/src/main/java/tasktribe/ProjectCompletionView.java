@@ -0,0 +1,47 @@
+package tasktribe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Materialized task completion over the whole app: total and completed task counts, kept up to
+ * date from the {@link ChangeFeed}, so the app-wide figures are read in one step instead of
+ * summed over the projects. Per-project figures are not kept here; each project's own
+ * {@link StatusCounts} are the source, and this view only adds up their changes. A reader racing
+ * a change may see the total and completed counts one event apart.
+ */
+final class ProjectCompletionView implements ChangeFeed.Listener {
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+
+    int total() {
+        return total.get();
+    }
+
+    int completed() {
+        return completed.get();
+    }
+
+    @Override
+    public void tasksLoaded(Project p) {
+        StatusCounts counts = p.getStatusCounts();
+        total.addAndGet(counts.total());
+        completed.addAndGet(counts.completed());
+    }
+
+    @Override
+    public void taskAdded(Project p, int taskId, int assigneeId, int status) {
+        total.incrementAndGet();
+        if (status == TaskStatus.COMPLETED) {
+            completed.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void taskStatusChanged(Project p, int taskId, int assigneeId, int from, int to) {
+        boolean wasCompleted = from == TaskStatus.COMPLETED;
+        boolean isCompleted = to == TaskStatus.COMPLETED;
+        if (wasCompleted != isCompleted) {
+            completed.addAndGet(isCompleted ? 1 : -1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package tasktribe;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Runs full-scan reports over the tasks of many projects on the common fork-join pool. The
+ * projects are cut into slices (a large project into row ranges of at most the threshold, when
+ * the report allows it), runs of slices are split in half by task count until a run holds no
+ * more than the threshold, and each run is folded into its own partial result on whichever
+ * thread takes it. Partials are merged pairwise in project order, left before right, so with
+ * an associative merge the result is exactly that of one sequential pass over the projects.
+ * Data of no more than the threshold in all is scanned on the calling thread without forking.
+ *
+ * <p>Each slice is read under its project's read lock, taken by the {@link RowScanner}; slices
+ * are not atomic with respect to each other, as with a sequential pass.
+ */
+final class ReportEngine {
+    /** Tasks per forked piece of work; below it, forking costs more than the scan. */
+    static final int THRESHOLD = 1 << 15;
+
+    /** Folds rows [fromRow, toRow) of the project into a partial result; toRow may be past the end. */
+    interface RowScanner<A> {
+        void scan(Project p, int fromRow, int toRow, A partial);
+    }
+
+    private ReportEngine() {
+    }
+
+    /**
+     * The threshold reports should use here: {@link #THRESHOLD}, or no limit at all when there is
+     * only one processor, since then the forked pieces only take turns.
+     */
+    static int threshold() {
+        return Runtime.getRuntime().availableProcessors() > 1 ? THRESHOLD : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Folds every project into a result. With {@code splitProjects} a large project may be split
+     * into row ranges; without it each project is scanned by a single call.
+     */
+    static <A> A scan(Iterable<Project> projects, boolean splitProjects, int threshold, Supplier<A> newPartial,
+            RowScanner<A> scanner, BinaryOperator<A> merge) {
+        Slices slices = new Slices(projects, splitProjects ? threshold : Integer.MAX_VALUE);
+        Fold<A> all = new Fold<>(slices, 0, slices.count, threshold, newPartial, scanner, merge);
+        return slices.weight(0, slices.count) <= threshold ? all.compute() : ForkJoinPool.commonPool().invoke(all);
+    }
+
+    /** The projects as a list of row ranges, with the running task count to split them by. */
+    private static final class Slices {
+        Project[] projects = new Project[16];
+        int[] fromRows = new int[16];
+        int[] toRows = new int[16];
+        // offsets[i] is the weight of the slices before i; a slice weighs its rows plus one.
+        long[] offsets = new long[17];
+        int count;
+
+        Slices(Iterable<Project> source, int maxRows) {
+            for (Project p : source) {
+                int rows = p.getTaskCount();
+                if (rows <= maxRows) {
+                    // Open-ended, so tasks added since the count are still scanned.
+                    add(p, 0, Integer.MAX_VALUE, rows);
+                    continue;
+                }
+                for (int from = 0; from < rows; from += maxRows) {
+                    boolean last = rows - from <= maxRows;
+                    add(p, from, last ? Integer.MAX_VALUE : from + maxRows, Math.min(maxRows, rows - from));
+                }
+            }
+        }
+
+        private void add(Project p, int from, int to, int rows) {
+            if (count == projects.length) {
+                int capacity = count * 2;
+                projects = Arrays.copyOf(projects, capacity);
+                fromRows = Arrays.copyOf(fromRows, capacity);
+                toRows = Arrays.copyOf(toRows, capacity);
+                offsets = Arrays.copyOf(offsets, capacity + 1);
+            }
+            projects[count] = p;
+            fromRows[count] = from;
+            toRows[count] = to;
+            offsets[count + 1] = offsets[count] + rows + 1;
+            count++;
+        }
+
+        long weight(int lo, int hi) {
+            return offsets[hi] - offsets[lo];
+        }
+
+        // The slice in (lo, hi) where the first half of the weight of [lo, hi) ends.
+        int middle(int lo, int hi) {
+            long half = offsets[lo] + weight(lo, hi) / 2;
+            int i = Arrays.binarySearch(offsets, lo + 1, hi, half);
+            int mid = i >= 0 ? i : -i - 1;
+            return Math.max(lo + 1, Math.min(mid, hi - 1));
+        }
+    }
+
+    @SuppressWarnings("serial") // never serialized
+    private static final class Fold<A> extends RecursiveTask<A> {
+        private final Slices slices;
+        private final int lo;
+        private final int hi;
+        private final int threshold;
+        private final Supplier<A> newPartial;
+        private final RowScanner<A> scanner;
+        private final BinaryOperator<A> merge;
+
+        Fold(Slices slices, int lo, int hi, int threshold, Supplier<A> newPartial, RowScanner<A> scanner,
+                BinaryOperator<A> merge) {
+            this.slices = slices;
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+            this.newPartial = newPartial;
+            this.scanner = scanner;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (hi - lo <= 1 || slices.weight(lo, hi) <= threshold) {
+                A partial = newPartial.get();
+                for (int i = lo; i < hi; i++) {
+                    scanner.scan(slices.projects[i], slices.fromRows[i], slices.toRows[i], partial);
+                }
+                return partial;
+            }
+            int mid = slices.middle(lo, hi);
+            Fold<A> left = new Fold<>(slices, lo, mid, threshold, newPartial, scanner, merge);
+            left.fork();
+            A right = new Fold<>(slices, mid, hi, threshold, newPartial, scanner, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package tasktribe;
+
+import java.io.PrintStream;
+
+/**
+ * Collects report lines in one reusable buffer and hands them to the output stream in large
+ * chunks, instead of one concatenated String and one autoflush per line. Records append
+ * themselves to {@link #line()}; the text is the same as printing each line with
+ * {@code println}. Callers must {@link #flush} before prompting on the stream directly.
+ */
+final class ReportWriter {
+    private static final int CHUNK = 1 << 16;
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final PrintStream out;
+    private final StringBuilder buf = new StringBuilder(CHUNK + 256);
+
+    ReportWriter(PrintStream out) {
+        this.out = out;
+    }
+
+    /** The buffer to append the current line to; finish it with {@link #endLine}. */
+    StringBuilder line() {
+        return buf;
+    }
+
+    void endLine() {
+        buf.append(NEWLINE);
+        if (buf.length() >= CHUNK) {
+            drain();
+        }
+    }
+
+    void println(String s) {
+        buf.append(s);
+        endLine();
+    }
+
+    void flush() {
+        drain();
+        out.flush();
+    }
+
+    private void drain() {
+        if (buf.length() > 0) {
+            out.append(buf);
+            buf.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package tasktribe;
+
+/**
+ * Shared dictionary of ambassador roles. Only a handful of roles exist, so each ambassador stores
+ * a small code instead of its own String. Roles are matched exactly, so the text shown is always
+ * the text that was entered.
+ */
+final class Roles {
+    static final String PROJECT_LEAD = "Project Lead";
+    static final String CONTENT_CREATOR = "Content Creator";
+    static final String COMMUNITY_PROMOTER = "Community Promoter";
+
+    private static final CodeDictionary ROLES =
+            new CodeDictionary(false, PROJECT_LEAD, CONTENT_CREATOR, COMMUNITY_PROMOTER);
+
+    private Roles() {
+    }
+
+    static int code(String role) {
+        return ROLES.code(role);
+    }
+
+    /** The code of a role some ambassador has had, or -1. */
+    static int find(String role) {
+        return ROLES.find(role);
+    }
+
+    static String label(int code) {
+        return ROLES.label(code);
+    }
+}
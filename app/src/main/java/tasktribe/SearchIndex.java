@@ -0,0 +1,103 @@
+package tasktribe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application-wide name search: a {@link TextIndex} over task names, one over project names and
+ * one over ambassador names and roles together. Kept up to date by the apply* methods in
+ * TaskTribeApp and by snapshot loading; deleted ambassadors are taken out, and tasks and
+ * projects are never removed. Safe for concurrent use.
+ */
+final class SearchIndex {
+    private static final TextIndex taskNames = new TextIndex();
+    private static final TextIndex projectNames = new TextIndex();
+    private static final TextIndex ambassadorText = new TextIndex();
+    private static final IdRegistry<Project> projects = new IdRegistry<>();
+    private static final IdRegistry<Ambassador> ambassadors = new IdRegistry<>();
+
+    private SearchIndex() {
+    }
+
+    static void addAmbassador(Ambassador a) {
+        ambassadors.put(a.getId(), a);
+        ambassadorText.add(a.getId(), text(a.getName(), a.getRole()));
+    }
+
+    /** Reindexes an ambassador whose name or role changed from the given ones. */
+    static void ambassadorChanged(Ambassador a, String oldName, String oldRole) {
+        ambassadorText.remove(a.getId(), text(oldName, oldRole));
+        ambassadorText.add(a.getId(), text(a.getName(), a.getRole()));
+    }
+
+    static void removeAmbassador(Ambassador a) {
+        ambassadors.remove(a.getId());
+        ambassadorText.remove(a.getId(), text(a.getName(), a.getRole()));
+    }
+
+    static void addProject(Project p) {
+        projects.put(p.getId(), p);
+        projectNames.add(p.getId(), p.getName());
+    }
+
+    static void addTask(int taskId, String name) {
+        taskNames.add(taskId, name);
+    }
+
+    /** Indexes every task of a project whose column store was filled in bulk. */
+    static void addTasks(Project p) {
+        long stamp = p.readLock();
+        try {
+            ColumnarTaskStore store = p.getStore();
+            for (int row = 0, n = store.size(); row < n; row++) {
+                taskNames.add(store.id(row), store.name(row));
+            }
+        } finally {
+            p.unlockRead(stamp);
+        }
+    }
+
+    /** Active ambassadors whose name or role matches, best first. */
+    static List<Ambassador> ambassadors(String query, int limit) {
+        int[] ids = ambassadorText.search(query, limit, id -> {
+            Ambassador a = ambassadors.get(id);
+            return a == null ? null : text(a.getName(), a.getRole());
+        });
+        List<Ambassador> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Ambassador a = ambassadors.get(id);
+            if (a != null) {
+                result.add(a);
+            }
+        }
+        return result;
+    }
+
+    static List<Project> projects(String query, int limit) {
+        int[] ids = projectNames.search(query, limit, id -> {
+            Project p = projects.get(id);
+            return p == null ? null : p.getName();
+        });
+        List<Project> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(projects.get(id));
+        }
+        return result;
+    }
+
+    static List<Task> tasks(String query, int limit) {
+        int[] ids = taskNames.search(query, limit, id -> {
+            Task t = TaskIndex.findTaskById(id);
+            return t == null ? null : t.getName();
+        });
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(TaskIndex.findTaskById(id));
+        }
+        return result;
+    }
+
+    private static String text(String name, String role) {
+        return name + ' ' + role;
+    }
+}
@@ -0,0 +1,79 @@
+package tasktribe;
+
+import java.util.Arrays;
+
+/**
+ * Running count of tasks per status code. Each project keeps one for its own tasks, updated by
+ * {@link Project#addTask} and {@link Project#setTaskStatus}, so its completion figures are read
+ * instead of recounted. There is no app-wide instance: {@link TaskIndex#statusCounts} sums the
+ * projects' counts per status, and the app-wide total and completed counts are kept in one
+ * step by {@link ProjectCompletionView}.
+ */
+class StatusCounts {
+    private int[] byStatus = new int[TaskStatus.COMPLETED + 1];
+    private int total;
+
+    public void add(int status) {
+        total++;
+        adjust(status, 1);
+    }
+
+    public void change(int from, int to) {
+        adjust(from, -1);
+        adjust(to, 1);
+    }
+
+    /** Adds every count of {@code other} to this one. */
+    public void addAll(StatusCounts other) {
+        total += other.total;
+        for (int code = 0; code < other.byStatus.length; code++) {
+            if (other.byStatus[code] != 0) {
+                adjust(code, other.byStatus[code]);
+            }
+        }
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public int completed() {
+        return byStatus[TaskStatus.COMPLETED];
+    }
+
+    public int count(int status) {
+        return status < byStatus.length ? byStatus[status] : 0;
+    }
+
+    public boolean matches(StatusCounts other) {
+        if (total != other.total) {
+            return false;
+        }
+        int codes = Math.max(byStatus.length, other.byStatus.length);
+        for (int code = 0; code < codes; code++) {
+            if (count(code) != other.count(code)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void adjust(int status, int delta) {
+        if (status >= byStatus.length) {
+            byStatus = Arrays.copyOf(byStatus, Math.max(status + 1, TaskStatus.codeCount()));
+        }
+        byStatus[status] += delta;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("total=").append(total).append(", completed=").append(completed());
+        for (int code = 0; code < byStatus.length; code++) {
+            if (byStatus[code] != 0) {
+                sb.append(", ").append(TaskStatus.label(code)).append('=').append(byStatus[code]);
+            }
+        }
+        return sb.toString();
+    }
+}
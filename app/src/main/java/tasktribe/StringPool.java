@@ -0,0 +1,113 @@
+package tasktribe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only arena of strings. All characters live in one shared {@code char[]} and each string
+ * is identified by an int reference, so millions of short strings cost two arrays instead of
+ * millions of heap objects. With deduplication on, equal strings share one reference.
+ */
+class StringPool {
+    private char[] chars;
+    private int used;
+    private int[] starts;
+    private int count;
+    private final boolean deduplicate;
+    private Map<String, Integer> refs;
+
+    public StringPool(boolean deduplicate) {
+        this.chars = new char[256];
+        this.starts = new int[17];
+        this.deduplicate = deduplicate;
+        this.refs = deduplicate ? new HashMap<>() : null;
+    }
+
+    private StringPool(char[] chars, int used, int[] starts, int count, boolean deduplicate) {
+        this.chars = chars;
+        this.used = used;
+        this.starts = starts;
+        this.count = count;
+        this.deduplicate = deduplicate;
+    }
+
+    public int add(String s) {
+        if (deduplicate && refs == null) {
+            // Pools read from a snapshot build their lookup table on first use.
+            refs = new HashMap<>();
+            for (int ref = 0; ref < count; ref++) {
+                refs.putIfAbsent(get(ref), ref);
+            }
+        }
+        if (refs != null) {
+            Integer existing = refs.get(s);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        int len = s.length();
+        if (used + len > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(used + len, chars.length + (chars.length >> 1)));
+        }
+        s.getChars(0, len, chars, used);
+        used += len;
+        if (count + 2 > starts.length) {
+            starts = Arrays.copyOf(starts, Math.max(count + 2, starts.length + (starts.length >> 1)));
+        }
+        int ref = count++;
+        starts[count] = used;
+        if (refs != null) {
+            refs.put(s, ref);
+        }
+        return ref;
+    }
+
+    /**
+     * Returns a pool holding the same strings, for a writer to go on adding to while a snapshot
+     * still reads this one. The lookup table moves to the copy; this pool gets no more adds.
+     */
+    StringPool copy() {
+        StringPool c = new StringPool(Arrays.copyOf(chars, chars.length), used, Arrays.copyOf(starts, starts.length),
+                count, deduplicate);
+        c.refs = refs;
+        refs = null;
+        return c;
+    }
+
+    public String get(int ref) {
+        if (ref < 0 || ref >= count) {
+            throw new IndexOutOfBoundsException("String ref " + ref + " of " + count);
+        }
+        return new String(chars, starts[ref], starts[ref + 1] - starts[ref]);
+    }
+
+    /** Appends the string without creating a String object. */
+    public void appendTo(int ref, StringBuilder sb) {
+        if (ref < 0 || ref >= count) {
+            throw new IndexOutOfBoundsException("String ref " + ref + " of " + count);
+        }
+        sb.append(chars, starts[ref], starts[ref + 1] - starts[ref]);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    void writeTo(BinarySnapshot.Out out) throws IOException {
+        out.writeInt(count);
+        out.writeInt(used);
+        out.writeInts(starts, count + 1);
+        out.writeChars(chars, used);
+    }
+
+    static StringPool readFrom(ByteBuffer buf, boolean deduplicate) {
+        int count = buf.getInt();
+        int used = buf.getInt();
+        int[] starts = BinarySnapshot.readInts(buf, count + 1);
+        char[] chars = BinarySnapshot.readChars(buf, used);
+        return new StringPool(chars, used, starts, count, deduplicate);
+    }
+}
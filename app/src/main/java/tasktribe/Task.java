@@ -0,0 +1,134 @@
+package tasktribe;
+
+class Task {
+    private int id;
+    private String name;
+    private String deadline;
+    private byte status;
+    private Ambassador assignee;
+    private Project project;
+    private int row;
+
+    public Task(int id, String name, String deadline, Ambassador assignee) {
+        this.id = id;
+        this.name = name;
+        this.deadline = deadline;
+        this.assignee = assignee;
+        this.status = TaskStatus.NOT_STARTED;
+    }
+
+    // View over a row of the project's column store; holds no task data of its own.
+    Task(Project project, int row) {
+        this.id = project.readRowInt(row, ColumnarTaskStore::id);
+        this.project = project;
+        this.row = row;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return project == null ? name : project.readRow(row, ColumnarTaskStore::name);
+    }
+
+    public String getDeadline() {
+        return project == null ? deadline : project.readRow(row, ColumnarTaskStore::deadline);
+    }
+
+    /** Deadline as an epoch day, or {@link Deadlines#NONE} if the text is not a recognized date. */
+    public int getDeadlineDay() {
+        return project == null ? Deadlines.parse(deadline) : project.readRowInt(row, ColumnarTaskStore::deadlineDay);
+    }
+
+    public String getStatus() {
+        return TaskStatus.label(getStatusCode());
+    }
+
+    public int getStatusCode() {
+        return project == null ? status : project.readRowInt(row, ColumnarTaskStore::status);
+    }
+
+    public boolean isCompleted() {
+        return getStatusCode() == TaskStatus.COMPLETED;
+    }
+
+    public void setStatus(String status) {
+        setStatusCode(TaskStatus.parse(status));
+    }
+
+    public void setStatusCode(int status) {
+        if (project == null) {
+            this.status = (byte) status;
+            return;
+        }
+        project.setTaskStatus(row, status);
+    }
+
+    public Ambassador getAssignee() {
+        return project == null ? assignee : TaskIndex.findAssignee(project.readRowInt(row, ColumnarTaskStore::assigneeId));
+    }
+
+    public void setAssignee(Ambassador assignee) {
+        if (project == null) {
+            this.assignee = assignee;
+            return;
+        }
+        project.setTaskAssignee(row, assignee);
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    int getRow() {
+        return row;
+    }
+
+    // Called once the project has copied the task into its column store.
+    void attach(Project project, int row) {
+        this.project = project;
+        this.row = row;
+        this.name = null;
+        this.deadline = null;
+        this.assignee = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Task && ((Task) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+
+    void appendTo(StringBuilder sb) {
+        if (project != null) {
+            project.appendTask(row, sb);
+            return;
+        }
+        sb.append("Task ID: ").append(id).append(", Name: ").append(name).append(", Deadline: ").append(deadline)
+                .append(", Status: ").append(getStatus())
+                .append(", Assignee: ").append(assignee != null ? assignee.getName() : "None");
+    }
+
+    // Same text as toString() of the row's view, read straight from the columns.
+    static void appendRow(ColumnarTaskStore store, int row, StringBuilder sb) {
+        Ambassador a = TaskIndex.findAssignee(store.assigneeId(row));
+        sb.append("Task ID: ").append(store.id(row)).append(", Name: ");
+        store.appendName(row, sb);
+        sb.append(", Deadline: ");
+        store.appendDeadline(row, sb);
+        sb.append(", Status: ").append(TaskStatus.label(store.status(row)))
+                .append(", Assignee: ").append(a != null ? a.getName() : "None");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(128);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,473 @@
+package tasktribe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Application-wide indexes over tasks. Task IDs come from a single global counter, so a dense
+ * array maps a task ID to its project and its row in that project's column store, and a task
+ * can be found without knowing which project it belongs to. A reverse index from assignee ID to
+ * task IDs lets per-ambassador views touch only that ambassador's tasks, and a deadline calendar
+ * answers deadline ranges. A second calendar holds only the tasks that are not completed, so
+ * the overdue and due-soon reports never walk finished work. App-wide status counts are the sum
+ * of the per-project counters. Kept up to date by {@link Project#addTask},
+ * {@link Project#setTaskStatus} and {@link Project#setTaskAssignee}.
+ *
+ * <p>Safe for concurrent use. Task locations are written once and read without locks. The
+ * assignee and deadline indexes are split into stripes, each with its own lock, by assignee
+ * ID and task ID respectively, so tasks added to different projects rarely meet on a lock.
+ * Stripe locks are never held while calling into a project, so they cannot deadlock with the
+ * project locks that callers hold when they update the index.
+ */
+final class TaskIndex {
+    private static final int STRIPES = 64;
+
+    private static final Locations locations = new Locations();
+    private static final IdRegistry<Project> projects = new IdRegistry<>();
+    // Every ambassador ever assigned a task, so task views still show the name after a delete.
+    private static final IdRegistry<Ambassador> assignees = new IdRegistry<>();
+    private static final Stripe[] stripes = new Stripe[STRIPES];
+    private static final AtomicInteger size = new AtomicInteger();
+    private static final AtomicInteger maxTaskId = new AtomicInteger();
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        final IntObjectMap<IntHashSet> taskIdsByAssignee = new IntObjectMap<>();
+        final DeadlineIndex deadlines = new DeadlineIndex();
+        final DeadlineIndex openDeadlines = new DeadlineIndex();
+    }
+
+    private TaskIndex() {
+    }
+
+    /** Called by the project, under its write lock, once the task is in its column store. */
+    static void register(Project project, int row, int taskId, int deadlineDay, int status, Ambassador assignee) {
+        if (!projects.contains(project.getId())) {
+            projects.put(project.getId(), project);
+        }
+        locations.set(taskId, project.getId(), row);
+        Stripe s = stripeFor(taskId);
+        long stamp = s.lock.writeLock();
+        try {
+            s.deadlines.add(deadlineDay, taskId);
+            if (status != TaskStatus.COMPLETED) {
+                s.openDeadlines.add(deadlineDay, taskId);
+            }
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+        if (assignee != null) {
+            addToAssignee(assignee, taskId);
+        }
+        size.incrementAndGet();
+        if (taskId > maxTaskId.get()) {
+            maxTaskId.accumulateAndGet(taskId, Math::max);
+        }
+    }
+
+    /** Registers every row of a project whose column store was filled in bulk. */
+    static void registerAll(Project project, IntFunction<Ambassador> ambassadors) {
+        long stamp = project.readLock();
+        try {
+            ColumnarTaskStore store = project.getStore();
+            for (int row = 0, n = store.size(); row < n; row++) {
+                int assigneeId = store.assigneeId(row);
+                Ambassador a = null;
+                if (assigneeId != ColumnarTaskStore.NO_ASSIGNEE) {
+                    a = assignees.get(assigneeId);
+                    if (a == null) {
+                        a = ambassadors.apply(assigneeId);
+                    }
+                }
+                register(project, row, store.id(row), store.deadlineDay(row), store.status(row), a);
+            }
+        } finally {
+            project.unlockRead(stamp);
+        }
+    }
+
+    /** Called by the project, under its write lock, when a task's status changes. */
+    static void statusChanged(int taskId, int deadlineDay, int previous, int status) {
+        boolean wasOpen = previous != TaskStatus.COMPLETED;
+        boolean open = status != TaskStatus.COMPLETED;
+        if (wasOpen == open) {
+            return;
+        }
+        Stripe s = stripeFor(taskId);
+        long stamp = s.lock.writeLock();
+        try {
+            if (open) {
+                s.openDeadlines.add(deadlineDay, taskId);
+            } else {
+                s.openDeadlines.remove(deadlineDay, taskId);
+            }
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Called by the project, under its write lock, when a task changes hands. */
+    static void assigneeChanged(int taskId, int previousAssigneeId, Ambassador assignee) {
+        if (previousAssigneeId != ColumnarTaskStore.NO_ASSIGNEE) {
+            Stripe s = stripeFor(previousAssigneeId);
+            long stamp = s.lock.writeLock();
+            try {
+                IntHashSet taskIds = s.taskIdsByAssignee.get(previousAssigneeId);
+                if (taskIds != null) {
+                    taskIds.remove(taskId);
+                    if (taskIds.isEmpty()) {
+                        s.taskIdsByAssignee.remove(previousAssigneeId);
+                    }
+                }
+            } finally {
+                s.lock.unlockWrite(stamp);
+            }
+        }
+        if (assignee != null) {
+            addToAssignee(assignee, taskId);
+        }
+    }
+
+    /** App-wide task counts per status, summed from the project counters. */
+    static StatusCounts statusCounts() {
+        StatusCounts total = new StatusCounts();
+        for (Project p : projects) {
+            p.addStatusCountsTo(total);
+        }
+        return total;
+    }
+
+    static Task findTaskById(int taskId) {
+        long location = locations.get(taskId);
+        if (location == 0) {
+            return null;
+        }
+        return projects.get(Locations.project(location)).taskAt(Locations.row(location));
+    }
+
+    /**
+     * The task's project ID and row packed as {@code projectId << 32 | row}, so sorting locations
+     * groups them by project in row order; 0 if there is no such task. Tasks never move.
+     */
+    static long locate(int taskId) {
+        return locations.get(taskId);
+    }
+
+    /** Every project that has tasks. */
+    static Iterable<Project> projects() {
+        return projects;
+    }
+
+    /** The project with the ID, or null if it has no tasks. */
+    static Project project(int projectId) {
+        return projects.get(projectId);
+    }
+
+    /** Every ambassador ever assigned a task, deleted ones included. */
+    static Iterable<Ambassador> assignees() {
+        return assignees;
+    }
+
+    static int assigneeCount() {
+        return assignees.size();
+    }
+
+    static Ambassador findAssignee(int ambassadorId) {
+        return ambassadorId == ColumnarTaskStore.NO_ASSIGNEE ? null : assignees.get(ambassadorId);
+    }
+
+    /** Tasks assigned to the ambassador, ordered by project and then by task ID. */
+    static List<Task> tasksAssignedTo(int ambassadorId) {
+        int[] taskIds = taskIdsAssignedTo(ambassadorId);
+        List<Task> result = new ArrayList<>(taskIds.length);
+        for (int taskId : taskIds) {
+            result.add(findTaskById(taskId));
+        }
+        return result;
+    }
+
+    /** IDs of the tasks assigned to the ambassador, in the order of {@link #tasksAssignedTo}. */
+    static int[] taskIdsAssignedTo(int ambassadorId) {
+        int[] taskIds = assignedTaskIds(ambassadorId);
+        // Sorting (project ID, task ID) pairs packed into one long avoids reading the tasks to compare them.
+        long[] keys = new long[taskIds.length];
+        for (int i = 0; i < taskIds.length; i++) {
+            keys[i] = ((long) Locations.project(locations.get(taskIds[i])) << 32) | taskIds[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            taskIds[i] = (int) keys[i];
+        }
+        return taskIds;
+    }
+
+    static int countAssignedTo(int ambassadorId) {
+        Stripe s = stripeFor(ambassadorId);
+        long stamp = s.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                IntHashSet taskIds = s.taskIdsByAssignee.get(ambassadorId);
+                int count = taskIds == null ? 0 : taskIds.size();
+                if (s.lock.validate(stamp)) {
+                    return count;
+                }
+            } catch (RuntimeException e) {
+                // Raced with a writer resizing the map; retry under the read lock.
+            }
+        }
+        stamp = s.lock.readLock();
+        try {
+            IntHashSet taskIds = s.taskIdsByAssignee.get(ambassadorId);
+            return taskIds == null ? 0 : taskIds.size();
+        } finally {
+            s.lock.unlockRead(stamp);
+        }
+    }
+
+    static int statusOf(int taskId) {
+        long location = locations.get(taskId);
+        return projects.get(Locations.project(location))
+                .readRowInt(Locations.row(location), ColumnarTaskStore::status);
+    }
+
+    /** Visits task IDs with a deadline in [fromDay, toDay], earliest day first, then by ID. */
+    static void forEachDueBetween(int fromDay, int toDay, IntConsumer action) {
+        forEachDueBetween(false, fromDay, toDay, action);
+    }
+
+    /** As {@link #forEachDueBetween}, for the tasks that are not completed; O(log d + k) for k of them. */
+    static void forEachOpenDueBetween(int fromDay, int toDay, IntConsumer action) {
+        forEachDueBetween(true, fromDay, toDay, action);
+    }
+
+    /** Visits the IDs of the tasks not completed with a deadline before the given day, earliest day first. */
+    static void forEachOpenDueBefore(int day, IntConsumer action) {
+        if (day == Integer.MIN_VALUE) {
+            return;
+        }
+        forEachDueBetween(true, Integer.MIN_VALUE + 1, day - 1, action);
+    }
+
+    private static void forEachDueBetween(boolean openOnly, int fromDay, int toDay, IntConsumer action) {
+        long[] found = new long[16];
+        int n = 0;
+        for (Stripe s : stripes) {
+            long stamp = s.lock.readLock();
+            try {
+                LongCollector c = new LongCollector(found, n);
+                (openOnly ? s.openDeadlines : s.deadlines).forEachBetween(fromDay, toDay, c::add);
+                found = c.values;
+                n = c.size;
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        // Sorting (day, id) pairs packed into one long keeps the calendar order across stripes.
+        Arrays.sort(found, 0, n);
+        for (int i = 0; i < n; i++) {
+            action.accept((int) found[i]);
+        }
+    }
+
+    /** IDs of the tasks with a deadline in [fromDay, toDay], in no particular order. */
+    static int[] taskIdsDueBetween(int fromDay, int toDay) {
+        LongCollector c = new LongCollector(new long[16], 0);
+        for (Stripe s : stripes) {
+            long stamp = s.lock.readLock();
+            try {
+                s.deadlines.forEachBetween(fromDay, toDay, c::add);
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        int[] taskIds = new int[c.size];
+        for (int i = 0; i < taskIds.length; i++) {
+            taskIds[i] = (int) c.values[i];
+        }
+        return taskIds;
+    }
+
+    static int countDueBetween(int fromDay, int toDay) {
+        int count = 0;
+        for (Stripe s : stripes) {
+            long stamp = s.lock.readLock();
+            try {
+                count += s.deadlines.countBetween(fromDay, toDay);
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    static int undatedCount() {
+        int undated = 0;
+        for (Stripe s : stripes) {
+            long stamp = s.lock.readLock();
+            try {
+                undated += s.deadlines.undatedCount();
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        return undated;
+    }
+
+    static int size() {
+        return size.get();
+    }
+
+    /** The highest task ID registered; task IDs start at 1. */
+    static int maxTaskId() {
+        return maxTaskId.get();
+    }
+
+    static void clear() {
+        locations.clear();
+        projects.clear();
+        assignees.clear();
+        for (Stripe s : stripes) {
+            long stamp = s.lock.writeLock();
+            try {
+                s.taskIdsByAssignee.clear();
+                s.deadlines.clear();
+                s.openDeadlines.clear();
+            } finally {
+                s.lock.unlockWrite(stamp);
+            }
+        }
+        size.set(0);
+        maxTaskId.set(0);
+    }
+
+    /** IDs of the tasks assigned to the ambassador, in no particular order. */
+    static int[] assignedTaskIds(int ambassadorId) {
+        Stripe s = stripeFor(ambassadorId);
+        long stamp = s.lock.readLock();
+        try {
+            IntHashSet taskIds = s.taskIdsByAssignee.get(ambassadorId);
+            return taskIds == null ? new int[0] : taskIds.toArray();
+        } finally {
+            s.lock.unlockRead(stamp);
+        }
+    }
+
+    private static void addToAssignee(Ambassador assignee, int taskId) {
+        int id = assignee.getId();
+        if (!assignees.contains(id)) {
+            assignees.put(id, assignee);
+        }
+        Stripe s = stripeFor(id);
+        long stamp = s.lock.writeLock();
+        try {
+            IntHashSet taskIds = s.taskIdsByAssignee.get(id);
+            if (taskIds == null) {
+                taskIds = new IntHashSet(4);
+                s.taskIdsByAssignee.put(id, taskIds);
+            }
+            taskIds.add(taskId);
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+    }
+
+    private static Stripe stripeFor(int key) {
+        return stripes[(key ^ (key >>> 16)) & (STRIPES - 1)];
+    }
+
+    // Collects (day, taskId) pairs from a DeadlineIndex scan.
+    private static final class LongCollector {
+        long[] values;
+        int size;
+
+        LongCollector(long[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        void add(int day, int taskId) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = ((long) day << 32) | (taskId & 0xffffffffL);
+        }
+    }
+
+    /**
+     * Task ID to (project ID, row), packed into one long so a reader never sees half of an
+     * update. Chunks are allocated on demand and never move, so reads need no lock.
+     */
+    private static final class Locations {
+        private static final int CHUNK_BITS = 14;
+        private static final int CHUNK = 1 << CHUNK_BITS;
+
+        private volatile AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(16);
+
+        static int project(long location) {
+            return (int) (location >>> 32);
+        }
+
+        static int row(long location) {
+            return (int) location;
+        }
+
+        long get(int taskId) {
+            if (taskId < 0) {
+                return 0;
+            }
+            AtomicReferenceArray<AtomicLongArray> c = chunks;
+            int index = taskId >>> CHUNK_BITS;
+            if (index >= c.length()) {
+                return 0;
+            }
+            AtomicLongArray chunk = c.get(index);
+            return chunk == null ? 0 : chunk.get(taskId & (CHUNK - 1));
+        }
+
+        void set(int taskId, int projectId, int row) {
+            chunk(taskId >>> CHUNK_BITS).set(taskId & (CHUNK - 1), ((long) projectId << 32) | (row & 0xffffffffL));
+        }
+
+        private AtomicLongArray chunk(int index) {
+            AtomicReferenceArray<AtomicLongArray> c = chunks;
+            AtomicLongArray chunk = index < c.length() ? c.get(index) : null;
+            if (chunk != null) {
+                return chunk;
+            }
+            synchronized (this) {
+                c = chunks;
+                if (index >= c.length()) {
+                    AtomicReferenceArray<AtomicLongArray> grown =
+                            new AtomicReferenceArray<>(Math.max(index + 1, c.length() * 2));
+                    for (int i = 0; i < c.length(); i++) {
+                        grown.lazySet(i, c.get(i));
+                    }
+                    chunks = c = grown;
+                }
+                chunk = c.get(index);
+                if (chunk == null) {
+                    chunk = new AtomicLongArray(CHUNK);
+                    c.set(index, chunk);
+                }
+                return chunk;
+            }
+        }
+
+        synchronized void clear() {
+            chunks = new AtomicReferenceArray<>(16);
+        }
+    }
+}
@@ -0,0 +1,740 @@
+package tasktribe;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A small filter language over tasks, e.g.
+ * {@code tasks where status = InProgress and assignee.role = "Content Creator" and deadline < 2025-12-31}.
+ * A query is a conjunction of comparisons on a task's {@code id}, {@code project}, {@code status},
+ * {@code assignee} (an ID or {@code none}), {@code assignee.role} and {@code deadline}. IDs and
+ * deadlines take =, !=, &lt;, &lt;=, &gt; and &gt;=; the other fields = and !=. Values with blanks are
+ * quoted. A task without an assignee has no role, and one whose deadline is not a date matches no
+ * deadline comparison.
+ *
+ * <p>The planner turns each condition an index can answer into an access path and estimates how
+ * many rows the path would read from the counts the indexes already keep: one row per ID for the
+ * task locations, the assignee index's set sizes, the deadline calendar's day buckets, a
+ * project's task count, and the per-project status counters, which let a status path skip the
+ * projects that have none of that status. Roles have no index of their own, so a role path is
+ * estimated from a sample of tasks. Rows found through an index are located, sorted by project
+ * and row, and read a project at a time, but still cost more than scanned rows; the cheapest
+ * path wins, with a scan of every project as the fallback, and the remaining conditions filter
+ * its rows. {@link Plan#explain} shows the paths considered and the one chosen.
+ */
+final class TaskQuery {
+    static final String EXAMPLE = "tasks where status = InProgress and assignee.role = \"Content Creator\""
+            + " and deadline < 2025-12-31";
+    // Costs relative to a scanned row, as measured on the benchmark data: a row found through an
+    // index, and an assignee visited to find those with a role.
+    private static final int INDEXED_ROW_COST = 5;
+    private static final int ASSIGNEE_VISIT_COST = 3;
+    // Tasks sampled to estimate how many are assigned to someone with a role.
+    private static final int ROLE_SAMPLE = 256;
+
+    enum Field {
+        ID("id", true),
+        PROJECT("project", false),
+        STATUS("status", false),
+        ASSIGNEE("assignee", false),
+        ROLE("assignee.role", false),
+        DEADLINE("deadline", true);
+
+        final String label;
+        final boolean ordered;
+
+        Field(String label, boolean ordered) {
+            this.label = label;
+            this.ordered = ordered;
+        }
+
+        static Field find(String label) {
+            for (Field f : values()) {
+                if (f.label.equalsIgnoreCase(label)) {
+                    return f;
+                }
+            }
+            return null;
+        }
+    }
+
+    enum Op {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean test(int a, int b) {
+            switch (this) {
+                case EQ:
+                    return a == b;
+                case NE:
+                    return a != b;
+                case LT:
+                    return a < b;
+                case LE:
+                    return a <= b;
+                case GT:
+                    return a > b;
+                default:
+                    return a >= b;
+            }
+        }
+    }
+
+    /** One comparison; the value is the field's int form (an ID, a status or role code, an epoch day). */
+    static final class Condition {
+        final Field field;
+        final Op op;
+        final int value;
+        private final String shown;
+
+        Condition(Field field, Op op, int value, String shown) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+            this.shown = shown;
+        }
+
+        boolean test(Project p, ColumnarTaskStore s, int row) {
+            switch (field) {
+                case ID:
+                    return op.test(s.id(row), value);
+                case PROJECT:
+                    return op.test(p.getId(), value);
+                case STATUS:
+                    return op.test(s.status(row), value);
+                case ASSIGNEE:
+                    return op.test(s.assigneeId(row), value);
+                case ROLE: {
+                    Ambassador a = TaskIndex.findAssignee(s.assigneeId(row));
+                    return a != null && op.test(a.getRoleCode(), value);
+                }
+                default: {
+                    int day = s.deadlineDay(row);
+                    return day != Deadlines.NONE && op.test(day, value);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return field.label + " " + op.symbol + " " + shown;
+        }
+    }
+
+    private final List<Condition> conditions;
+
+    private TaskQuery(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /** Parses a query; the message of the exception says what is wrong and where. */
+    static TaskQuery parse(String text) {
+        Lexer in = new Lexer(text);
+        String target = in.word();
+        if (target == null || !target.equalsIgnoreCase("tasks")) {
+            throw new IllegalArgumentException("A query starts with \"tasks\", e.g. " + EXAMPLE);
+        }
+        List<Condition> conditions = new ArrayList<>();
+        if (!in.atEnd()) {
+            if (!in.keyword("where")) {
+                throw new IllegalArgumentException("Expected \"where\" at: " + in.rest());
+            }
+            do {
+                conditions.add(condition(in));
+            } while (in.keyword("and"));
+            if (!in.atEnd()) {
+                throw new IllegalArgumentException("Expected \"and\" at: " + in.rest());
+            }
+        }
+        return new TaskQuery(conditions);
+    }
+
+    private static Condition condition(Lexer in) {
+        String name = in.word();
+        if (name == null) {
+            throw new IllegalArgumentException("Expected a field at: " + in.rest());
+        }
+        Field field = Field.find(name);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown field: " + name
+                    + " (fields: id, project, status, assignee, assignee.role, deadline)");
+        }
+        Op op = in.op();
+        if (op == null) {
+            throw new IllegalArgumentException("Expected =, !=, <, <=, > or >= after " + field.label);
+        }
+        if (!field.ordered && op != Op.EQ && op != Op.NE) {
+            throw new IllegalArgumentException(field.label + " can only be compared with = or !=");
+        }
+        String value = in.value();
+        if (value == null) {
+            throw new IllegalArgumentException("Expected a value after " + field.label + " " + op.symbol);
+        }
+        switch (field) {
+            case STATUS: {
+                int code = TaskStatus.find(value);
+                if (code < 0) {
+                    throw new IllegalArgumentException("Unknown status: " + value);
+                }
+                return new Condition(field, op, code, TaskStatus.label(code));
+            }
+            case ROLE: {
+                int code = Roles.find(value);
+                if (code < 0) {
+                    throw new IllegalArgumentException("No ambassador has the role: " + value);
+                }
+                return new Condition(field, op, code, Roles.label(code));
+            }
+            case DEADLINE: {
+                int day = Deadlines.parse(value);
+                if (day == Deadlines.NONE) {
+                    throw new IllegalArgumentException("Not a date: " + value);
+                }
+                return new Condition(field, op, day, LocalDate.ofEpochDay(day).toString());
+            }
+            case ASSIGNEE:
+                if (value.equalsIgnoreCase("none")) {
+                    return new Condition(field, op, ColumnarTaskStore.NO_ASSIGNEE, "none");
+                }
+                return new Condition(field, op, number(value), value);
+            default:
+                return new Condition(field, op, number(value), value);
+        }
+    }
+
+    private static int number(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    /** Plans the query against the indexes as they are now. */
+    Plan plan() {
+        return plan(true);
+    }
+
+    /** Plans the query; without indexes it is always a full scan, to compare the two. */
+    Plan plan(boolean useIndexes) {
+        List<Access> paths = new ArrayList<>();
+        if (useIndexes) {
+            addRangePath(paths, Field.ID);
+            addRangePath(paths, Field.DEADLINE);
+            for (Condition c : conditions) {
+                if (c.op != Op.EQ) {
+                    continue;
+                }
+                if (c.field == Field.PROJECT) {
+                    paths.add(new ProjectAccess(c));
+                } else if (c.field == Field.ASSIGNEE && c.value != ColumnarTaskStore.NO_ASSIGNEE) {
+                    paths.add(new AssigneeAccess(c));
+                } else if (c.field == Field.ROLE) {
+                    paths.add(RoleAccess.of(c));
+                } else if (c.field == Field.STATUS) {
+                    paths.add(StatusAccess.of(c));
+                }
+            }
+        }
+        paths.add(new FullScan());
+        // Stable, so among equal costs the path added first (the more direct index) wins.
+        paths.sort(Comparator.comparingLong(a -> a.cost));
+        Access chosen = paths.get(0);
+        List<Condition> filters = new ArrayList<>(conditions);
+        filters.removeAll(chosen.answered);
+        return new Plan(this, paths, chosen, filters.toArray(new Condition[0]));
+    }
+
+    // One path for all the range conditions on an ordered field, over the intersection of their ranges.
+    private void addRangePath(List<Access> paths, Field field) {
+        long from = Integer.MIN_VALUE + 1L;
+        long to = Integer.MAX_VALUE;
+        List<Condition> answered = new ArrayList<>();
+        for (Condition c : conditions) {
+            if (c.field != field || c.op == Op.NE) {
+                continue;
+            }
+            answered.add(c);
+            if (c.op == Op.EQ || c.op == Op.GE || c.op == Op.GT) {
+                from = Math.max(from, c.op == Op.GT ? c.value + 1L : c.value);
+            }
+            if (c.op == Op.EQ || c.op == Op.LE || c.op == Op.LT) {
+                to = Math.min(to, c.op == Op.LT ? c.value - 1L : c.value);
+            }
+        }
+        if (answered.isEmpty()) {
+            return;
+        }
+        if (from > to) {
+            // Nothing can match; an empty range keeps the bounds within int.
+            from = 1;
+            to = 0;
+        }
+        if (field == Field.ID) {
+            paths.add(new IdAccess(answered, Math.max(from, 1), Math.min(to, TaskIndex.maxTaskId())));
+        } else {
+            paths.add(new DeadlineAccess(answered, (int) from, (int) to));
+        }
+    }
+
+    /** The chosen access path and the conditions left to filter its rows. */
+    static final class Plan {
+        private final TaskQuery query;
+        private final List<Access> considered;
+        private final Access access;
+        private final Condition[] filters;
+
+        private Plan(TaskQuery query, List<Access> considered, Access access, Condition[] filters) {
+            this.query = query;
+            this.considered = considered;
+            this.access = access;
+            this.filters = filters;
+        }
+
+        /** The name of the chosen access path. */
+        String access() {
+            return access.name;
+        }
+
+        /** The plan as report lines: the query, every path considered with its estimates, the filters. */
+        List<String> explain() {
+            List<String> lines = new ArrayList<>();
+            lines.add("Plan for: " + query);
+            String[] paths = new String[considered.size()];
+            int width = "Access paths considered".length();
+            for (int i = 0; i < paths.length; i++) {
+                Access a = considered.get(i);
+                paths[i] = a.name + (a.detail.isEmpty() ? "" : ": " + a.detail);
+                width = Math.max(width, paths[i].length());
+            }
+            String row = "%s %-" + width + "s %10s %10s";
+            lines.add(String.format(Locale.ROOT, row, " ", "Access paths considered", "Est. rows", "Cost"));
+            for (int i = 0; i < paths.length; i++) {
+                Access a = considered.get(i);
+                lines.add(String.format(Locale.ROOT, row, a == access ? "*" : " ", paths[i], a.rows, a.cost));
+            }
+            lines.add("Chosen: " + access.name);
+            lines.add("Filter: " + (filters.length == 0 ? "none" : joined(Arrays.asList(filters))));
+            return lines;
+        }
+
+        /** Runs the plan; the matching task IDs are in ascending order. */
+        Result execute() {
+            Run run = new Run(filters);
+            access.read(run);
+            run.readLocated();
+            int[] ids = Arrays.copyOf(run.matched, run.count);
+            Arrays.sort(ids);
+            return new Result(ids, run.examined);
+        }
+    }
+
+    static final class Result {
+        final int[] taskIds;
+        final long examined;
+
+        Result(int[] taskIds, long examined) {
+            this.taskIds = taskIds;
+            this.examined = examined;
+        }
+    }
+
+    // Collects the rows of one execution that pass the filters.
+    private static final class Run {
+        final Condition[] filters;
+        int[] matched = new int[16];
+        int count;
+        long examined;
+        // Locations of the tasks found through an index, read by readLocated().
+        private long[] located = new long[16];
+        private int locatedCount;
+
+        Run(Condition[] filters) {
+            this.filters = filters;
+        }
+
+        // A task found through an index.
+        void task(int taskId) {
+            long location = TaskIndex.locate(taskId);
+            if (location == 0) {
+                return;
+            }
+            if (locatedCount == located.length) {
+                located = Arrays.copyOf(located, locatedCount * 2);
+            }
+            located[locatedCount++] = location;
+        }
+
+        // Reads the located rows in (project, row) order, so each project is locked and paged in once and
+        // its columns are read forwards, rather than one scattered row at a time.
+        void readLocated() {
+            Arrays.sort(located, 0, locatedCount);
+            int i = 0;
+            while (i < locatedCount) {
+                int projectId = (int) (located[i] >>> 32);
+                int end = i;
+                while (end < locatedCount && (int) (located[end] >>> 32) == projectId) {
+                    end++;
+                }
+                Project p = TaskIndex.project(projectId);
+                long stamp = p.readLock();
+                try {
+                    ColumnarTaskStore s = p.getStore();
+                    for (int k = i; k < end; k++) {
+                        int row = (int) located[k];
+                        if (passes(p, s, row)) {
+                            add(s.id(row));
+                        }
+                    }
+                } finally {
+                    p.unlockRead(stamp);
+                }
+                examined += end - i;
+                i = end;
+            }
+            locatedCount = 0;
+        }
+
+        void project(Project p) {
+            long stamp = p.readLock();
+            try {
+                ColumnarTaskStore s = p.getStore();
+                int n = s.size();
+                examined += n;
+                for (int row = 0; row < n; row++) {
+                    if (passes(p, s, row)) {
+                        add(s.id(row));
+                    }
+                }
+            } finally {
+                p.unlockRead(stamp);
+            }
+        }
+
+        private boolean passes(Project p, ColumnarTaskStore s, int row) {
+            for (Condition c : filters) {
+                if (!c.test(p, s, row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void add(int taskId) {
+            if (count == matched.length) {
+                matched = Arrays.copyOf(matched, count * 2);
+            }
+            matched[count++] = taskId;
+        }
+    }
+
+    private abstract static class Access {
+        final String name;
+        final String detail;
+        final long rows;
+        final long cost;
+        // Conditions every row the path reads already meets.
+        final List<Condition> answered;
+
+        // A row found through an index costs more than a scanned one: the index is walked and the
+        // rows are located and sorted, then read out of order, before the filters run.
+        Access(String name, String detail, long rows, boolean indexed, List<Condition> answered) {
+            this(name, detail, rows, indexed ? rows * INDEXED_ROW_COST : rows, answered);
+        }
+
+        Access(String name, String detail, long rows, long cost, List<Condition> answered) {
+            this.name = name;
+            this.detail = detail;
+            this.rows = rows;
+            this.cost = cost;
+            this.answered = answered;
+        }
+
+        abstract void read(Run run);
+    }
+
+    private static final class IdAccess extends Access {
+        private final long from;
+        private final long to;
+
+        IdAccess(List<Condition> answered, long from, long to) {
+            super("task ID index", joined(answered), Math.max(0, to - from + 1), true, answered);
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        void read(Run run) {
+            for (long id = from; id <= to; id++) {
+                run.task((int) id);
+            }
+        }
+    }
+
+    private static final class DeadlineAccess extends Access {
+        private final int from;
+        private final int to;
+
+        DeadlineAccess(List<Condition> answered, int from, int to) {
+            super("deadline calendar", joined(answered), TaskIndex.countDueBetween(from, to), true, answered);
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        void read(Run run) {
+            for (int taskId : TaskIndex.taskIdsDueBetween(from, to)) {
+                run.task(taskId);
+            }
+        }
+    }
+
+    private static final class AssigneeAccess extends Access {
+        private final int ambassadorId;
+
+        AssigneeAccess(Condition c) {
+            super("assignee index", c.toString(), TaskIndex.countAssignedTo(c.value), true, List.of(c));
+            this.ambassadorId = c.value;
+        }
+
+        @Override
+        void read(Run run) {
+            for (int taskId : TaskIndex.assignedTaskIds(ambassadorId)) {
+                run.task(taskId);
+            }
+        }
+    }
+
+    // The assignee index of every ambassador with the role. Finding them means visiting every
+    // assignee, so the estimate comes from a sample of tasks spread evenly over the task IDs.
+    private static final class RoleAccess extends Access {
+        private final int role;
+
+        private RoleAccess(Condition c, String detail, long rows) {
+            super("assignee index", detail, rows,
+                    rows * INDEXED_ROW_COST + (long) TaskIndex.assigneeCount() * ASSIGNEE_VISIT_COST, List.of(c));
+            this.role = c.value;
+        }
+
+        static RoleAccess of(Condition c) {
+            int maxId = TaskIndex.maxTaskId();
+            boolean all = maxId <= ROLE_SAMPLE;
+            int sampled = 0;
+            int hits = 0;
+            for (int i = 0, n = all ? maxId : ROLE_SAMPLE; i < n; i++) {
+                // Golden-ratio steps spread the sample evenly without following any stride in the data.
+                int id = all ? i + 1 : 1 + (int) (((i * 0x9E3779B97F4A7C15L) >>> 32) * maxId >>> 32);
+                long location = TaskIndex.locate(id);
+                if (location == 0) {
+                    continue;
+                }
+                sampled++;
+                Project p = TaskIndex.project((int) (location >>> 32));
+                if (p.readRowInt((int) location, (s, row) -> c.test(p, s, row) ? 1 : 0) == 1) {
+                    hits++;
+                }
+            }
+            long rows = sampled == 0 ? 0 : (long) TaskIndex.size() * hits / sampled;
+            String detail = all ? c.toString() : c + " (from a sample of " + sampled + " tasks)";
+            return new RoleAccess(c, detail, rows);
+        }
+
+        @Override
+        void read(Run run) {
+            for (Ambassador a : TaskIndex.assignees()) {
+                if (a.getRoleCode() == role) {
+                    for (int taskId : TaskIndex.assignedTaskIds(a.getId())) {
+                        run.task(taskId);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class ProjectAccess extends Access {
+        private final int projectId;
+
+        ProjectAccess(Condition c) {
+            super("project", c.toString(), taskCount(TaskIndex.project(c.value)), false, List.of(c));
+            this.projectId = c.value;
+        }
+
+        private static long taskCount(Project p) {
+            return p == null ? 0 : p.getTaskCount();
+        }
+
+        @Override
+        void read(Run run) {
+            Project p = TaskIndex.project(projectId);
+            if (p != null) {
+                run.project(p);
+            }
+        }
+    }
+
+    // Reads only the projects whose counters have tasks with the status; the rows are still filtered.
+    private static final class StatusAccess extends Access {
+        private final int status;
+
+        private StatusAccess(Condition c, String detail, long rows) {
+            super("status counters", detail, rows, false, List.of());
+            this.status = c.value;
+        }
+
+        static StatusAccess of(Condition c) {
+            long rows = 0;
+            int read = 0;
+            int all = 0;
+            for (Project p : TaskIndex.projects()) {
+                all++;
+                if (p.countWithStatus(c.value) > 0) {
+                    rows += p.getTaskCount();
+                    read++;
+                }
+            }
+            return new StatusAccess(c, c + " (" + read + " of " + all + " projects)", rows);
+        }
+
+        @Override
+        void read(Run run) {
+            for (Project p : TaskIndex.projects()) {
+                if (p.countWithStatus(status) > 0) {
+                    run.project(p);
+                }
+            }
+        }
+    }
+
+    private static final class FullScan extends Access {
+        FullScan() {
+            super("full scan", "", TaskIndex.size(), false, List.of());
+        }
+
+        @Override
+        void read(Run run) {
+            for (Project p : TaskIndex.projects()) {
+                run.project(p);
+            }
+        }
+    }
+
+    private static String joined(List<Condition> conditions) {
+        StringBuilder sb = new StringBuilder();
+        for (Condition c : conditions) {
+            if (sb.length() > 0) {
+                sb.append(" and ");
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return conditions.isEmpty() ? "tasks" : "tasks where " + joined(conditions);
+    }
+
+    // Words, quoted values ("" is a literal quote) and the comparison operators; blanks separate.
+    private static final class Lexer {
+        private final String text;
+        private int pos;
+
+        Lexer(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            skipBlanks();
+            return pos == text.length();
+        }
+
+        String rest() {
+            skipBlanks();
+            return text.substring(pos);
+        }
+
+        boolean keyword(String keyword) {
+            int start = pos;
+            String w = word();
+            if (w != null && w.equalsIgnoreCase(keyword)) {
+                return true;
+            }
+            pos = start;
+            return false;
+        }
+
+        String word() {
+            skipBlanks();
+            int start = pos;
+            while (pos < text.length() && !Character.isWhitespace(text.charAt(pos))
+                    && "\"=!<>".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            return pos > start ? text.substring(start, pos) : null;
+        }
+
+        String value() {
+            skipBlanks();
+            if (pos == text.length() || text.charAt(pos) != '"') {
+                return word();
+            }
+            StringBuilder sb = new StringBuilder();
+            for (pos++; pos < text.length(); pos++) {
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    if (pos + 1 < text.length() && text.charAt(pos + 1) == '"') {
+                        sb.append('"');
+                        pos++;
+                    } else {
+                        pos++;
+                        return sb.toString();
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+
+        Op op() {
+            skipBlanks();
+            for (String symbol : new String[] {"==", "!=", "<>", "<=", ">=", "=", "<", ">"}) {
+                if (text.startsWith(symbol, pos)) {
+                    pos += symbol.length();
+                    switch (symbol) {
+                        case "==":
+                        case "=":
+                            return Op.EQ;
+                        case "!=":
+                        case "<>":
+                            return Op.NE;
+                        case "<=":
+                            return Op.LE;
+                        case ">=":
+                            return Op.GE;
+                        case "<":
+                            return Op.LT;
+                        default:
+                            return Op.GT;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void skipBlanks() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
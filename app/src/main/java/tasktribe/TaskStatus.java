@@ -0,0 +1,44 @@
+package tasktribe;
+
+/**
+ * Task status codes. The three statuses offered by the menus have fixed codes; any other label
+ * (for example from older data) is interned on first use and keeps its original text.
+ */
+final class TaskStatus {
+    static final int NOT_STARTED = 0;
+    static final int IN_PROGRESS = 1;
+    static final int COMPLETED = 2;
+
+    private static final int MAX_CODES = Byte.MAX_VALUE + 1;
+
+    private static final CodeDictionary LABELS =
+            new CodeDictionary(true, "Not Started", "In Progress", "Completed");
+
+    private TaskStatus() {
+    }
+
+    static int parse(String label) {
+        int code = LABELS.find(label);
+        if (code >= 0) {
+            return code;
+        }
+        if (LABELS.size() >= MAX_CODES) {
+            throw new IllegalArgumentException("Too many distinct task statuses, cannot add: " + label);
+        }
+        return LABELS.code(label);
+    }
+
+    /** Returns the code of an already known status (matched leniently), or -1. */
+    static int find(String label) {
+        return LABELS.find(label);
+    }
+
+    static String label(int code) {
+        return LABELS.label(code);
+    }
+
+    /** Number of codes handed out so far; every code is below this value. */
+    static int codeCount() {
+        return LABELS.size();
+    }
+}
@@ -0,0 +1,205 @@
+package tasktribe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tiered storage for the task columns of projects. Once enabled (--task-cache), about
+ * {@code maxRows} task rows are kept on the heap; the columns of projects not used lately are
+ * spilled to one file per project and read back the first time the project's tasks are
+ * accessed again. What reports need without the tasks (a project's task count and status
+ * counters, the completion view) always stays in memory, so aggregate reports page nothing in.
+ *
+ * <p>The project to evict is picked by CLOCK, the usual approximation of LRU: each use of a
+ * project's columns sets its referenced bit, and the sweep gives a referenced project a second
+ * chance. A project is only evicted if its write lock is free at that moment, so eviction
+ * never waits for a project and a project in use is skipped.
+ *
+ * <p>Spill files hold columns between uses only. The snapshot and journal stay the durable copy,
+ * and spill files left by an earlier run are deleted when the tier is enabled.
+ */
+final class TaskTier {
+    private static final String SUFFIX = ".cols";
+    private static final int SPILL_BUFFER = 1 << 16;
+
+    private static volatile boolean enabled;
+    private static Path dir;
+    private static long maxRows;
+    private static OperationMetrics pageInMetric;
+
+    // Resident projects in sweep order and the sweep position; guarded by the class lock.
+    private static final List<Project> resident = new ArrayList<>();
+    private static int hand;
+    private static final AtomicLong residentRows = new AtomicLong();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder spills = new LongAdder();
+
+    private TaskTier() {
+    }
+
+    /** Keeps about {@code rows} task rows in memory and spills the rest to {@code directory}. */
+    static synchronized void enable(Path directory, long rows, OperationMetrics pageIns) throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stale) {
+                Files.delete(file);
+            }
+        }
+        dir = directory;
+        maxRows = rows;
+        pageInMetric = pageIns;
+        enabled = true;
+    }
+
+    /**
+     * Turns the tier off and forgets its projects and counters; for tests. Projects still spilled
+     * are read back from the directory on their next use, so it must outlive them or that use.
+     */
+    static synchronized void reset() {
+        enabled = false;
+        resident.clear();
+        hand = 0;
+        residentRows.set(0);
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        spills.reset();
+    }
+
+    static boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * A lock was taken on a project's columns and found them resident. Counted once per lock, so
+     * the hit rate compares lock acquisitions with page-ins rather than counting each row read.
+     */
+    static void hit(Project p) {
+        if (enabled) {
+            hits.increment();
+            touch(p);
+        }
+    }
+
+    /** A project's columns were read without a lock; marks the project used but counts no hit. */
+    static void touch(Project p) {
+        if (enabled && !p.referenced) {
+            p.referenced = true;
+        }
+    }
+
+    /** A project with {@code rows} tasks in memory was created or loaded. */
+    static void admit(Project p, int rows) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (TaskTier.class) {
+            resident.add(p);
+            residentRows.addAndGet(rows);
+            evictOverBudget();
+        }
+    }
+
+    /** A task was added to a resident project. */
+    static void rowAdded() {
+        if (enabled && residentRows.incrementAndGet() > maxRows) {
+            synchronized (TaskTier.class) {
+                evictOverBudget();
+            }
+        }
+    }
+
+    /** Reads back the spilled columns of the project; the caller holds its write lock. */
+    static ColumnarTaskStore pageIn(Project p) {
+        long start = System.nanoTime();
+        ColumnarTaskStore store;
+        try (FileChannel ch = FileChannel.open(spillFile(p.getId()), StandardOpenOption.READ)) {
+            store = ColumnarTaskStore.readFrom(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the tasks of project " + p.getId(), e);
+        }
+        misses.increment();
+        pageInMetric.record(start);
+        p.referenced = true;
+        admit(p, store.size());
+        return store;
+    }
+
+    /** Writes the project's columns to its spill file; the caller holds its write lock. */
+    static void spill(int projectId, ColumnarTaskStore store) throws IOException {
+        try (FileChannel ch = FileChannel.open(spillFile(projectId), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinarySnapshot.Out out = new BinarySnapshot.Out(ch, SPILL_BUFFER);
+            store.writeTo(out);
+            out.flush();
+        }
+        spills.increment();
+    }
+
+    /** Copies a spilled project's columns, in the format of {@link ColumnarTaskStore#writeTo}, into a snapshot. */
+    static void copySpill(int projectId, BinarySnapshot.Out out) throws IOException {
+        try (FileChannel ch = FileChannel.open(spillFile(projectId), StandardOpenOption.READ)) {
+            out.copyFrom(ch);
+        }
+    }
+
+    // Evicts until the resident rows fit, giving up after two turns if every project is in use.
+    // Caller holds the class lock; only tryWriteLock is taken on projects, so it cannot deadlock.
+    private static void evictOverBudget() {
+        int budget = 2 * resident.size();
+        while (residentRows.get() > maxRows && !resident.isEmpty() && budget-- > 0) {
+            if (hand >= resident.size()) {
+                hand = 0;
+            }
+            Project p = resident.get(hand);
+            if (p.referenced) {
+                p.referenced = false;
+                hand++;
+                continue;
+            }
+            int rows = p.tryEvict();
+            if (rows < 0) {
+                hand++;
+                continue;
+            }
+            // Order within the clock does not matter, so the last project fills the gap.
+            resident.set(hand, resident.get(resident.size() - 1));
+            resident.remove(resident.size() - 1);
+            residentRows.addAndGet(-rows);
+            evictions.increment();
+        }
+    }
+
+    private static Path spillFile(int projectId) {
+        return dir.resolve(projectId + SUFFIX);
+    }
+
+    /** One line of cache counters for the metrics report. */
+    static void appendStats(StringBuilder sb) {
+        long h = hits.sum();
+        long m = misses.sum();
+        int projects;
+        synchronized (TaskTier.class) {
+            projects = resident.size();
+        }
+        sb.append("Task cache: ").append(projects).append(" projects resident, ").append(residentRows.get())
+                .append(" of ").append(maxRows).append(" rows; hot hits ").append(h).append(", cold misses ")
+                .append(m);
+        if (h + m > 0) {
+            sb.append(" (hit rate ").append(h * 1000 / (h + m) / 10.0).append("%)");
+        }
+        sb.append("; evictions ").append(evictions.sum()).append(", spills ").append(spills.sum());
+    }
+}
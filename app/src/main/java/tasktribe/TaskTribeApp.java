@@ -0,0 +1,2574 @@
+package tasktribe;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+
+public class TaskTribeApp {
+    private static IdRegistry<Ambassador> ambassadors = new IdRegistry<>();
+    private static IdRegistry<Project> projects = new IdRegistry<>();
+    private static IdRegistry<TrainingSession> sessions = new IdRegistry<>();
+    private static IdRegistry<TrainingProgram> programs = new IdRegistry<>();
+    private static IdRegistry<Cohort> cohorts = new IdRegistry<>();
+    // Deleted ambassadors stay reachable for the tasks and sessions that still refer to them.
+    private static IdRegistry<Ambassador> formerAmbassadors = new IdRegistry<>();
+
+    private static final AtomicInteger ambassadorIdCounter = new AtomicInteger(1);
+    private static final AtomicInteger projectIdCounter = new AtomicInteger(1);
+    private static final AtomicInteger taskIdCounter = new AtomicInteger(1);
+    // Programs, sessions and cohorts are never deleted, so recovery restores these from their IDs.
+    private static final AtomicInteger programIdCounter = new AtomicInteger(1);
+    private static final AtomicInteger sessionIdCounter = new AtomicInteger(1);
+    private static final AtomicInteger cohortIdCounter = new AtomicInteger(1);
+
+    private static final int DEFAULT_PROGRAM_ID = 1;
+
+    private static final String DEFAULT_DATA_DIR = "tasktribe-data";
+    private static final int SNAPSHOT_EVERY = 10000;
+
+    private static final String OP_COUNTERS = "COUNTERS";
+    private static final String OP_ADD_SESSION = "ADD_SESSION";
+    private static final String OP_ADD_AMBASSADOR = "ADD_AMBASSADOR";
+    private static final String OP_EDIT_AMBASSADOR = "EDIT_AMBASSADOR";
+    private static final String OP_DELETE_AMBASSADOR = "DELETE_AMBASSADOR";
+    private static final String OP_ADD_PROJECT = "ADD_PROJECT";
+    private static final String OP_ADD_TASK = "ADD_TASK";
+    private static final String OP_SET_STATUS = "SET_STATUS";
+    private static final String OP_ASSIGN_TASK = "ASSIGN_TASK";
+    private static final String OP_ATTEND = "ATTEND";
+    private static final String OP_ATTEND_SHEET = "ATTEND_SHEET";
+    private static final String OP_ADD_PROGRAM = "ADD_PROGRAM";
+    private static final String OP_ADD_COHORT = "ADD_COHORT";
+    private static final String OP_JOIN_COHORT = "JOIN_COHORT";
+
+    // Latency and throughput per menu action, reported by "Operation metrics" and over JMX.
+    private static final OperationMetrics METRIC_ADD_AMBASSADOR = OperationMetrics.register("addAmbassador");
+    private static final OperationMetrics METRIC_EDIT_AMBASSADOR = OperationMetrics.register("editAmbassador");
+    private static final OperationMetrics METRIC_DELETE_AMBASSADOR = OperationMetrics.register("deleteAmbassador");
+    private static final OperationMetrics METRIC_LIST_AMBASSADORS = OperationMetrics.register("listAmbassadors");
+    private static final OperationMetrics METRIC_CREATE_PROJECT = OperationMetrics.register("createProject");
+    private static final OperationMetrics METRIC_LIST_PROJECTS = OperationMetrics.register("listProjects");
+    private static final OperationMetrics METRIC_ADD_TASK = OperationMetrics.register("addTask");
+    private static final OperationMetrics METRIC_SET_TASK_STATUS = OperationMetrics.register("setTaskStatus");
+    private static final OperationMetrics METRIC_REASSIGN_TASK = OperationMetrics.register("reassignTask");
+    private static final OperationMetrics METRIC_VIEW_PROJECT_TASKS = OperationMetrics.register("viewProjectTasks");
+    private static final OperationMetrics METRIC_VIEW_AMBASSADOR_TASKS =
+            OperationMetrics.register("viewAmbassadorTasks");
+    private static final OperationMetrics METRIC_VIEW_SCHEDULE = OperationMetrics.register("viewSchedule");
+    private static final OperationMetrics METRIC_MARK_ATTENDANCE = OperationMetrics.register("markAttendance");
+    private static final OperationMetrics METRIC_MARK_ATTENDANCE_SHEET =
+            OperationMetrics.register("markAttendanceSheet");
+    private static final OperationMetrics METRIC_MISSING_TRAINING = OperationMetrics.register("missingTraining");
+    private static final OperationMetrics METRIC_PROGRAM_COMPLETION = OperationMetrics.register("programCompletion");
+    private static final OperationMetrics METRIC_CREATE_PROGRAM = OperationMetrics.register("createProgram");
+    private static final OperationMetrics METRIC_ADD_SESSION = OperationMetrics.register("addSession");
+    private static final OperationMetrics METRIC_CREATE_COHORT = OperationMetrics.register("createCohort");
+    private static final OperationMetrics METRIC_JOIN_COHORT = OperationMetrics.register("joinCohort");
+    private static final OperationMetrics METRIC_COHORT_MISSING_SESSION =
+            OperationMetrics.register("cohortMissingSession");
+    private static final OperationMetrics METRIC_TASK_STATISTICS = OperationMetrics.register("taskStatistics");
+    private static final OperationMetrics METRIC_NO_COMPLETED_TASKS = OperationMetrics.register("noCompletedTasks");
+    private static final OperationMetrics METRIC_VERIFY_STATISTICS = OperationMetrics.register("verifyStatistics");
+    private static final OperationMetrics METRIC_OVERDUE_TASKS = OperationMetrics.register("overdueTasks");
+    private static final OperationMetrics METRIC_TASKS_DUE_SOON = OperationMetrics.register("tasksDueSoon");
+    private static final OperationMetrics METRIC_SEARCH = OperationMetrics.register("search");
+    private static final OperationMetrics METRIC_QUERY = OperationMetrics.register("query");
+    private static final OperationMetrics METRIC_PROJECT_COMPLETION = OperationMetrics.register("projectCompletion");
+    private static final OperationMetrics METRIC_LEADERBOARD = OperationMetrics.register("leaderboard");
+    private static final OperationMetrics METRIC_AMBASSADOR_RANK = OperationMetrics.register("ambassadorRank");
+    private static final OperationMetrics METRIC_TASK_PAGE_IN = OperationMetrics.register("taskPageIn");
+
+    // Report answers kept up to date from the change feed rather than recomputed per report.
+    static final NoCompletedTasksView VIEW_NO_COMPLETED_TASKS = ChangeFeed.subscribe(new NoCompletedTasksView());
+    static final MissingTrainingView VIEW_MISSING_TRAINING = ChangeFeed.subscribe(new MissingTrainingView());
+    static final ProjectCompletionView VIEW_PROJECT_COMPLETION = ChangeFeed.subscribe(new ProjectCompletionView());
+    static final LeaderboardView VIEW_LEADERBOARD = ChangeFeed.subscribe(new LeaderboardView());
+
+    private static Persistence persistence;
+    // In batch mode operations are logged without waiting; syncLog() makes them durable together.
+    private static boolean pipelined;
+    private static long unsyncedSeq = -1;
+    private static ReportWriter report = new ReportWriter(System.out);
+
+    public static void main(String[] args) {
+        Path dataDir = Paths.get(DEFAULT_DATA_DIR);
+        boolean inMemory = false;
+        String batch = null;
+        int apiPort = -1;
+        long taskCacheRows = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--in-memory")) {
+                inMemory = true;
+            } else if (args[i].equals("--data-dir") && i + 1 < args.length) {
+                dataDir = Paths.get(args[++i]);
+            } else if (args[i].equals("--batch") && i + 1 < args.length) {
+                batch = args[++i];
+            } else if (args[i].equals("--serve") && i + 1 < args.length) {
+                apiPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--task-cache") && i + 1 < args.length) {
+                taskCacheRows = Long.parseLong(args[++i]);
+            } else {
+                System.out.println("Unknown option: " + args[i]);
+                System.out.println("Usage: java -jar tasktribe.jar"
+                        + " [--data-dir <dir> [--task-cache <rows>] | --in-memory]"
+                        + " [--batch <file> | --batch - | --serve <port>]");
+                return;
+            }
+        }
+        if (taskCacheRows >= 0 && inMemory) {
+            System.out.println("--task-cache spills tasks to the data directory and cannot be used with --in-memory.");
+            return;
+        }
+
+        publishMetrics();
+        createDefaultTrainingSchedule();
+        if (!inMemory && !openPersistence(dataDir, taskCacheRows)) {
+            return;
+        }
+        if (batch != null) {
+            int failed = runBatch(batch);
+            closePersistence();
+            if (failed != 0) {
+                System.exit(1);
+            }
+            return;
+        }
+        if (apiPort >= 0) {
+            serveApi(apiPort);
+            return;
+        }
+
+        Scanner sc = new Scanner(System.in);
+
+        int choice;
+        do {
+            System.out.println("==== TASKTRIBE AMBASSADOR MANAGER ====");
+            System.out.println("1. Manage Ambassador");
+            System.out.println("2. Manage Projects and Tasks");
+            System.out.println("3. Manage Training Programs");
+            System.out.println("4. Statistics Report");
+            System.out.println("5. Bulk import from file");
+            System.out.println("6. Search by name");
+            System.out.println("7. Query tasks");
+            System.out.println("0. Exit");
+            System.out.print("Choose: ");
+            choice = readInteger(sc);
+
+            switch (choice) {
+                case 1:
+                    ambassadorMenu(sc);
+                    break;
+                case 2:
+                    projectMenu(sc);
+                    break;
+                case 3:
+                    trainingMenu(sc);
+                    break;
+                case 4:
+                    reportMenu(sc);
+                    break;
+                case 5:
+                    bulkImport(sc);
+                    break;
+                case 6:
+                    search(sc);
+                    break;
+                case 7:
+                    queryTasks(sc);
+                    break;
+                case 0:
+                    closePersistence();
+                    System.out.println("Goodbye!");
+                    break;
+                default:
+                    System.out.println("Invalid choice!");
+            }
+        } while (choice != 0);
+
+        sc.close();
+    }
+
+    private static int readInteger(Scanner sc) {
+        while (true) {
+            try {
+                String line = sc.nextLine();
+                return Integer.parseInt(line.trim());
+            } catch (Exception e) {
+                System.out.print("Please enter a number: ");
+            }
+        }
+    }
+
+    /** Sends report output elsewhere; the benchmarks use it to keep reports off the console. */
+    static void setReportOutput(PrintStream out) {
+        report.flush();
+        report = new ReportWriter(out);
+    }
+
+    // ===== Core Operations =====
+    // Every state change goes through one of these methods. Each is logged before it is applied;
+    // the apply* half is also what journal replay and snapshot loading call. They may be called
+    // from many threads: a change to a task is logged and applied under its project's write lock,
+    // so the journal holds the changes to one project in the order they were made.
+
+    static Ambassador addAmbassador(String name, String role) {
+        return logged(METRIC_ADD_AMBASSADOR, () -> {
+            int id = ambassadorIdCounter.getAndIncrement();
+            log(OP_ADD_AMBASSADOR, Integer.toString(id), name, role);
+            return applyAddAmbassador(id, name, role);
+        });
+    }
+
+    static void editAmbassador(Ambassador a, String name, String role) {
+        logged(METRIC_EDIT_AMBASSADOR, () -> {
+            synchronized (a) {
+                log(OP_EDIT_AMBASSADOR, Integer.toString(a.getId()), name, role);
+                applyEditAmbassador(a, name, role);
+            }
+            return null;
+        });
+    }
+
+    static void deleteAmbassador(Ambassador a) {
+        logged(METRIC_DELETE_AMBASSADOR, () -> {
+            log(OP_DELETE_AMBASSADOR, Integer.toString(a.getId()));
+            applyDeleteAmbassador(a.getId());
+            return null;
+        });
+    }
+
+    static Project createProject(String name) {
+        return logged(METRIC_CREATE_PROJECT, () -> {
+            int id = projectIdCounter.getAndIncrement();
+            log(OP_ADD_PROJECT, Integer.toString(id), name);
+            return applyAddProject(id, name);
+        });
+    }
+
+    static Task addTask(Project p, String name, String deadline, Ambassador a) {
+        String status = TaskStatus.label(TaskStatus.NOT_STARTED);
+        return logged(METRIC_ADD_TASK, () -> p.write(() -> {
+            int id = taskIdCounter.getAndIncrement();
+            log(OP_ADD_TASK, Integer.toString(id), Integer.toString(p.getId()), name, deadline,
+                    a != null ? Integer.toString(a.getId()) : null, status);
+            return applyAddTask(id, p, name, deadline, a, status);
+        }));
+    }
+
+    static void setTaskStatus(Task t, int status) {
+        logged(METRIC_SET_TASK_STATUS, () -> t.getProject().write(() -> {
+            log(OP_SET_STATUS, Integer.toString(t.getId()), TaskStatus.label(status));
+            t.setStatusCode(status);
+            return null;
+        }));
+    }
+
+    static void reassignTask(Task t, Ambassador a) {
+        logged(METRIC_REASSIGN_TASK, () -> t.getProject().write(() -> {
+            log(OP_ASSIGN_TASK, Integer.toString(t.getId()), a != null ? Integer.toString(a.getId()) : null);
+            t.setAssignee(a);
+            return null;
+        }));
+    }
+
+    static boolean markAttendance(TrainingSession s, Ambassador a) {
+        if (s.hasParticipated(a)) {
+            return false;
+        }
+        return logged(METRIC_MARK_ATTENDANCE, () -> {
+            synchronized (s) {
+                if (s.hasParticipated(a)) {
+                    return false;
+                }
+                log(OP_ATTEND, Integer.toString(s.getId()), Integer.toString(a.getId()));
+                s.addParticipant(a);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Marks a whole attendance sheet as one logged operation; ambassadors already marked are
+     * skipped. Returns how many were newly marked.
+     */
+    static int markAttendanceSheet(TrainingSession s, List<Ambassador> sheet) {
+        return logged(METRIC_MARK_ATTENDANCE_SHEET, () -> {
+            synchronized (s) {
+                List<String> fields = new ArrayList<>(sheet.size() + 1);
+                fields.add(Integer.toString(s.getId()));
+                IdBitmap marked = new IdBitmap();
+                for (Ambassador a : sheet) {
+                    if (!s.hasParticipated(a) && marked.add(a.getId())) {
+                        fields.add(Integer.toString(a.getId()));
+                    }
+                }
+                if (marked.isEmpty()) {
+                    return 0;
+                }
+                log(OP_ATTEND_SHEET, fields.toArray(new String[0]));
+                for (Ambassador a : sheet) {
+                    s.addParticipant(a);
+                }
+                return marked.cardinality();
+            }
+        });
+    }
+
+    static TrainingProgram createProgram(String name) {
+        return logged(METRIC_CREATE_PROGRAM, () -> {
+            int id = programIdCounter.getAndIncrement();
+            log(OP_ADD_PROGRAM, Integer.toString(id), name);
+            return applyAddProgram(id, name);
+        });
+    }
+
+    static TrainingSession addProgramSession(TrainingProgram p, String date, String topic) {
+        return logged(METRIC_ADD_SESSION, () -> {
+            int id = sessionIdCounter.getAndIncrement();
+            log(OP_ADD_SESSION, Integer.toString(id), date, topic, Integer.toString(p.getId()));
+            return applyAddSession(id, date, topic, p.getId());
+        });
+    }
+
+    static Cohort createCohort(TrainingProgram p, String name) {
+        return logged(METRIC_CREATE_COHORT, () -> {
+            int id = cohortIdCounter.getAndIncrement();
+            log(OP_ADD_COHORT, Integer.toString(id), Integer.toString(p.getId()), name);
+            return applyAddCohort(id, p.getId(), name);
+        });
+    }
+
+    /**
+     * Enrolls ambassadors in a cohort as one logged operation; members are skipped. An ambassador
+     * can be in only one cohort per program. Returns how many were newly enrolled.
+     */
+    static int joinCohort(Cohort c, List<Ambassador> members) {
+        TrainingProgram program = c.getProgram();
+        return logged(METRIC_JOIN_COHORT, () -> {
+            synchronized (program) {
+                List<String> fields = new ArrayList<>(members.size() + 1);
+                fields.add(Integer.toString(c.getId()));
+                IdBitmap joining = new IdBitmap();
+                for (Ambassador a : members) {
+                    Cohort current = TrainingIndex.cohortOf(program, a.getId());
+                    if (current != null && current != c) {
+                        throw new IllegalArgumentException("Ambassador " + a.getId() + " is already in cohort "
+                                + current.getId() + " of this program");
+                    }
+                    if (current == null && joining.add(a.getId())) {
+                        fields.add(Integer.toString(a.getId()));
+                    }
+                }
+                if (joining.isEmpty()) {
+                    return 0;
+                }
+                log(OP_JOIN_COHORT, fields.toArray(new String[0]));
+                joining.forEach(aid -> TrainingIndex.join(c, aid));
+                return joining.cardinality();
+            }
+        });
+    }
+
+    // Runs one operation inside the persistence gate, so a snapshot never falls between logging
+    // a change and applying it, then lets persistence take a snapshot if one is due. The time
+    // taken, snapshot included, is recorded under the operation's metric.
+    private static <T> T logged(OperationMetrics metric, Supplier<T> op) {
+        long start = System.nanoTime();
+        Persistence p = persistence;
+        try {
+            if (p == null) {
+                return op.get();
+            }
+            T result;
+            Lock gate = p.operationLock();
+            gate.lock();
+            try {
+                result = op.get();
+            } finally {
+                gate.unlock();
+            }
+            applied();
+            return result;
+        } finally {
+            metric.record(start);
+        }
+    }
+
+    private static Ambassador applyAddAmbassador(int id, String name, String role) {
+        Ambassador a = new Ambassador(id, name, role);
+        // Announced before it is visible, so a delete can never be announced ahead of it.
+        ChangeFeed.ambassadorAdded(a);
+        ambassadors.put(id, a);
+        TrainingIndex.enroll(id);
+        SearchIndex.addAmbassador(a);
+        ambassadorIdCounter.accumulateAndGet(id + 1, Math::max);
+        return a;
+    }
+
+    private static void applyEditAmbassador(Ambassador a, String name, String role) {
+        String oldName = a.getName();
+        String oldRole = a.getRole();
+        a.setName(name);
+        a.setRole(role);
+        if (ambassadors.get(a.getId()) == a) {
+            SearchIndex.ambassadorChanged(a, oldName, oldRole);
+        }
+    }
+
+    private static void applyDeleteAmbassador(int id) {
+        Ambassador a = ambassadors.get(id);
+        if (a != null) {
+            // Visible as a former ambassador before it disappears, so lookups never miss it.
+            formerAmbassadors.put(id, a);
+            ambassadors.remove(id);
+            TrainingIndex.withdraw(id);
+            SearchIndex.removeAmbassador(a);
+            ChangeFeed.ambassadorDeleted(a);
+        }
+    }
+
+    private static Project applyAddProject(int id, String name) {
+        Project p = new Project(id, name);
+        ChangeFeed.projectAdded(p);
+        projects.put(id, p);
+        SearchIndex.addProject(p);
+        projectIdCounter.accumulateAndGet(id + 1, Math::max);
+        return p;
+    }
+
+    private static Task applyAddTask(int id, Project p, String name, String deadline, Ambassador a, String status) {
+        Task t = new Task(id, name, deadline, a);
+        t.setStatus(status);
+        p.addTask(t);
+        SearchIndex.addTask(id, name);
+        taskIdCounter.accumulateAndGet(id + 1, Math::max);
+        return t;
+    }
+
+    // Sessions and programs that already exist are kept: the default schedule is created at
+    // startup and then found again in the snapshot or journal.
+    private static TrainingProgram applyAddProgram(int id, String name) {
+        TrainingProgram p = programs.get(id);
+        if (p == null) {
+            p = new TrainingProgram(id, name);
+            programs.put(id, p);
+            programIdCounter.accumulateAndGet(id + 1, Math::max);
+        }
+        return p;
+    }
+
+    private static TrainingSession applyAddSession(int id, String date, String topic, int programId) {
+        TrainingSession s = sessions.get(id);
+        if (s == null) {
+            s = new TrainingSession(id, date, topic);
+            sessions.put(id, s);
+            TrainingIndex.addSession(programs.get(programId), s);
+            sessionIdCounter.accumulateAndGet(id + 1, Math::max);
+        }
+        return s;
+    }
+
+    private static Cohort applyAddCohort(int id, int programId, String name) {
+        Cohort c = new Cohort(id, name, programs.get(programId));
+        cohorts.put(id, c);
+        TrainingIndex.addCohort(c);
+        cohortIdCounter.accumulateAndGet(id + 1, Math::max);
+        return c;
+    }
+
+    private static Ambassador findAnyAmbassador(int id) {
+        Ambassador a = ambassadors.get(id);
+        return a != null ? a : formerAmbassadors.get(id);
+    }
+
+    // ===== Persistence =====
+
+    // The directory is locked first, so the task cache never clears spill files another process is using.
+    private static boolean openPersistence(Path dataDir, long taskCacheRows) {
+        SnapshotBridge bridge = new SnapshotBridge();
+        Persistence p = new Persistence(dataDir, SNAPSHOT_EVERY, TaskTribeApp::applyRecord, bridge, bridge);
+        try {
+            p.lock();
+        } catch (IOException e) {
+            System.out.println("Could not open " + dataDir + ": " + e.getMessage());
+            return false;
+        }
+        try {
+            if (taskCacheRows >= 0) {
+                TaskTier.enable(dataDir.resolve("tasks"), taskCacheRows, METRIC_TASK_PAGE_IN);
+            }
+            p.recover();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not load data from " + dataDir + ": " + e.getMessage());
+            try {
+                p.close();
+            } catch (IOException ignored) {
+                // Only the directory lock is held at this point.
+            }
+            return false;
+        }
+        persistence = p;
+        if (p.snapshotLoaded() || p.replayedRecords() > 0) {
+            System.out.println("Loaded data from " + dataDir + " (" + ambassadors.size() + " ambassadors, "
+                    + projects.size() + " projects, " + TaskIndex.size() + " tasks).");
+        }
+        return true;
+    }
+
+    private static void closePersistence() {
+        if (persistence == null) {
+            return;
+        }
+        try {
+            persistence.close();
+        } catch (IOException e) {
+            System.out.println("Warning: could not close data files: " + e.getMessage());
+        }
+        persistence = null;
+    }
+
+    private static void log(String op, String... fields) {
+        if (persistence == null) {
+            return;
+        }
+        if (pipelined) {
+            unsyncedSeq = persistence.append(op, fields);
+        } else {
+            persistence.log(op, fields);
+        }
+    }
+
+    // Waits for every operation logged in pipelined mode to be durable.
+    private static void syncLog() {
+        if (persistence != null && unsyncedSeq >= 0) {
+            persistence.awaitDurable(unsyncedSeq);
+            unsyncedSeq = -1;
+        }
+    }
+
+    private static void applied() {
+        if (persistence == null) {
+            return;
+        }
+        try {
+            persistence.applied();
+        } catch (IOException e) {
+            // The journal already holds the change; only compaction is delayed.
+            System.out.println("Warning: could not write snapshot: " + e.getMessage());
+        }
+    }
+
+    private static void applyRecord(String op, String[] f) {
+        switch (op) {
+            case OP_COUNTERS:
+                ambassadorIdCounter.accumulateAndGet(Integer.parseInt(f[0]), Math::max);
+                projectIdCounter.accumulateAndGet(Integer.parseInt(f[1]), Math::max);
+                taskIdCounter.accumulateAndGet(Integer.parseInt(f[2]), Math::max);
+                break;
+            case OP_ADD_SESSION:
+                // Journals written before training programs existed name no program.
+                applyAddSession(Integer.parseInt(f[0]), f[1], f[2],
+                        f.length > 3 ? Integer.parseInt(f[3]) : DEFAULT_PROGRAM_ID);
+                break;
+            case OP_ADD_PROGRAM:
+                applyAddProgram(Integer.parseInt(f[0]), f[1]);
+                break;
+            case OP_ADD_COHORT:
+                applyAddCohort(Integer.parseInt(f[0]), Integer.parseInt(f[1]), f[2]);
+                break;
+            case OP_JOIN_COHORT: {
+                Cohort c = cohorts.get(Integer.parseInt(f[0]));
+                for (int i = 1; i < f.length; i++) {
+                    TrainingIndex.join(c, Integer.parseInt(f[i]));
+                }
+                break;
+            }
+            case OP_ADD_AMBASSADOR:
+                applyAddAmbassador(Integer.parseInt(f[0]), f[1], f[2]);
+                break;
+            case OP_EDIT_AMBASSADOR:
+                applyEditAmbassador(findAnyAmbassador(Integer.parseInt(f[0])), f[1], f[2]);
+                break;
+            case OP_DELETE_AMBASSADOR:
+                applyDeleteAmbassador(Integer.parseInt(f[0]));
+                break;
+            case OP_ADD_PROJECT:
+                applyAddProject(Integer.parseInt(f[0]), f[1]);
+                break;
+            case OP_ADD_TASK:
+                applyAddTask(Integer.parseInt(f[0]), projects.get(Integer.parseInt(f[1])), f[2], f[3],
+                        f[4] != null ? findAnyAmbassador(Integer.parseInt(f[4])) : null, f[5]);
+                break;
+            case OP_SET_STATUS:
+                TaskIndex.findTaskById(Integer.parseInt(f[0])).setStatus(f[1]);
+                break;
+            case OP_ASSIGN_TASK:
+                TaskIndex.findTaskById(Integer.parseInt(f[0]))
+                        .setAssignee(f[1] != null ? findAnyAmbassador(Integer.parseInt(f[1])) : null);
+                break;
+            case OP_ATTEND:
+                sessions.get(Integer.parseInt(f[0])).addParticipant(findAnyAmbassador(Integer.parseInt(f[1])));
+                break;
+            case OP_ATTEND_SHEET: {
+                TrainingSession s = sessions.get(Integer.parseInt(f[0]));
+                for (int i = 1; i < f.length; i++) {
+                    s.addParticipant(findAnyAmbassador(Integer.parseInt(f[i])));
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation in data files: " + op);
+        }
+    }
+
+    // Bridges the private app state to the binary snapshot writer and loader.
+    private static final class SnapshotBridge implements BinarySnapshot.State, BinarySnapshot.Loader {
+        @Override
+        public int[] counters() {
+            return new int[] {ambassadorIdCounter.get(), projectIdCounter.get(), taskIdCounter.get()};
+        }
+
+        @Override
+        public Iterable<TrainingProgram> programs() {
+            return programs;
+        }
+
+        @Override
+        public Iterable<TrainingSession> sessions() {
+            return sessions;
+        }
+
+        @Override
+        public Iterable<Ambassador> ambassadors() {
+            return ambassadors;
+        }
+
+        @Override
+        public Iterable<Cohort> cohorts() {
+            return cohorts;
+        }
+
+        @Override
+        public Iterable<Ambassador> formerAmbassadors() {
+            return formerAmbassadors;
+        }
+
+        @Override
+        public Iterable<Project> projects() {
+            return projects;
+        }
+
+        @Override
+        public void counters(int ambassadorIdCounter, int projectIdCounter, int taskIdCounter) {
+            TaskTribeApp.ambassadorIdCounter.accumulateAndGet(ambassadorIdCounter, Math::max);
+            TaskTribeApp.projectIdCounter.accumulateAndGet(projectIdCounter, Math::max);
+            TaskTribeApp.taskIdCounter.accumulateAndGet(taskIdCounter, Math::max);
+        }
+
+        @Override
+        public void program(int id, String name) {
+            applyAddProgram(id, name);
+        }
+
+        @Override
+        public void session(int id, String date, String topic, int programId) {
+            applyAddSession(id, date, topic, programId);
+        }
+
+        @Override
+        public void cohort(int id, int programId, String name, int[] members) {
+            Cohort c = applyAddCohort(id, programId, name);
+            for (int aid : members) {
+                TrainingIndex.join(c, aid);
+            }
+        }
+
+        @Override
+        public void ambassador(int id, String name, String role, boolean deleted) {
+            applyAddAmbassador(id, name, role);
+            if (deleted) {
+                applyDeleteAmbassador(id);
+            }
+        }
+
+        @Override
+        public void project(int id, String name, ColumnarTaskStore tasks) {
+            Project p = new Project(id, name, tasks);
+            ChangeFeed.projectAdded(p);
+            ChangeFeed.tasksLoaded(p);
+            projects.put(id, p);
+            projectIdCounter.accumulateAndGet(id + 1, Math::max);
+            TaskIndex.registerAll(p, TaskTribeApp::findAnyAmbassador);
+            SearchIndex.addProject(p);
+            SearchIndex.addTasks(p);
+        }
+
+        @Override
+        public void attend(int sessionId, int ambassadorId) {
+            sessions.get(sessionId).addParticipant(findAnyAmbassador(ambassadorId));
+        }
+    }
+
+    // ===== Batch Mode =====
+    // Runs one command per line without menus, e.g. `add-task 3 "Write post" 12/30/2025 7`.
+    // Journal writes are pipelined and made durable every BATCH_SYNC_EVERY commands and at the end.
+
+    private static final int BATCH_SYNC_EVERY = 4096;
+
+    /** Runs the commands in {@code source} ("-" for stdin) and returns the number that failed. */
+    private static int runBatch(String source) {
+        long start = System.nanoTime();
+        int executed = 0;
+        int failed = 0;
+        pipelined = true;
+        try (BufferedReader in = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            String text;
+            int lineNo = 0;
+            while ((text = in.readLine()) != null) {
+                lineNo++;
+                String trimmed = text.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                executed++;
+                try {
+                    runCommand(trimmed);
+                } catch (IllegalArgumentException e) {
+                    failed++;
+                    System.err.println("Line " + lineNo + ": " + e.getMessage());
+                }
+                if (executed % BATCH_SYNC_EVERY == 0) {
+                    syncLog();
+                }
+            }
+            syncLog();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Batch stopped: " + e.getMessage());
+            failed++;
+        } finally {
+            pipelined = false;
+        }
+        report.flush();
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Executed " + executed + " commands (" + failed + " failed) in " + millis + " ms.");
+        return failed;
+    }
+
+    private static void runCommand(String line) {
+        List<String> args = tokenize(line);
+        String command = args.get(0).toLowerCase(Locale.ROOT);
+        switch (command) {
+            case "add-ambassador": {
+                expectArgs(args, 2, "add-ambassador <name> <role>");
+                Ambassador a = addAmbassador(args.get(1), args.get(2));
+                report.line().append("ambassador ").append(a.getId());
+                report.endLine();
+                break;
+            }
+            case "edit-ambassador":
+                expectArgs(args, 3, "edit-ambassador <aid> <name> <role>");
+                editAmbassador(ambassadorArg(args.get(1)), args.get(2), args.get(3));
+                break;
+            case "delete-ambassador":
+                expectArgs(args, 1, "delete-ambassador <aid>");
+                deleteAmbassador(ambassadorArg(args.get(1)));
+                break;
+            case "add-project": {
+                expectArgs(args, 1, "add-project <name>");
+                Project p = createProject(args.get(1));
+                report.line().append("project ").append(p.getId());
+                report.endLine();
+                break;
+            }
+            case "add-task": {
+                if (args.size() != 4 && args.size() != 5) {
+                    throw new IllegalArgumentException("Usage: add-task <pid> <name> <deadline> [<aid>]");
+                }
+                Project p = projects.get(intArg(args.get(1)));
+                if (p == null) {
+                    throw new IllegalArgumentException("Project not found: " + args.get(1));
+                }
+                Ambassador a = args.size() == 5 ? ambassadorArg(args.get(4)) : null;
+                Task t = addTask(p, args.get(2), args.get(3), a);
+                report.line().append("task ").append(t.getId());
+                report.endLine();
+                break;
+            }
+            case "set-status": {
+                expectArgs(args, 2, "set-status <tid> <status>");
+                int status = TaskStatus.find(args.get(2));
+                if (status < 0) {
+                    throw new IllegalArgumentException("Unknown status: " + args.get(2));
+                }
+                setTaskStatus(taskArg(args.get(1)), status);
+                break;
+            }
+            case "assign": {
+                expectArgs(args, 2, "assign <tid> <aid|none>");
+                Task t = taskArg(args.get(1));
+                reassignTask(t, args.get(2).equalsIgnoreCase("none") ? null : ambassadorArg(args.get(2)));
+                break;
+            }
+            case "attend": {
+                expectArgs(args, 2, "attend <sid> <aid>");
+                TrainingSession s = sessions.get(intArg(args.get(1)));
+                if (s == null) {
+                    throw new IllegalArgumentException("Training session not found: " + args.get(1));
+                }
+                markAttendance(s, ambassadorArg(args.get(2)));
+                break;
+            }
+            case "add-program": {
+                expectArgs(args, 1, "add-program <name>");
+                TrainingProgram p = createProgram(args.get(1));
+                report.line().append("program ").append(p.getId());
+                report.endLine();
+                break;
+            }
+            case "add-session": {
+                expectArgs(args, 3, "add-session <program-id> <date> <topic>");
+                TrainingProgram p = programs.get(intArg(args.get(1)));
+                if (p == null) {
+                    throw new IllegalArgumentException("Program not found: " + args.get(1));
+                }
+                TrainingSession s = addProgramSession(p, args.get(2), args.get(3));
+                report.line().append("session ").append(s.getId());
+                report.endLine();
+                break;
+            }
+            case "add-cohort": {
+                expectArgs(args, 2, "add-cohort <program-id> <name>");
+                TrainingProgram p = programs.get(intArg(args.get(1)));
+                if (p == null) {
+                    throw new IllegalArgumentException("Program not found: " + args.get(1));
+                }
+                Cohort c = createCohort(p, args.get(2));
+                report.line().append("cohort ").append(c.getId());
+                report.endLine();
+                break;
+            }
+            case "join-cohort": {
+                if (args.size() < 3) {
+                    throw new IllegalArgumentException("Usage: join-cohort <cohort-id> <aid>...");
+                }
+                Cohort c = cohorts.get(intArg(args.get(1)));
+                if (c == null) {
+                    throw new IllegalArgumentException("Cohort not found: " + args.get(1));
+                }
+                List<Ambassador> members = new ArrayList<>(args.size() - 2);
+                for (String aid : args.subList(2, args.size())) {
+                    members.add(ambassadorArg(aid));
+                }
+                joinCohort(c, members);
+                break;
+            }
+            case "attend-sheet": {
+                if (args.size() < 3) {
+                    throw new IllegalArgumentException("Usage: attend-sheet <sid> <aid>...");
+                }
+                TrainingSession s = sessions.get(intArg(args.get(1)));
+                if (s == null) {
+                    throw new IllegalArgumentException("Training session not found: " + args.get(1));
+                }
+                List<Ambassador> sheet = new ArrayList<>(args.size() - 2);
+                for (String aid : args.subList(2, args.size())) {
+                    sheet.add(ambassadorArg(aid));
+                }
+                markAttendanceSheet(s, sheet);
+                break;
+            }
+            case "search": {
+                if (args.size() < 2) {
+                    throw new IllegalArgumentException("Usage: search <word>...");
+                }
+                String query = String.join(" ", args.subList(1, args.size()));
+                timed(METRIC_SEARCH, () -> printSearchResults(query));
+                break;
+            }
+            case "query":
+            case "explain": {
+                // The query keeps its own quoting, so it is taken from the line rather than the tokens.
+                String text = line.substring(command.length()).trim();
+                if (text.isEmpty()) {
+                    throw new IllegalArgumentException("Usage: " + command + " " + TaskQuery.EXAMPLE);
+                }
+                TaskQuery.Plan plan = TaskQuery.parse(text).plan();
+                if (command.equals("explain")) {
+                    printPlan(plan);
+                } else {
+                    timed(METRIC_QUERY, () -> printQueryResults(plan));
+                }
+                break;
+            }
+            case "metrics":
+                expectArgs(args, 0, "metrics");
+                operationMetricsReport();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args.get(0));
+        }
+    }
+
+    private static void expectArgs(List<String> args, int count, String usage) {
+        if (args.size() != count + 1) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private static int intArg(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + s);
+        }
+    }
+
+    private static Ambassador ambassadorArg(String s) {
+        Ambassador a = findAmbassadorById(intArg(s));
+        if (a == null) {
+            throw new IllegalArgumentException("Ambassador not found: " + s);
+        }
+        return a;
+    }
+
+    private static Task taskArg(String s) {
+        Task t = TaskIndex.findTaskById(intArg(s));
+        if (t == null) {
+            throw new IllegalArgumentException("Task not found: " + s);
+        }
+        return t;
+    }
+
+    // Splits on blanks; double quotes group words and "" inside quotes is a literal quote.
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inToken = false;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    // ===== HTTP API =====
+
+    // Serves until the process is stopped; the shutdown hook closes the data files.
+    private static void serveApi(int port) {
+        ApiServer server;
+        try {
+            server = new ApiServer(new ApiBridge(), new InetSocketAddress(port));
+        } catch (IOException e) {
+            System.out.println("Could not start API server: " + e.getMessage());
+            closePersistence();
+            return;
+        }
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(TaskTribeApp::closePersistence)));
+        System.out.println("Serving API on http://localhost:" + server.port() + "/api/ ("
+                + (ApiServer.virtualThreadsAvailable() ? "virtual threads" : "thread pool") + ")");
+    }
+
+    // The state main starts from with --in-memory; tests share one JVM, so only the first call sets it up.
+    static synchronized ApiServer.Model startInMemory() {
+        if (defaultProgram() == null) {
+            createDefaultTrainingSchedule();
+        }
+        return new ApiBridge();
+    }
+
+    private static final class ApiBridge implements ApiServer.Model {
+        @Override
+        public Iterable<Ambassador> ambassadors() {
+            return ambassadors;
+        }
+
+        @Override
+        public Iterator<Ambassador> ambassadorsAfter(int afterId) {
+            return ambassadors.iteratorAfter(afterId);
+        }
+
+        @Override
+        public Ambassador ambassador(int id) {
+            return findAmbassadorById(id);
+        }
+
+        @Override
+        public Iterable<Project> projects() {
+            return projects;
+        }
+
+        @Override
+        public Iterator<Project> projectsAfter(int afterId) {
+            return projects.iteratorAfter(afterId);
+        }
+
+        @Override
+        public Project project(int id) {
+            return findProjectById(id);
+        }
+
+        @Override
+        public Iterable<TrainingSession> sessions() {
+            return sessions;
+        }
+
+        @Override
+        public TrainingSession session(int id) {
+            return findSessionById(id);
+        }
+
+        @Override
+        public Ambassador addAmbassador(String name, String role) {
+            return TaskTribeApp.addAmbassador(name, role);
+        }
+
+        @Override
+        public void editAmbassador(Ambassador a, String name, String role) {
+            TaskTribeApp.editAmbassador(a, name, role);
+        }
+
+        @Override
+        public void deleteAmbassador(Ambassador a) {
+            TaskTribeApp.deleteAmbassador(a);
+        }
+
+        @Override
+        public Project createProject(String name) {
+            return TaskTribeApp.createProject(name);
+        }
+
+        @Override
+        public Task addTask(Project p, String name, String deadline, Ambassador a) {
+            return TaskTribeApp.addTask(p, name, deadline, a);
+        }
+
+        @Override
+        public void setTaskStatus(Task t, int status) {
+            TaskTribeApp.setTaskStatus(t, status);
+        }
+
+        @Override
+        public void reassignTask(Task t, Ambassador a) {
+            TaskTribeApp.reassignTask(t, a);
+        }
+
+        @Override
+        public boolean markAttendance(TrainingSession s, Ambassador a) {
+            return TaskTribeApp.markAttendance(s, a);
+        }
+
+        @Override
+        public int markAttendanceSheet(TrainingSession s, List<Ambassador> sheet) {
+            return TaskTribeApp.markAttendanceSheet(s, sheet);
+        }
+    }
+
+    // ===== Bulk Import =====
+
+    private static void bulkImport(Scanner sc) {
+        System.out.print("Enter path of CSV or NDJSON file: ");
+        Path file = Paths.get(sc.nextLine().trim());
+        BulkImporter.Result r;
+        try {
+            r = BulkImporter.importFile(file, new ImportTarget());
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+            return;
+        }
+        long millis = Math.max(1, r.elapsedNanos / 1_000_000);
+        System.out.println("Imported " + r.ambassadors + " ambassadors, " + r.projects + " projects and "
+                + r.tasks + " tasks from " + r.rows + " rows in " + millis + " ms ("
+                + r.rows * 1000 / millis + " rows/s).");
+        if (r.errors > 0) {
+            System.out.println(r.errors + " rows were skipped:");
+            for (String e : r.errorSamples) {
+                System.out.println("  " + e);
+            }
+            if (r.errors > r.errorSamples.size()) {
+                System.out.println("  ... and " + (r.errors - r.errorSamples.size()) + " more");
+            }
+        }
+    }
+
+    // Applies import batches like the core operations, but queues the whole batch in the journal
+    // and waits for durability once, and defers any due snapshot to the end of the import.
+    private static final class ImportTarget implements BulkImporter.Target {
+        private int applied;
+
+        @Override
+        public int reserveAmbassadorIds(int count) {
+            return ambassadorIdCounter.getAndAdd(count);
+        }
+
+        @Override
+        public int reserveProjectIds(int count) {
+            return projectIdCounter.getAndAdd(count);
+        }
+
+        @Override
+        public int reserveTaskIds(int count) {
+            return taskIdCounter.getAndAdd(count);
+        }
+
+        @Override
+        public boolean hasAmbassador(int id) {
+            return ambassadors.contains(id);
+        }
+
+        @Override
+        public boolean hasProject(int id) {
+            return projects.contains(id);
+        }
+
+        @Override
+        public void apply(BulkImporter.Row[] rows, int count) {
+            long last;
+            // Like a core operation, the batch is logged and applied inside the persistence gate.
+            Lock gate = persistence != null ? persistence.operationLock() : null;
+            if (gate != null) {
+                gate.lock();
+            }
+            try {
+                last = applyRows(rows, count);
+            } finally {
+                if (gate != null) {
+                    gate.unlock();
+                }
+            }
+            if (persistence != null && last >= 0) {
+                persistence.awaitDurable(last);
+            }
+            applied += count;
+        }
+
+        // Logs and applies the rows; returns the journal sequence of the last one, or -1.
+        private static long applyRows(BulkImporter.Row[] rows, int count) {
+            long last = -1;
+            for (int i = 0; i < count; i++) {
+                BulkImporter.Row r = rows[i];
+                String id = Integer.toString(r.id);
+                switch (r.type) {
+                    case BulkImporter.AMBASSADOR:
+                        last = append(OP_ADD_AMBASSADOR, id, r.name, r.role);
+                        applyAddAmbassador(r.id, r.name, r.role);
+                        break;
+                    case BulkImporter.PROJECT:
+                        last = append(OP_ADD_PROJECT, id, r.name);
+                        applyAddProject(r.id, r.name);
+                        break;
+                    default:
+                        Ambassador a = r.assigneeId != ColumnarTaskStore.NO_ASSIGNEE
+                                ? ambassadors.get(r.assigneeId) : null;
+                        String status = TaskStatus.label(r.statusCode);
+                        last = append(OP_ADD_TASK, id, Integer.toString(r.projectId), r.name, r.deadline,
+                                a != null ? Integer.toString(a.getId()) : null, status);
+                        applyAddTask(r.id, projects.get(r.projectId), r.name, r.deadline, a, status);
+                }
+            }
+            return last;
+        }
+
+        @Override
+        public void finish() {
+            if (persistence == null || applied == 0) {
+                return;
+            }
+            try {
+                persistence.applied(applied);
+            } catch (IOException e) {
+                System.out.println("Warning: could not write snapshot: " + e.getMessage());
+            }
+        }
+
+        private static long append(String op, String... fields) {
+            return persistence != null ? persistence.append(op, fields) : -1;
+        }
+    }
+
+    // ===== Paging =====
+
+    // Lists are shown a page at a time, so no prompt waits on a whole roster being printed.
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * A list shown a page at a time. A cursor marks where a page starts: 0 for the first page,
+     * {@link IdRegistry#END} past the last. Only the cursor is kept between pages.
+     */
+    interface Pages {
+        /** Writes the page at {@code cursor} to the report and returns the cursor of the next one. */
+        int write(int cursor);
+
+        /** The cursor of the page that starts with the entry with this ID, or END if it is not listed. */
+        int seek(int id);
+    }
+
+    // Shows the first page, then more on request: Enter for the next page, an ID to jump to, 0 to stop.
+    private static void browse(Scanner sc, Pages pages, OperationMetrics metric) {
+        int cursor = writePage(pages, 0, metric);
+        while (cursor != IdRegistry.END) {
+            System.out.print("Enter for the next page, an ID to jump to, 0 to stop: ");
+            String line = sc.nextLine().trim();
+            if (!line.isEmpty()) {
+                int id;
+                try {
+                    id = Integer.parseInt(line);
+                } catch (NumberFormatException e) {
+                    System.out.println("Please enter a number.");
+                    continue;
+                }
+                if (id == 0) {
+                    return;
+                }
+                int at = pages.seek(id);
+                if (at == IdRegistry.END) {
+                    System.out.println("ID " + id + " is not in this list.");
+                    continue;
+                }
+                cursor = at;
+            }
+            cursor = writePage(pages, cursor, metric);
+        }
+    }
+
+    private static int writePage(Pages pages, int cursor, OperationMetrics metric) {
+        long start = System.nanoTime();
+        try {
+            return pages.write(cursor);
+        } finally {
+            metric.record(start);
+        }
+    }
+
+    // Shows the first page and reads an ID, which need not be on a page shown; Enter shows the next page.
+    private static int chooseId(Scanner sc, Pages pages, String prompt) {
+        int cursor = pages.write(0);
+        while (true) {
+            System.out.print(cursor == IdRegistry.END ? prompt + ": " : prompt + " (Enter for more): ");
+            String line = sc.nextLine().trim();
+            if (line.isEmpty() && cursor != IdRegistry.END) {
+                cursor = pages.write(cursor);
+                continue;
+            }
+            try {
+                return Integer.parseInt(line);
+            } catch (NumberFormatException e) {
+                System.out.print("Please enter a number: ");
+                return readInteger(sc);
+            }
+        }
+    }
+
+    static Pages ambassadorPages() {
+        return registryPages(ambassadors, Ambassador::appendTo);
+    }
+
+    static Pages projectPages() {
+        return registryPages(projects, Project::appendTo);
+    }
+
+    // The cursor is the last ID shown, see IdRegistry.
+    private static <T> Pages registryPages(IdRegistry<T> registry, BiConsumer<T, StringBuilder> format) {
+        return new Pages() {
+            @Override
+            public int write(int cursor) {
+                int next = registry.forEachAfter(cursor, PAGE_SIZE, e -> {
+                    format.accept(e, report.line());
+                    report.endLine();
+                });
+                report.flush();
+                return next;
+            }
+
+            @Override
+            public int seek(int id) {
+                return registry.contains(id) ? id - 1 : IdRegistry.END;
+            }
+        };
+    }
+
+    // The cursor is a row; rows are only appended, so a page never shifts.
+    static Pages projectTaskPages(Project p) {
+        return new Pages() {
+            @Override
+            public int write(int cursor) {
+                int next;
+                long stamp = p.readLock();
+                try {
+                    ColumnarTaskStore store = p.getStore();
+                    int to = Math.min(cursor + PAGE_SIZE, store.size());
+                    for (int row = cursor; row < to; row++) {
+                        Task.appendRow(store, row, report.line());
+                        report.endLine();
+                    }
+                    next = to < store.size() ? to : IdRegistry.END;
+                } finally {
+                    p.unlockRead(stamp);
+                }
+                report.flush();
+                return next;
+            }
+
+            @Override
+            public int seek(int taskId) {
+                Task t = p.findTaskById(taskId);
+                return t == null ? IdRegistry.END : t.getRow();
+            }
+        };
+    }
+
+    // The ambassador's task IDs are taken once, in report order, and the cursor is a position in them.
+    static Pages assignedTaskPages(Ambassador a) {
+        int[] taskIds = TaskIndex.taskIdsAssignedTo(a.getId());
+        return new Pages() {
+            @Override
+            public int write(int cursor) {
+                int to = Math.min(cursor + PAGE_SIZE, taskIds.length);
+                for (int i = cursor; i < to; i++) {
+                    appendWithProject(TaskIndex.findTaskById(taskIds[i]));
+                }
+                report.flush();
+                return to < taskIds.length ? to : IdRegistry.END;
+            }
+
+            @Override
+            public int seek(int taskId) {
+                for (int i = 0; i < taskIds.length; i++) {
+                    if (taskIds[i] == taskId) {
+                        return i;
+                    }
+                }
+                return IdRegistry.END;
+            }
+        };
+    }
+
+    // ===== Ambassador Management =====
+
+    private static void ambassadorMenu(Scanner sc) {
+        int c;
+        do {
+            System.out.println("--- Ambassador Management ---");
+            System.out.println("1. Add ambassador");
+            System.out.println("2. Edit ambassador information");
+            System.out.println("3. Delete ambassador");
+            System.out.println("4. View ambassador list");
+            System.out.println("0. Back");
+            System.out.print("Choose: ");
+            c = readInteger(sc);
+
+            switch (c) {
+                case 1:
+                    addAmbassador(sc);
+                    break;
+                case 2:
+                    editAmbassador(sc);
+                    break;
+                case 3:
+                    deleteAmbassador(sc);
+                    break;
+                case 4:
+                    displayAmbassadorList(sc);
+                    break;
+                case 0:
+                    break;
+                default:
+                    System.out.println("Invalid choice!");
+            }
+        } while (c != 0);
+    }
+
+    private static void addAmbassador(Scanner sc) {
+        System.out.print("Enter name: ");
+        String name = sc.nextLine();
+        System.out.print("Enter role (" + Roles.PROJECT_LEAD + " / " + Roles.CONTENT_CREATOR + " / "
+                + Roles.COMMUNITY_PROMOTER + "): ");
+        String role = sc.nextLine();
+
+        Ambassador a = addAmbassador(name, role);
+        System.out.println("Added ambassador with ID: " + a.getId());
+    }
+
+    private static void displayAmbassadorList(Scanner sc) {
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet.");
+            return;
+        }
+        report.println("Ambassador list:");
+        browse(sc, ambassadorPages(), METRIC_LIST_AMBASSADORS);
+    }
+
+    // Lists the ambassadors a page at a time and reads the chosen ID.
+    private static int chooseAmbassadorId(Scanner sc, String prompt) {
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet.");
+        } else {
+            report.println("Ambassador list:");
+        }
+        return chooseId(sc, ambassadorPages(), prompt);
+    }
+
+    static Ambassador findAmbassadorById(int id) {
+        return ambassadors.get(id);
+    }
+
+    private static void editAmbassador(Scanner sc) {
+        int id = chooseAmbassadorId(sc, "Enter ambassador ID to edit");
+        Ambassador a = findAmbassadorById(id);
+        if (a == null) {
+            System.out.println("Ambassador not found.");
+            return;
+        }
+        System.out.print("Enter new name (leave blank to keep current): ");
+        String name = sc.nextLine();
+        if (name.trim().isEmpty()) {
+            name = a.getName();
+        }
+        System.out.print("Enter new role (leave blank to keep current): ");
+        String role = sc.nextLine();
+        if (role.trim().isEmpty()) {
+            role = a.getRole();
+        }
+        editAmbassador(a, name, role);
+        System.out.println("Information updated.");
+    }
+
+    private static void deleteAmbassador(Scanner sc) {
+        int id = chooseAmbassadorId(sc, "Enter ambassador ID to delete");
+        Ambassador a = findAmbassadorById(id);
+        if (a == null) {
+            System.out.println("Ambassador not found.");
+            return;
+        }
+        deleteAmbassador(a);
+        System.out.println("Ambassador deleted.");
+    }
+
+    // ===== Project and Task Management =====
+
+    private static void projectMenu(Scanner sc) {
+        int c;
+        do {
+            System.out.println("--- Project and Task Management ---");
+            System.out.println("1. Create new project");
+            System.out.println("2. View project list");
+            System.out.println("3. Add task to project");
+            System.out.println("4. Update task status");
+            System.out.println("5. View tasks of a project");
+            System.out.println("6. View tasks by ambassador");
+            System.out.println("7. Update task status by task ID");
+            System.out.println("8. Reassign task");
+            System.out.println("0. Back");
+            System.out.print("Choose: ");
+            c = readInteger(sc);
+
+            switch (c) {
+                case 1:
+                    createProject(sc);
+                    break;
+                case 2:
+                    displayProjectList(sc);
+                    break;
+                case 3:
+                    addTaskToProject(sc);
+                    break;
+                case 4:
+                    updateTaskStatus(sc);
+                    break;
+                case 5:
+                    viewTasksByProject(sc);
+                    break;
+                case 6:
+                    viewTasksByAmbassador(sc);
+                    break;
+                case 7:
+                    updateTaskStatusById(sc);
+                    break;
+                case 8:
+                    reassignTask(sc);
+                    break;
+                case 0:
+                    break;
+                default:
+                    System.out.println("Invalid choice!");
+            }
+        } while (c != 0);
+    }
+
+    private static void createProject(Scanner sc) {
+        System.out.print("Enter project name: ");
+        String name = sc.nextLine();
+        Project p = createProject(name);
+        System.out.println("Created project with ID: " + p.getId());
+    }
+
+    private static void displayProjectList(Scanner sc) {
+        if (projects.isEmpty()) {
+            System.out.println("No projects yet.");
+            return;
+        }
+        report.println("Project list:");
+        browse(sc, projectPages(), METRIC_LIST_PROJECTS);
+    }
+
+    // Lists the projects a page at a time and reads the chosen ID.
+    private static int chooseProjectId(Scanner sc, String prompt) {
+        if (projects.isEmpty()) {
+            System.out.println("No projects yet.");
+        } else {
+            report.println("Project list:");
+        }
+        return chooseId(sc, projectPages(), prompt);
+    }
+
+    private static Project findProjectById(int id) {
+        return projects.get(id);
+    }
+
+    private static void addTaskToProject(Scanner sc) {
+        int pid = chooseProjectId(sc, "Enter project ID");
+        Project p = findProjectById(pid);
+        if (p == null) {
+            System.out.println("Project not found.");
+            return;
+        }
+
+        System.out.print("Enter task name: ");
+        String taskName = sc.nextLine();
+        System.out.print("Enter deadline (e.g., 12/30/2025): ");
+        String deadline = sc.nextLine();
+
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet, please add ambassadors first.");
+            return;
+        }
+        int aid = chooseAmbassadorId(sc, "Select assignee ambassador ID");
+        Ambassador a = findAmbassadorById(aid);
+        if (a == null) {
+            System.out.println("Ambassador not found.");
+            return;
+        }
+
+        Task t = addTask(p, taskName, deadline, a);
+        System.out.println("Added task with ID: " + t.getId() + " to project " + p.getName());
+        if (t.getDeadlineDay() == Deadlines.NONE) {
+            System.out.println("Note: deadline is not a recognized date, so it will not appear in deadline reports.");
+        }
+    }
+
+    private static void updateTaskStatus(Scanner sc) {
+        int pid = chooseProjectId(sc, "Enter project ID containing the task");
+        Project p = findProjectById(pid);
+        if (p == null) {
+            System.out.println("Project not found.");
+            return;
+        }
+
+        if (p.getTaskList().isEmpty()) {
+            System.out.println("Project has no tasks yet.");
+            return;
+        }
+
+        int tid = chooseId(sc, projectTaskPages(p), "Enter task ID to update");
+        Task t = p.findTaskById(tid);
+        if (t == null) {
+            System.out.println("Task not found.");
+            return;
+        }
+
+        chooseTaskStatus(sc, t);
+    }
+
+    private static void updateTaskStatusById(Scanner sc) {
+        System.out.print("Enter task ID to update: ");
+        int tid = readInteger(sc);
+        Task t = TaskIndex.findTaskById(tid);
+        if (t == null) {
+            System.out.println("Task not found.");
+            return;
+        }
+
+        System.out.println("[" + t.getProject().getName() + "] " + t);
+        chooseTaskStatus(sc, t);
+    }
+
+    private static void reassignTask(Scanner sc) {
+        System.out.print("Enter task ID to reassign: ");
+        int tid = readInteger(sc);
+        Task t = TaskIndex.findTaskById(tid);
+        if (t == null) {
+            System.out.println("Task not found.");
+            return;
+        }
+
+        System.out.println("[" + t.getProject().getName() + "] " + t);
+        System.out.print("Select new assignee ambassador ID: ");
+        int aid = readInteger(sc);
+        Ambassador a = findAmbassadorById(aid);
+        if (a == null) {
+            System.out.println("Ambassador not found.");
+            return;
+        }
+        reassignTask(t, a);
+        System.out.println("Task reassigned to " + a.getName() + ".");
+    }
+
+    private static void chooseTaskStatus(Scanner sc, Task t) {
+        System.out.println("Select new status:");
+        System.out.println("1. Not Started");
+        System.out.println("2. In Progress");
+        System.out.println("3. Completed");
+        System.out.print("Choose: ");
+        int st = readInteger(sc);
+        switch (st) {
+            case 1:
+                setTaskStatus(t, TaskStatus.NOT_STARTED);
+                break;
+            case 2:
+                setTaskStatus(t, TaskStatus.IN_PROGRESS);
+                break;
+            case 3:
+                setTaskStatus(t, TaskStatus.COMPLETED);
+                break;
+            default:
+                System.out.println("Invalid choice, keeping previous status.");
+                return;
+        }
+        System.out.println("Task status updated.");
+    }
+
+    private static void viewTasksByProject(Scanner sc) {
+        int pid = chooseProjectId(sc, "Enter project ID");
+        Project p = findProjectById(pid);
+        if (p == null) {
+            System.out.println("Project not found.");
+            return;
+        }
+
+        if (p.getTaskList().isEmpty()) {
+            System.out.println("Project has no tasks yet.");
+            return;
+        }
+        report.line().append("Task list for project ").append(p.getName()).append(':');
+        report.endLine();
+        browse(sc, projectTaskPages(p), METRIC_VIEW_PROJECT_TASKS);
+    }
+
+    private static void viewTasksByAmbassador(Scanner sc) {
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet.");
+            return;
+        }
+        int aid = chooseAmbassadorId(sc, "Enter ambassador ID");
+        Ambassador a = findAmbassadorById(aid);
+        if (a == null) {
+            System.out.println("Ambassador not found.");
+            return;
+        }
+        report.line().append("Task list for ").append(a.getName()).append(':');
+        report.endLine();
+        if (TaskIndex.countAssignedTo(a.getId()) == 0) {
+            report.println("No tasks assigned to this ambassador yet.");
+            report.flush();
+            return;
+        }
+        browse(sc, assignedTaskPages(a), METRIC_VIEW_AMBASSADOR_TASKS);
+    }
+
+    private static void appendWithProject(Task t) {
+        StringBuilder line = report.line().append('[').append(t.getProject().getName()).append("] ");
+        t.appendTo(line);
+        report.endLine();
+    }
+
+    // ===== Training Schedule Management =====
+
+    // The built-in program; further programs, sessions and cohorts are created from the menu.
+    private static void createDefaultTrainingSchedule() {
+        applyAddProgram(DEFAULT_PROGRAM_ID, "4-day training");
+        applyAddSession(1, "Day 1", "Introduction to TaskTribe, goal of 1000 users", DEFAULT_PROGRAM_ID);
+        applyAddSession(2, "Day 2", "Content creation and social media sharing skills", DEFAULT_PROGRAM_ID);
+        applyAddSession(3, "Day 3", "Community skills, building study groups", DEFAULT_PROGRAM_ID);
+        applyAddSession(4, "Day 4", "Summary, 90-day action plan", DEFAULT_PROGRAM_ID);
+    }
+
+    private static TrainingProgram defaultProgram() {
+        return programs.get(DEFAULT_PROGRAM_ID);
+    }
+
+    private static void trainingMenu(Scanner sc) {
+        int c;
+        do {
+            System.out.println("--- Training Program Management ---");
+            System.out.println("1. View training schedule");
+            System.out.println("2. Mark ambassador attendance for training session");
+            System.out.println("3. View ambassadors who haven't attended all "
+                    + defaultProgram().getSessionCount() + " sessions");
+            System.out.println("4. Mark attendance sheet for training session");
+            System.out.println("5. View training programs and completion");
+            System.out.println("6. Create training program");
+            System.out.println("7. Add session to training program");
+            System.out.println("8. Create cohort");
+            System.out.println("9. Enroll ambassadors in cohort");
+            System.out.println("10. View cohort members missing a session");
+            System.out.println("0. Back");
+            System.out.print("Choose: ");
+            c = readInteger(sc);
+
+            switch (c) {
+                case 1:
+                    timed(METRIC_VIEW_SCHEDULE, TaskTribeApp::viewTrainingSchedule);
+                    break;
+                case 2:
+                    markTrainingAttendance(sc);
+                    break;
+                case 3:
+                    timed(METRIC_MISSING_TRAINING, TaskTribeApp::viewAmbassadorsMissingTraining);
+                    break;
+                case 4:
+                    markAttendanceSheet(sc);
+                    break;
+                case 5:
+                    timed(METRIC_PROGRAM_COMPLETION, TaskTribeApp::viewProgramCompletion);
+                    break;
+                case 6:
+                    createProgram(sc);
+                    break;
+                case 7:
+                    addProgramSession(sc);
+                    break;
+                case 8:
+                    createCohort(sc);
+                    break;
+                case 9:
+                    enrollInCohort(sc);
+                    break;
+                case 10:
+                    viewCohortMissingSession(sc);
+                    break;
+                case 0:
+                    break;
+                default:
+                    System.out.println("Invalid choice!");
+            }
+        } while (c != 0);
+    }
+
+    private static void viewTrainingSchedule() {
+        for (TrainingProgram p : programs) {
+            report.println(p.getName() + " schedule:");
+            for (TrainingSession s : p.getSessions()) {
+                s.appendTo(report.line());
+                report.endLine();
+            }
+        }
+        report.flush();
+    }
+
+    private static TrainingSession findSessionById(int id) {
+        return sessions.get(id);
+    }
+
+    private static void markTrainingAttendance(Scanner sc) {
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet, please add first.");
+            return;
+        }
+        viewTrainingSchedule();
+        System.out.print("Select training session ID: ");
+        int sid = readInteger(sc);
+        TrainingSession s = findSessionById(sid);
+        if (s == null) {
+            System.out.println("Training session not found.");
+            return;
+        }
+
+        int aid = chooseAmbassadorId(sc, "Select participating ambassador ID");
+        Ambassador a = findAmbassadorById(aid);
+        if (a == null) {
+            System.out.println("Ambassador not found.");
+            return;
+        }
+
+        if (markAttendance(s, a)) {
+            System.out.println("Attendance recorded.");
+        } else {
+            System.out.println("This ambassador has already been recorded as attending this session.");
+        }
+    }
+
+    private static void markAttendanceSheet(Scanner sc) {
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet, please add first.");
+            return;
+        }
+        viewTrainingSchedule();
+        System.out.print("Select training session ID: ");
+        TrainingSession s = findSessionById(readInteger(sc));
+        if (s == null) {
+            System.out.println("Training session not found.");
+            return;
+        }
+
+        List<Ambassador> sheet = readAmbassadorList(sc, "Enter IDs of attending ambassadors");
+        if (sheet == null) {
+            return;
+        }
+        int marked = markAttendanceSheet(s, sheet);
+        System.out.println("Attendance recorded for " + marked + " ambassador(s); "
+                + (sheet.size() - marked) + " already recorded.");
+    }
+
+    // Reads a line of ambassador IDs; prints why and returns null if it is empty or names an unknown ID.
+    private static List<Ambassador> readAmbassadorList(Scanner sc, String prompt) {
+        System.out.print(prompt + " (separated by spaces or commas): ");
+        List<Ambassador> list = new ArrayList<>();
+        for (String token : sc.nextLine().split("[\\s,]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            Ambassador a = null;
+            try {
+                a = findAmbassadorById(Integer.parseInt(token));
+            } catch (NumberFormatException e) {
+                // Reported below like an unknown ID.
+            }
+            if (a == null) {
+                System.out.println("Ambassador not found: " + token);
+                return null;
+            }
+            list.add(a);
+        }
+        if (list.isEmpty()) {
+            System.out.println("No ambassadors entered.");
+            return null;
+        }
+        return list;
+    }
+
+    private static void viewAmbassadorsMissingTraining() {
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet.");
+            return;
+        }
+        int count = defaultProgram().getSessionCount();
+        report.println("List of ambassadors who haven't attended all " + count + " sessions:");
+        IdBitmap missing = VIEW_MISSING_TRAINING.missingAnySession(defaultProgram());
+        missing.forEach(aid -> {
+            Ambassador a = ambassadors.get(aid);
+            if (a != null) {
+                a.appendTo(report.line());
+                report.endLine();
+            }
+        });
+        if (missing.isEmpty()) {
+            report.println("All ambassadors have attended all " + count + " sessions.");
+        }
+        report.flush();
+    }
+
+    private static void displayProgramList() {
+        for (TrainingProgram p : programs) {
+            p.appendTo(report.line());
+            report.endLine();
+        }
+        report.flush();
+    }
+
+    private static void displayCohortList() {
+        for (Cohort c : cohorts) {
+            c.appendTo(report.line());
+            report.endLine();
+        }
+        report.flush();
+    }
+
+    private static TrainingProgram chooseProgram(Scanner sc) {
+        displayProgramList();
+        System.out.print("Select program ID: ");
+        TrainingProgram p = programs.get(readInteger(sc));
+        if (p == null) {
+            System.out.println("Program not found.");
+        }
+        return p;
+    }
+
+    private static Cohort chooseCohort(Scanner sc) {
+        if (cohorts.isEmpty()) {
+            System.out.println("No cohorts yet, please create one first.");
+            return null;
+        }
+        displayCohortList();
+        System.out.print("Select cohort ID: ");
+        Cohort c = cohorts.get(readInteger(sc));
+        if (c == null) {
+            System.out.println("Cohort not found.");
+        }
+        return c;
+    }
+
+    private static void createProgram(Scanner sc) {
+        System.out.print("Enter program name: ");
+        TrainingProgram p = createProgram(sc.nextLine());
+        System.out.println("Program created with ID " + p.getId() + ".");
+    }
+
+    private static void addProgramSession(Scanner sc) {
+        TrainingProgram p = chooseProgram(sc);
+        if (p == null) {
+            return;
+        }
+        System.out.print("Enter session date: ");
+        String date = sc.nextLine();
+        System.out.print("Enter session topic: ");
+        String topic = sc.nextLine();
+        TrainingSession s = addProgramSession(p, date, topic);
+        System.out.println("Session " + s.getId() + " added as session " + p.getSessionCount() + " of "
+                + p.getName() + ".");
+    }
+
+    private static void createCohort(Scanner sc) {
+        TrainingProgram p = chooseProgram(sc);
+        if (p == null) {
+            return;
+        }
+        System.out.print("Enter cohort name: ");
+        Cohort c = createCohort(p, sc.nextLine());
+        System.out.println("Cohort created with ID " + c.getId() + ".");
+    }
+
+    private static void enrollInCohort(Scanner sc) {
+        Cohort c = chooseCohort(sc);
+        if (c == null) {
+            return;
+        }
+        List<Ambassador> members = readAmbassadorList(sc, "Enter IDs of ambassadors to enroll");
+        if (members == null) {
+            return;
+        }
+        try {
+            int joined = joinCohort(c, members);
+            System.out.println("Enrolled " + joined + " ambassador(s); " + (members.size() - joined)
+                    + " already in the cohort.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + ". Nobody was enrolled.");
+        }
+    }
+
+    private static void viewProgramCompletion() {
+        for (TrainingProgram p : programs) {
+            p.appendTo(report.line());
+            int completed = 0;
+            int members = 0;
+            List<Cohort> list = p.getCohorts();
+            for (Cohort c : list) {
+                completed += c.getCompletedCount();
+                members += c.getMemberCount();
+            }
+            appendCompletion(report.line().append(", Completion: "), completed, members);
+            report.endLine();
+            for (Cohort c : list) {
+                report.line().append("  Cohort ").append(c.getId()).append(" - ").append(c.getName()).append(": ");
+                appendCompletion(report.line(), c.getCompletedCount(), c.getMemberCount());
+                report.endLine();
+            }
+        }
+        report.flush();
+    }
+
+    private static void appendCompletion(StringBuilder sb, int completed, int members) {
+        sb.append(completed).append('/').append(members);
+        if (members > 0) {
+            sb.append(String.format(Locale.ROOT, " (%.1f%%)", completed * 100.0 / members));
+        }
+    }
+
+    private static void viewCohortMissingSession(Scanner sc) {
+        Cohort c = chooseCohort(sc);
+        if (c == null) {
+            return;
+        }
+        List<TrainingSession> programSessions = c.getProgram().getSessions();
+        if (programSessions.isEmpty()) {
+            System.out.println("The program has no sessions yet.");
+            return;
+        }
+        System.out.print("Enter session number (1-" + programSessions.size() + "): ");
+        int k = readInteger(sc);
+        if (k < 1 || k > programSessions.size()) {
+            System.out.println("No such session in " + c.getProgram().getName() + ".");
+            return;
+        }
+        timed(METRIC_COHORT_MISSING_SESSION, () -> viewCohortMissingSession(c, k));
+    }
+
+    private static void viewCohortMissingSession(Cohort c, int k) {
+        TrainingSession s = c.getProgram().getSessions().get(k - 1);
+        IdBitmap missing = TrainingIndex.missingSession(c, k - 1);
+        report.line().append("Members of ").append(c.getName()).append(" who missed session ").append(k)
+                .append(" (").append(s.getTopic()).append("):");
+        report.endLine();
+        missing.forEach(aid -> {
+            ambassadors.get(aid).appendTo(report.line());
+            report.endLine();
+        });
+        if (missing.isEmpty()) {
+            report.println("Every member has attended this session.");
+        }
+        report.flush();
+    }
+
+    // ===== Statistics Report =====
+
+    private static void reportMenu(Scanner sc) {
+        int c;
+        do {
+            System.out.println("--- Statistics Report ---");
+            System.out.println("1. Statistics of completed tasks / total");
+            System.out.println("2. List of ambassadors with no completed tasks");
+            System.out.println("3. List of ambassadors who haven't attended all "
+                    + defaultProgram().getSessionCount() + " training sessions");
+            System.out.println("4. Verify task statistics (full recount)");
+            System.out.println("5. Overdue tasks");
+            System.out.println("6. Tasks due in the next 7 days");
+            System.out.println("7. Operation metrics");
+            System.out.println("8. Completion by project");
+            System.out.println("9. Leaderboard (top ambassadors)");
+            System.out.println("10. Rank of an ambassador");
+            System.out.println("0. Back");
+            System.out.print("Choose: ");
+            c = readInteger(sc);
+
+            switch (c) {
+                case 1:
+                    timed(METRIC_TASK_STATISTICS, TaskTribeApp::taskStatistics);
+                    break;
+                case 2:
+                    timed(METRIC_NO_COMPLETED_TASKS, TaskTribeApp::ambassadorsWithoutCompletedTasks);
+                    break;
+                case 3:
+                    timed(METRIC_MISSING_TRAINING, TaskTribeApp::viewAmbassadorsMissingTraining);
+                    break;
+                case 4:
+                    timed(METRIC_VERIFY_STATISTICS, TaskTribeApp::verifyTaskStatistics);
+                    break;
+                case 5:
+                    timed(METRIC_OVERDUE_TASKS, TaskTribeApp::overdueTasks);
+                    break;
+                case 6:
+                    timed(METRIC_TASKS_DUE_SOON, () -> tasksDueSoon(7));
+                    break;
+                case 7:
+                    operationMetricsReport();
+                    break;
+                case 8:
+                    timed(METRIC_PROJECT_COMPLETION, TaskTribeApp::completionByProject);
+                    break;
+                case 9:
+                    System.out.print("How many ambassadors: ");
+                    int k = readInteger(sc);
+                    timed(METRIC_LEADERBOARD, () -> leaderboard(k));
+                    break;
+                case 10:
+                    System.out.print("Enter ambassador ID: ");
+                    int aid = readInteger(sc);
+                    timed(METRIC_AMBASSADOR_RANK, () -> ambassadorRank(aid));
+                    break;
+                case 0:
+                    break;
+                default:
+                    System.out.println("Invalid choice!");
+            }
+        } while (c != 0);
+    }
+
+    static void taskStatistics() {
+        int total = VIEW_PROJECT_COMPLETION.total();
+        int completed = VIEW_PROJECT_COMPLETION.completed();
+        report.line().append("Total number of tasks: ").append(total);
+        report.endLine();
+        report.line().append("Number of completed tasks: ").append(completed);
+        report.endLine();
+        if (total > 0) {
+            appendPercent(report.line().append("Completion rate: "), completed, total);
+            report.endLine();
+        }
+        report.flush();
+    }
+
+    static void completionByProject() {
+        if (projects.isEmpty()) {
+            System.out.println("No projects yet.");
+            return;
+        }
+        report.println("Completion by project:");
+        for (Project p : projects) {
+            StatusCounts c = p.getStatusCounts();
+            int total = c.total();
+            int completed = c.completed();
+            StringBuilder line = report.line().append("Project ID: ").append(p.getId()).append(", Name: ")
+                    .append(p.getName()).append(", Completed: ").append(completed).append('/').append(total);
+            if (total > 0) {
+                appendPercent(line.append(" ("), completed, total).append(')');
+            }
+            report.endLine();
+        }
+        report.flush();
+    }
+
+    static void leaderboard(int k) {
+        LeaderboardView.Standing[] top = VIEW_LEADERBOARD.top(k);
+        if (top.length == 0) {
+            System.out.println("No ambassadors yet.");
+            return;
+        }
+        report.println("Top " + top.length + " of " + VIEW_LEADERBOARD.size()
+                + " ambassadors (by completed tasks, then training sessions attended):");
+        for (LeaderboardView.Standing s : top) {
+            appendStanding(s);
+        }
+        report.flush();
+    }
+
+    static void ambassadorRank(int ambassadorId) {
+        LeaderboardView.Standing s = VIEW_LEADERBOARD.standing(ambassadorId);
+        if (s == null) {
+            System.out.println("Ambassador not found.");
+            return;
+        }
+        appendStanding(s);
+        report.println("Rank " + s.rank + " of " + VIEW_LEADERBOARD.size() + ".");
+        report.flush();
+    }
+
+    private static void appendStanding(LeaderboardView.Standing s) {
+        StringBuilder line = report.line().append('#').append(s.rank).append(" Completed tasks: ")
+                .append(s.completedTasks).append(", ");
+        Ambassador a = ambassadors.get(s.ambassadorId);
+        if (a != null) {
+            line.append("ID: ").append(a.getId()).append(", Name: ").append(a.getName());
+        } else {
+            line.append("ID: ").append(s.ambassadorId);
+        }
+        line.append(", Training sessions attended: ").append(s.sessionsAttended);
+        report.endLine();
+    }
+
+    // Appends part / whole as a percentage with two decimals, like "%.2f%%" but without a formatter per line.
+    private static StringBuilder appendPercent(StringBuilder sb, int part, int whole) {
+        long hundredths = Math.round(part * 10000.0 / whole);
+        sb.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).append('%');
+    }
+
+    private static void verifyTaskStatistics() {
+        StatisticsRecount r = recountTaskStatistics(ReportEngine.threshold());
+        for (String mismatch : r.mismatches) {
+            report.println(mismatch);
+        }
+        boolean consistent = r.mismatches.isEmpty();
+        if (!r.global.matches(TaskIndex.statusCounts())) {
+            report.println("Mismatch in global counters: counters [" + TaskIndex.statusCounts()
+                    + "], recount [" + r.global + "]");
+            consistent = false;
+        }
+        List<String> viewMismatches = verifyViews(r.global);
+        for (String mismatch : viewMismatches) {
+            report.println(mismatch);
+        }
+        if (consistent && viewMismatches.isEmpty()) {
+            report.println("Task statistics are consistent: " + r.global);
+        }
+        report.flush();
+    }
+
+    // Compares the app-wide views with answers recomputed from the store. A change made meanwhile
+    // may show here as a mismatch.
+    static List<String> verifyViews(StatusCounts recount) {
+        List<String> mismatches = new ArrayList<>();
+        if (VIEW_PROJECT_COMPLETION.total() != recount.total()
+                || VIEW_PROJECT_COMPLETION.completed() != recount.completed()) {
+            mismatches.add("Mismatch in completion view: view [" + VIEW_PROJECT_COMPLETION.completed() + "/"
+                    + VIEW_PROJECT_COMPLETION.total() + "], recount [" + recount.completed() + "/"
+                    + recount.total() + "]");
+        }
+        BitSet completers = ambassadorsWithCompletedTasks(ReportEngine.threshold());
+        IdBitmap expected = new IdBitmap();
+        for (Ambassador a : ambassadors) {
+            if (!completers.get(a.getId())) {
+                expected.add(a.getId());
+            }
+        }
+        IdBitmap viewed = VIEW_NO_COMPLETED_TASKS.ambassadorIds();
+        if (!Arrays.equals(viewed.toArray(), expected.toArray())) {
+            mismatches.add("Mismatch in no-completed-tasks view: view lists " + viewed.cardinality()
+                    + " ambassadors, recount " + expected.cardinality());
+        }
+        for (TrainingProgram p : programs) {
+            IdBitmap missing = VIEW_MISSING_TRAINING.missingAnySession(p);
+            IdBitmap recomputed = TrainingIndex.missingAnySession(p);
+            if (!Arrays.equals(missing.toArray(), recomputed.toArray())) {
+                mismatches.add("Mismatch in missing-training view of program " + p.getId() + ": view lists "
+                        + missing.cardinality() + " ambassadors, recount " + recomputed.cardinality());
+            }
+        }
+        verifyLeaderboard(mismatches);
+        return mismatches;
+    }
+
+    // Ranks the active ambassadors from recounted figures and compares the whole board, order included.
+    private static void verifyLeaderboard(List<String> mismatches) {
+        int[] completed = completedTasksByAmbassador(ReportEngine.threshold());
+        List<int[]> expected = new ArrayList<>();
+        for (Ambassador a : ambassadors) {
+            int id = a.getId();
+            expected.add(new int[] {id, id < completed.length ? completed[id] : 0, a.getTrainingSessionsAttended()});
+        }
+        expected.sort((x, y) -> x[1] != y[1] ? Integer.compare(y[1], x[1])
+                : x[2] != y[2] ? Integer.compare(y[2], x[2]) : Integer.compare(x[0], y[0]));
+        LeaderboardView.Standing[] board = VIEW_LEADERBOARD.top(Integer.MAX_VALUE);
+        if (board.length != expected.size()) {
+            mismatches.add("Mismatch in leaderboard view: view ranks " + board.length + " ambassadors, recount "
+                    + expected.size());
+            return;
+        }
+        for (int i = 0; i < board.length; i++) {
+            LeaderboardView.Standing s = board[i];
+            int[] e = expected.get(i);
+            if (s.ambassadorId != e[0] || s.completedTasks != e[1] || s.sessionsAttended != e[2]) {
+                mismatches.add("Mismatch in leaderboard view at rank " + (i + 1) + ": view [ID " + s.ambassadorId
+                        + ", " + s.completedTasks + " completed, " + s.sessionsAttended + " attended], recount [ID "
+                        + e[0] + ", " + e[1] + " completed, " + e[2] + " attended]");
+                return;
+            }
+        }
+    }
+
+    /** Completed tasks per assignee ID, from one pass over the status columns. */
+    static int[] completedTasksByAmbassador(int threshold) {
+        int ids = ambassadorIdCounter.get();
+        return ReportEngine.scan(projects, true, threshold, () -> new int[ids],
+                (p, from, to, counts) -> p.countCompletedByAssignee(from, to, counts), (left, right) -> {
+                    for (int i = 0; i < left.length; i++) {
+                        left[i] += right[i];
+                    }
+                    return left;
+                });
+    }
+
+    /** The app-wide recount, and the projects whose counters disagree with theirs, in project order. */
+    static final class StatisticsRecount {
+        final StatusCounts global = new StatusCounts();
+        final List<String> mismatches = new ArrayList<>();
+
+        StatisticsRecount merge(StatisticsRecount right) {
+            global.addAll(right.global);
+            mismatches.addAll(right.mismatches);
+            return this;
+        }
+    }
+
+    // Each project is recounted whole under its lock, so it is compared with its counters as of one moment.
+    static StatisticsRecount recountTaskStatistics(int threshold) {
+        return ReportEngine.scan(projects, false, threshold, StatisticsRecount::new, (p, from, to, r) -> {
+            StatusCounts recount = new StatusCounts();
+            StatusCounts counters = new StatusCounts();
+            p.recountStatuses(recount, counters);
+            r.global.addAll(recount);
+            if (!recount.matches(counters)) {
+                r.mismatches.add("Mismatch in project " + p.getId() + ": counters [" + counters
+                        + "], recount [" + recount + "]");
+            }
+        }, StatisticsRecount::merge);
+    }
+
+    private static void overdueTasks() {
+        int today = (int) LocalDate.now().toEpochDay();
+        report.println("Overdue tasks (deadline before " + LocalDate.ofEpochDay(today) + ", not completed):");
+        int[] found = new int[1];
+        TaskIndex.forEachOpenDueBefore(today, tid -> found[0] += printOpenTask(tid));
+        if (found[0] == 0) {
+            report.println("No overdue tasks.");
+        }
+        printUndatedNote();
+        report.flush();
+    }
+
+    private static void tasksDueSoon(int days) {
+        int today = (int) LocalDate.now().toEpochDay();
+        report.println("Tasks due from " + LocalDate.ofEpochDay(today) + " to " + LocalDate.ofEpochDay(today + days)
+                + " (not completed):");
+        int[] found = new int[1];
+        TaskIndex.forEachOpenDueBetween(today, today + days, tid -> found[0] += printOpenTask(tid));
+        if (found[0] == 0) {
+            report.println("No tasks due in this period.");
+        }
+        printUndatedNote();
+        report.flush();
+    }
+
+    // The calendar holds only open tasks; a task completed since the walk is still left out.
+    private static int printOpenTask(int taskId) {
+        Task t = TaskIndex.findTaskById(taskId);
+        if (t.isCompleted()) {
+            return 0;
+        }
+        appendWithProject(t);
+        return 1;
+    }
+
+    private static void printUndatedNote() {
+        int undated = TaskIndex.undatedCount();
+        if (undated > 0) {
+            report.println("(" + undated + " task(s) have a deadline that is not a recognized date.)");
+        }
+    }
+
+    static void ambassadorsWithoutCompletedTasks() {
+        if (ambassadors.isEmpty()) {
+            System.out.println("No ambassadors yet.");
+            return;
+        }
+        IdBitmap without = VIEW_NO_COMPLETED_TASKS.ambassadorIds();
+        report.println("List of ambassadors with no completed tasks:");
+        without.forEach(aid -> {
+            Ambassador a = ambassadors.get(aid);
+            if (a != null) {
+                a.appendTo(report.line());
+                report.endLine();
+            }
+        });
+        if (without.isEmpty()) {
+            report.println("All ambassadors have at least one completed task.");
+        }
+        report.flush();
+    }
+
+    /** IDs of every ambassador assigned a completed task, from one pass over the status columns. */
+    static BitSet ambassadorsWithCompletedTasks(int threshold) {
+        return ReportEngine.scan(projects, true, threshold, BitSet::new,
+                (p, from, to, ids) -> p.addCompletedAssignees(from, to, ids), (left, right) -> {
+                    left.or(right);
+                    return left;
+                });
+    }
+
+    // ===== Search =====
+
+    private static final int SEARCH_LIMIT = 10;
+
+    private static void search(Scanner sc) {
+        System.out.print("Enter name, role or words to search for: ");
+        String query = sc.nextLine();
+        if (TextIndex.words(query).length == 0) {
+            System.out.println("Nothing to search for.");
+            return;
+        }
+        timed(METRIC_SEARCH, () -> printSearchResults(query));
+    }
+
+    // The best matches of each kind; every word must start a word of the name (or role).
+    private static void printSearchResults(String query) {
+        List<Ambassador> foundAmbassadors = SearchIndex.ambassadors(query, SEARCH_LIMIT);
+        List<Project> foundProjects = SearchIndex.projects(query, SEARCH_LIMIT);
+        List<Task> foundTasks = SearchIndex.tasks(query, SEARCH_LIMIT);
+        if (!foundAmbassadors.isEmpty()) {
+            report.println("Ambassadors:");
+            for (Ambassador a : foundAmbassadors) {
+                a.appendTo(report.line());
+                report.endLine();
+            }
+        }
+        if (!foundProjects.isEmpty()) {
+            report.println("Projects:");
+            for (Project p : foundProjects) {
+                p.appendTo(report.line());
+                report.endLine();
+            }
+        }
+        if (!foundTasks.isEmpty()) {
+            report.println("Tasks:");
+            for (Task t : foundTasks) {
+                appendWithProject(t);
+            }
+        }
+        if (foundAmbassadors.isEmpty() && foundProjects.isEmpty() && foundTasks.isEmpty()) {
+            report.println("No matches for \"" + query.trim() + "\".");
+        }
+        report.flush();
+    }
+
+    // ===== Task Queries =====
+
+    private static void queryTasks(Scanner sc) {
+        System.out.println("Query, e.g. " + TaskQuery.EXAMPLE);
+        System.out.println("Fields: id, project, status, assignee, assignee.role, deadline."
+                + " Start with \"explain\" to see the plan instead.");
+        System.out.print("Query: ");
+        String text = sc.nextLine().trim();
+        boolean explain = text.regionMatches(true, 0, "explain ", 0, 8);
+        TaskQuery.Plan plan;
+        try {
+            plan = TaskQuery.parse(explain ? text.substring(8) : text).plan();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (explain) {
+            printPlan(plan);
+        } else {
+            browse(sc, queryPages(plan), METRIC_QUERY);
+        }
+    }
+
+    private static void printPlan(TaskQuery.Plan plan) {
+        for (String line : plan.explain()) {
+            report.println(line);
+        }
+        report.flush();
+    }
+
+    private static void printQueryResults(TaskQuery.Plan plan) {
+        TaskQuery.Result result = plan.execute();
+        for (int taskId : result.taskIds) {
+            appendWithProject(TaskIndex.findTaskById(taskId));
+        }
+        printQuerySummary(plan, result);
+        report.flush();
+    }
+
+    private static void printQuerySummary(TaskQuery.Plan plan, TaskQuery.Result result) {
+        report.println(result.taskIds.length + " task(s) matched; " + result.examined + " row(s) read by "
+                + plan.access() + ".");
+    }
+
+    // The query runs when the first page is written, so its time is in the metric; the cursor is a position.
+    static Pages queryPages(TaskQuery.Plan plan) {
+        return new Pages() {
+            private TaskQuery.Result result;
+
+            @Override
+            public int write(int cursor) {
+                if (result == null) {
+                    result = plan.execute();
+                }
+                int[] taskIds = result.taskIds;
+                int to = Math.min(cursor + PAGE_SIZE, taskIds.length);
+                for (int i = cursor; i < to; i++) {
+                    appendWithProject(TaskIndex.findTaskById(taskIds[i]));
+                }
+                if (to == taskIds.length) {
+                    printQuerySummary(plan, result);
+                }
+                report.flush();
+                return to < taskIds.length ? to : IdRegistry.END;
+            }
+
+            @Override
+            public int seek(int taskId) {
+                int at = Arrays.binarySearch(result.taskIds, taskId);
+                return at >= 0 ? at : IdRegistry.END;
+            }
+        };
+    }
+
+    // ===== Operation Metrics =====
+
+    // Runs a view or report under its metric; callers read any input first, so prompts are not timed.
+    private static void timed(OperationMetrics metric, Runnable view) {
+        long start = System.nanoTime();
+        try {
+            view.run();
+        } finally {
+            metric.record(start);
+        }
+    }
+
+    private static void publishMetrics() {
+        try {
+            OperationMetrics.registerMBeans();
+        } catch (JMException | RuntimeException e) {
+            System.out.println("Operation metrics are not available over JMX: " + e.getMessage());
+        }
+    }
+
+    private static void operationMetricsReport() {
+        report.println("Operation metrics (latency in microseconds):");
+        report.line().append(String.format(Locale.ROOT, "%-26s %9s %10s %10s %10s %10s", "Operation", "Count",
+                "Ops/s", "p50", "p99", "Max"));
+        report.endLine();
+        boolean any = false;
+        for (OperationMetrics m : OperationMetrics.all()) {
+            if (m.getCount() > 0) {
+                m.appendTo(report.line());
+                report.endLine();
+                any = true;
+            }
+        }
+        if (!any) {
+            report.println("No operations recorded yet.");
+        }
+        if (TaskTier.enabled()) {
+            TaskTier.appendStats(report.line());
+            report.endLine();
+        }
+        report.flush();
+    }
+}
@@ -0,0 +1,301 @@
+package tasktribe;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+
+/**
+ * Word-prefix search over one text field of many records, keyed by record ID. Text is folded
+ * to lower case without accents and split into words; each word, with a boundary mark before
+ * and after it, is cut into trigrams, and each trigram keeps an {@link IdBitmap} of the records
+ * containing it. Trigrams are coded over a 38-symbol alphabet, so the postings are one array
+ * slot per trigram rather than a dictionary of strings.
+ *
+ * <p>A query matches records where every query word starts some word of the text. The
+ * trigrams narrow that to candidates with a few bitmap ANDs, and the candidates are checked
+ * against the text itself, so only a handful are read for a selective query. Matches rank by
+ * how many query words are whole words of the text, then by ID; the scan stops as soon as no
+ * later candidate could make the top.
+ *
+ * <p>Safe for concurrent use: the postings are split into stripes by trigram, each with its
+ * own lock. A record being added or removed may be seen half-indexed by a search.
+ */
+final class TextIndex {
+    private static final int SYMBOLS = 38;
+    private static final int BOUNDARY = 0;
+    private static final int GRAMS = SYMBOLS * SYMBOLS * SYMBOLS;
+    private static final int STRIPES = 64;
+
+    // A query word that is a whole word of the text scores this; one that only starts a word scores 1.
+    private static final int WHOLE_WORD = 2;
+
+    private final IdBitmap[] postings = new IdBitmap[GRAMS];
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+
+    TextIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    void add(int id, String text) {
+        for (int gram : grams(text).toArray()) {
+            StampedLock lock = stripes[gram & (STRIPES - 1)];
+            long stamp = lock.writeLock();
+            try {
+                IdBitmap p = postings[gram];
+                if (p == null) {
+                    postings[gram] = p = new IdBitmap();
+                }
+                p.add(id);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /** Removes a record indexed with {@code text}. */
+    void remove(int id, String text) {
+        for (int gram : grams(text).toArray()) {
+            StampedLock lock = stripes[gram & (STRIPES - 1)];
+            long stamp = lock.writeLock();
+            try {
+                IdBitmap p = postings[gram];
+                if (p != null) {
+                    p.remove(id);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * IDs of the best {@code limit} matches for the query, best first. {@code texts} gives the
+     * current text of a record, or null if it is gone.
+     */
+    int[] search(String query, int limit, IntFunction<String> texts) {
+        String[] terms = words(query);
+        if (terms.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+        IdBitmap candidates = null;
+        IdBitmap wholeWords = null;
+        for (String term : terms) {
+            IdBitmap prefix = intersect(prefixGrams(term), candidates);
+            candidates = prefix;
+            wholeWords = intersect(new int[] {endGram(term)}, wholeWords == null ? prefix : wholeWords.and(prefix));
+        }
+        TopMatches top = new TopMatches(limit);
+        int best = terms.length * WHOLE_WORD;
+        // Likely whole-word matches first: if enough of them check out, nothing else can rank.
+        IdBitmap scored = new IdBitmap();
+        wholeWords.forEachWhile(id -> {
+            int score = score(texts.apply(id), terms);
+            if (score == best) {
+                top.offer(id, score);
+                scored.add(id);
+            }
+            return !top.isFull();
+        });
+        if (top.isFull()) {
+            return top.ids();
+        }
+        // Everything else scores below best, so in ID order the first full set of best - 1 wins.
+        candidates.andNot(scored).forEachWhile(id -> {
+            int score = score(texts.apply(id), terms);
+            if (score > 0) {
+                top.offer(id, score);
+            }
+            return !top.isFull() || top.lowestScore() < best - 1;
+        });
+        return top.ids();
+    }
+
+    /** The folded words of {@code text}: lower case, accents removed, split at anything but letters and digits. */
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = fold(text);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean inWord = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static String fold(String text) {
+        String s = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            // D with stroke is not a letter plus a mark, so NFD leaves it alone.
+            sb.append(c == '\u0111' || c == '\u0110' ? 'd' : c);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // The sum over query words of WHOLE_WORD for a whole-word match and 1 for a prefix, or 0
+    // if some query word starts no word of the text.
+    private static int score(String text, String[] terms) {
+        if (text == null) {
+            return 0;
+        }
+        String[] words = words(text);
+        int total = 0;
+        for (String term : terms) {
+            int best = 0;
+            for (String w : words) {
+                if (w.equals(term)) {
+                    best = WHOLE_WORD;
+                    break;
+                }
+                if (w.startsWith(term)) {
+                    best = 1;
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // ANDs the postings of the grams into {@code with} (null for no restriction), smallest first.
+    private IdBitmap intersect(int[] grams, IdBitmap with) {
+        long[] bySize = new long[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            bySize[i] = ((long) cardinality(grams[i]) << 32) | grams[i];
+        }
+        Arrays.sort(bySize);
+        IdBitmap result = with;
+        for (long entry : bySize) {
+            int gram = (int) entry;
+            if (result != null && result.isEmpty()) {
+                break;
+            }
+            StampedLock lock = stripes[gram & (STRIPES - 1)];
+            long stamp = lock.readLock();
+            try {
+                IdBitmap p = postings[gram];
+                if (p == null) {
+                    return new IdBitmap();
+                }
+                result = result == null ? p.copy() : result.and(p);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    private int cardinality(int gram) {
+        StampedLock lock = stripes[gram & (STRIPES - 1)];
+        long stamp = lock.readLock();
+        try {
+            IdBitmap p = postings[gram];
+            return p == null ? 0 : p.cardinality();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static IntHashSet grams(String text) {
+        IntHashSet grams = new IntHashSet(16);
+        for (String w : words(text)) {
+            for (int gram : prefixGrams(w)) {
+                grams.add(gram);
+            }
+            grams.add(endGram(w));
+        }
+        return grams;
+    }
+
+    // The trigrams of the word with two boundary marks before it; the first one holds only its first letter.
+    private static int[] prefixGrams(String word) {
+        int[] grams = new int[word.length()];
+        int a = BOUNDARY;
+        int b = BOUNDARY;
+        for (int i = 0; i < word.length(); i++) {
+            int c = symbol(word.charAt(i));
+            grams[i] = (a * SYMBOLS + b) * SYMBOLS + c;
+            a = b;
+            b = c;
+        }
+        return grams;
+    }
+
+    // The trigram that ends the word at its trailing boundary mark.
+    private static int endGram(String word) {
+        int n = word.length();
+        int a = n >= 2 ? symbol(word.charAt(n - 2)) : BOUNDARY;
+        return (a * SYMBOLS + symbol(word.charAt(n - 1))) * SYMBOLS + BOUNDARY;
+    }
+
+    // Letters a-z and digits have their own symbols; every other letter shares the last one.
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1 + c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 27 + c - '0';
+        }
+        return SYMBOLS - 1;
+    }
+
+    /** The best matches seen so far, by score and then ID. */
+    private static final class TopMatches {
+        private final int[] ids;
+        private final int[] scores;
+        private int size;
+
+        TopMatches(int limit) {
+            ids = new int[limit];
+            scores = new int[limit];
+        }
+
+        void offer(int id, int score) {
+            int i = size;
+            while (i > 0 && (scores[i - 1] < score || (scores[i - 1] == score && ids[i - 1] > id))) {
+                i--;
+            }
+            if (i == ids.length) {
+                return;
+            }
+            int last = Math.min(size, ids.length - 1);
+            System.arraycopy(ids, i, ids, i + 1, last - i);
+            System.arraycopy(scores, i, scores, i + 1, last - i);
+            ids[i] = id;
+            scores[i] = score;
+            size = Math.min(size + 1, ids.length);
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        int lowestScore() {
+            return scores[size - 1];
+        }
+
+        int[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package tasktribe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application-wide attendance and compliance index over the training programs. Each session
+ * keeps its attendees in an {@link IdBitmap} keyed by ambassador ID, and this index keeps the
+ * roster of active ambassadors alongside, so "who has missed a session" is the roster AND-NOT the
+ * intersection of the session bitmaps rather than a scan with a per-ambassador counter.
+ *
+ * <p>Each cohort also keeps, per session of its program, the bitmap of members who have not
+ * attended it, and a count of members who have attended them all. Both are updated as attendance
+ * is marked, so "who in cohort X is missing session k" costs the size of the answer and
+ * completion rates cost one step per cohort, whatever the size of the roster.
+ *
+ * <p>All training state in sessions, programs and cohorts is guarded by this class's lock.
+ * Training changes are rare next to task changes, and one lock keeps the cohort bitmaps in step
+ * with attendance without any lock ordering to get wrong.
+ */
+final class TrainingIndex {
+    private static final IdRegistry<TrainingSession> sessions = new IdRegistry<>();
+    // Everyone who ever attended, so participant lists still show deleted ambassadors.
+    private static final IdRegistry<Ambassador> attendees = new IdRegistry<>();
+    private static final IdBitmap roster = new IdBitmap();
+    private static final IntObjectMap<List<Cohort>> cohortsByAmbassador = new IntObjectMap<>();
+
+    private TrainingIndex() {
+    }
+
+    static synchronized void addSession(TrainingProgram p, TrainingSession s) {
+        s.program = p;
+        s.position = p.sessions.size();
+        p.sessions.add(s);
+        sessions.put(s.getId(), s);
+        ChangeFeed.sessionAdded(p, s, s.attendees);
+        for (Cohort c : p.cohorts) {
+            // Nobody has attended a new session yet unless its attendance was loaded first.
+            c.missing.add(c.members.andNot(s.attendees));
+            recountCompleted(c);
+        }
+    }
+
+    static synchronized void addCohort(Cohort c) {
+        TrainingProgram p = c.getProgram();
+        p.cohorts.add(c);
+        for (int k = 0; k < p.sessions.size(); k++) {
+            c.missing.add(new IdBitmap());
+        }
+    }
+
+    static synchronized List<TrainingSession> sessionsOf(TrainingProgram p) {
+        return new ArrayList<>(p.sessions);
+    }
+
+    static synchronized List<Cohort> cohortsOf(TrainingProgram p) {
+        return new ArrayList<>(p.cohorts);
+    }
+
+    /** The ambassador's cohort in the program, or null if they are not enrolled in it. */
+    static synchronized Cohort cohortOf(TrainingProgram p, int ambassadorId) {
+        List<Cohort> list = cohortsByAmbassador.get(ambassadorId);
+        if (list != null) {
+            for (Cohort c : list) {
+                if (c.getProgram() == p) {
+                    return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Enrolls the ambassador; returns false if already a member. */
+    static synchronized boolean join(Cohort c, int ambassadorId) {
+        if (c.members.contains(ambassadorId)) {
+            return false;
+        }
+        Cohort other = cohortOf(c.getProgram(), ambassadorId);
+        if (other != null) {
+            throw new IllegalArgumentException("Ambassador " + ambassadorId + " is already in cohort "
+                    + other.getId() + " of this program");
+        }
+        c.members.add(ambassadorId);
+        List<Cohort> list = cohortsByAmbassador.get(ambassadorId);
+        if (list == null) {
+            list = new ArrayList<>(2);
+            cohortsByAmbassador.put(ambassadorId, list);
+        }
+        list.add(c);
+        List<TrainingSession> programSessions = c.getProgram().sessions;
+        boolean complete = true;
+        for (int k = 0; k < programSessions.size(); k++) {
+            if (!programSessions.get(k).attendees.contains(ambassadorId)) {
+                c.missing.get(k).add(ambassadorId);
+                complete = false;
+            }
+        }
+        if (complete) {
+            c.completed++;
+        }
+        return true;
+    }
+
+    /** Marks the ambassador as attending; returns false if already marked. */
+    static synchronized boolean attend(TrainingSession s, Ambassador a) {
+        int id = a.getId();
+        if (!attendees.contains(id)) {
+            attendees.put(id, a);
+        }
+        if (!s.attendees.add(id)) {
+            return false;
+        }
+        ChangeFeed.attendanceMarked(s.program, s, id);
+        List<Cohort> list = cohortsByAmbassador.get(id);
+        if (list != null && s.program != null) {
+            for (Cohort c : list) {
+                if (c.getProgram() == s.program && c.missing.get(s.position).remove(id) && !isMissingAny(c, id)) {
+                    c.completed++;
+                }
+            }
+        }
+        return true;
+    }
+
+    static synchronized boolean hasAttended(TrainingSession s, int ambassadorId) {
+        return s.attendees.contains(ambassadorId);
+    }
+
+    static synchronized int participantCount(TrainingSession s) {
+        return s.attendees.cardinality();
+    }
+
+    /** A copy of the session's attendee IDs. */
+    static synchronized IdBitmap attendees(TrainingSession s) {
+        return s.attendees.copy();
+    }
+
+    /** The session's participants in ambassador ID order. */
+    static synchronized List<Ambassador> participants(TrainingSession s) {
+        List<Ambassador> list = new ArrayList<>(s.attendees.cardinality());
+        s.attendees.forEach(id -> list.add(attendees.get(id)));
+        return list;
+    }
+
+    static synchronized int sessionsAttendedBy(int ambassadorId) {
+        int n = 0;
+        for (TrainingSession s : sessions) {
+            if (s.attendees.contains(ambassadorId)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    static synchronized void enroll(int ambassadorId) {
+        roster.add(ambassadorId);
+    }
+
+    /** Takes a deleted ambassador off the roster and out of their cohorts. */
+    static synchronized void withdraw(int ambassadorId) {
+        roster.remove(ambassadorId);
+        List<Cohort> list = cohortsByAmbassador.remove(ambassadorId);
+        if (list == null) {
+            return;
+        }
+        for (Cohort c : list) {
+            if (!isMissingAny(c, ambassadorId)) {
+                c.completed--;
+            }
+            c.members.remove(ambassadorId);
+            for (IdBitmap m : c.missing) {
+                m.remove(ambassadorId);
+            }
+        }
+    }
+
+    /** IDs of active ambassadors who have not attended every session of the program, in ID order. */
+    static synchronized IdBitmap missingAnySession(TrainingProgram p) {
+        IdBitmap attendedAll = null;
+        for (TrainingSession s : p.sessions) {
+            attendedAll = attendedAll == null ? s.attendees : attendedAll.and(s.attendees);
+        }
+        return attendedAll == null ? new IdBitmap() : roster.andNot(attendedAll);
+    }
+
+    /** IDs of the cohort's members who have not attended the program's session at {@code position}. */
+    static synchronized IdBitmap missingSession(Cohort c, int position) {
+        return c.missing.get(position).copy();
+    }
+
+    /** Members of the cohort who attended every session of its program. */
+    static synchronized int completedCount(Cohort c) {
+        return c.completed;
+    }
+
+    /** A copy of the cohort's member IDs. */
+    static synchronized IdBitmap members(Cohort c) {
+        return c.members.copy();
+    }
+
+    static synchronized int memberCount(Cohort c) {
+        return c.members.cardinality();
+    }
+
+    private static boolean isMissingAny(Cohort c, int ambassadorId) {
+        for (IdBitmap m : c.missing) {
+            if (m.contains(ambassadorId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void recountCompleted(Cohort c) {
+        IdBitmap incomplete = new IdBitmap();
+        for (IdBitmap m : c.missing) {
+            incomplete.addAll(m);
+        }
+        c.completed = c.members.cardinality() - incomplete.cardinality();
+    }
+}
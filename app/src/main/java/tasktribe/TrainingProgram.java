@@ -0,0 +1,49 @@
+package tasktribe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TrainingProgram {
+    private final int id;
+    private final String name;
+    // Guarded by TrainingIndex, in program order.
+    final List<TrainingSession> sessions = new ArrayList<>();
+    final List<Cohort> cohorts = new ArrayList<>();
+
+    public TrainingProgram(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<TrainingSession> getSessions() {
+        return TrainingIndex.sessionsOf(this);
+    }
+
+    public int getSessionCount() {
+        return getSessions().size();
+    }
+
+    public List<Cohort> getCohorts() {
+        return TrainingIndex.cohortsOf(this);
+    }
+
+    void appendTo(StringBuilder sb) {
+        sb.append("Program ").append(id).append(" - ").append(name).append(", Sessions: ").append(getSessionCount())
+                .append(", Cohorts: ").append(getCohorts().size());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(64);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package tasktribe;
+
+import java.util.List;
+
+class TrainingSession {
+    private final int id;
+    private final String date;
+    private final String topic;
+    // Guarded by TrainingIndex. Attending ambassador IDs, and the session's place in its program.
+    final IdBitmap attendees = new IdBitmap();
+    TrainingProgram program;
+    int position;
+
+    public TrainingSession(int id, String date, String topic) {
+        this.id = id;
+        this.date = date;
+        this.topic = topic;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public TrainingProgram getProgram() {
+        return program;
+    }
+
+    /** The participants in ambassador ID order. */
+    public List<Ambassador> getParticipants() {
+        return TrainingIndex.participants(this);
+    }
+
+    public int getParticipantCount() {
+        return TrainingIndex.participantCount(this);
+    }
+
+    public boolean hasParticipated(Ambassador a) {
+        return TrainingIndex.hasAttended(this, a.getId());
+    }
+
+    /** Returns false if the ambassador was already marked as attending. */
+    public boolean addParticipant(Ambassador a) {
+        return TrainingIndex.attend(this, a);
+    }
+
+    /** A copy of the attendee IDs. */
+    IdBitmap attendees() {
+        return TrainingIndex.attendees(this);
+    }
+
+    void appendTo(StringBuilder sb) {
+        sb.append("Session ").append(id).append(" - Date: ").append(date).append(", Topic: ").append(topic)
+                .append(", Number of participants: ").append(getParticipantCount());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(96);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
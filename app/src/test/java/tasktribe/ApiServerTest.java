@@ -0,0 +1,234 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The HTTP API on a real socket: creating, reading and updating through it, lists long enough
+ * to be streamed in several chunks, cursor paging, and the 400, 404 and 405 answers. Every
+ * response body is read back with the same flat-object parser the server uses for requests.
+ */
+class ApiServerTest {
+    private static final Pattern OBJECT = Pattern.compile("\\{[^{}]*\\}");
+
+    private static ApiServer.Model model;
+    private static ApiServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        model = TaskTribeApp.startInMemory();
+        server = new ApiServer(model, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(() -> { });
+    }
+
+    @Test
+    void createsReadsAndUpdatesThroughTheApi() throws Exception {
+        HttpResponse<String> created = send("POST", "/api/ambassadors",
+                "{\"name\": \"Api Zoë\", \"role\": \"Mentor\"}");
+        assertEquals(201, created.statusCode());
+        Map<String, String> ann = Json.parseFlatObject(created.body());
+        String annId = ann.get("id");
+        assertEquals("Api Zoë", ann.get("name"));
+        assertEquals("Api Zoë", model.ambassador(Integer.parseInt(annId)).getName());
+
+        Map<String, String> edited = ok("PUT", "/api/ambassadors/" + annId,
+                "{\"name\": \"Api Ann\", \"role\": \"Lead\"}");
+        assertEquals("Api Ann", edited.get("name"));
+        assertEquals("Lead", get("/api/ambassadors/" + annId).get("role"));
+
+        Map<String, String> project = Json.parseFlatObject(
+                send("POST", "/api/projects", "{\"name\": \"Api project\"}").body());
+        String projectId = project.get("id");
+        assertEquals("0", project.get("taskCount"));
+
+        HttpResponse<String> added = send("POST", "/api/projects/" + projectId + "/tasks",
+                "{\"name\": \"Api task\", \"deadline\": \"2026-07-01\", \"assigneeId\": " + annId + "}");
+        assertEquals(201, added.statusCode());
+        Map<String, String> task = Json.parseFlatObject(added.body());
+        String taskPath = "/api/tasks/" + task.get("id");
+        assertEquals(projectId, task.get("projectId"));
+        assertEquals(annId, task.get("assigneeId"));
+        assertEquals(TaskStatus.label(TaskStatus.NOT_STARTED), task.get("status"));
+
+        Map<String, String> patched = ok("PATCH", taskPath, "{\"status\": \"Completed\"}");
+        assertEquals(TaskStatus.label(TaskStatus.COMPLETED), patched.get("status"));
+        assertEquals(annId, patched.get("assigneeId"));
+        patched = ok("PATCH", taskPath, "{\"assigneeId\": null}");
+        assertNull(patched.get("assigneeId"));
+        assertEquals(TaskStatus.label(TaskStatus.COMPLETED), get(taskPath).get("status"));
+        assertEquals("1", get("/api/projects/" + projectId).get("taskCount"));
+
+        ok("PATCH", taskPath, "{\"status\": \"In Progress\", \"assigneeId\": " + annId + "}");
+        List<Map<String, String>> annTasks = list("/api/ambassadors/" + annId + "/tasks");
+        assertEquals(1, annTasks.size());
+        assertEquals(TaskStatus.label(TaskStatus.IN_PROGRESS), annTasks.get(0).get("status"));
+
+        TrainingSession session = TaskTribeApp.addProgramSession(
+                TaskTribeApp.createProgram("Api program"), "2026-07-02", "Api session");
+        String bob = Json.parseFlatObject(
+                send("POST", "/api/ambassadors", "{\"name\": \"Api Bob\", \"role\": \"Mentor\"}").body()).get("id");
+        String participants = "/api/sessions/" + session.getId() + "/participants";
+        String sheet = "{\"ambassadorIds\": [" + annId + ", " + bob + "]}";
+        assertEquals("2", ok("POST", participants, sheet).get("recorded"));
+        assertEquals("false", ok("POST", participants, "{\"ambassadorId\": " + bob + "}").get("recorded"));
+        assertEquals(List.of(annId, bob), ids(list(participants)));
+        assertEquals("1", get("/api/ambassadors/" + bob).get("trainingSessionsAttended"));
+
+        assertEquals(204, send("DELETE", "/api/ambassadors/" + bob, null).statusCode());
+        assertEquals(404, send("GET", "/api/ambassadors/" + bob, null).statusCode());
+    }
+
+    @Test
+    void streamsListsLongerThanOneChunk() throws Exception {
+        Project p = model.createProject("Api streamed project");
+        Ambassador a = model.addAmbassador("Api streamer", "Mentor");
+        String padding = "x".repeat(80);
+        int count = 800;
+        for (int i = 0; i < count; i++) {
+            model.addTask(p, "Api streamed task " + i + " " + padding, "2026-08-01", i % 2 == 0 ? a : null);
+        }
+
+        HttpResponse<String> response = send("GET", "/api/projects/" + p.getId() + "/tasks", null);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().length() > 2 * (1 << 15), response.body().length() + " characters");
+        // Sent as it is rendered, so the length is not known up front.
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty(), response.headers().toString());
+        List<Map<String, String>> tasks = objects(response.body());
+        assertEquals(count, tasks.size());
+        for (int i = 0; i < count; i++) {
+            Task t = p.getTaskList().get(i);
+            assertEquals(Integer.toString(t.getId()), tasks.get(i).get("id"));
+            assertEquals(t.getName(), tasks.get(i).get("name"));
+        }
+        assertEquals(count / 2, list("/api/ambassadors/" + a.getId() + "/tasks").size());
+
+        List<String> expected = new ArrayList<>();
+        for (Ambassador each : model.ambassadors()) {
+            expected.add(Integer.toString(each.getId()));
+        }
+        expected.sort((x, y) -> Integer.compare(Integer.parseInt(x), Integer.parseInt(y)));
+        assertEquals(expected, ids(list("/api/ambassadors")));
+    }
+
+    @Test
+    void pagesListsByCursor() throws Exception {
+        List<String> made = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            made.add(Integer.toString(model.createProject("Api paged project " + i).getId()));
+        }
+        String after = Integer.toString(Integer.parseInt(made.get(0)) - 1);
+        List<String> seen = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            List<String> ids = ids(list("/api/projects?after=" + after + "&limit=2"));
+            assertTrue(ids.size() <= 2, ids::toString);
+            seen.addAll(ids);
+            after = ids.get(ids.size() - 1);
+        }
+        assertEquals(made, seen.subList(0, 5));
+        assertEquals(List.of(), list("/api/projects?after=" + made.get(4) + "&limit=2"));
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        String annId = Integer.toString(model.addAmbassador("Api errors", "Mentor").getId());
+        String taskId = Integer.toString(model.addTask(model.createProject("Api errors project"), "Api errors task",
+                "2026-09-01", null).getId());
+
+        assertError(400, "Missing field: role", send("POST", "/api/ambassadors", "{\"name\": \"No role\"}"));
+        assertError(400, "Unknown status: Done", send("PATCH", "/api/tasks/" + taskId, "{\"status\": \"Done\"}"));
+        assertEquals(400, send("POST", "/api/projects", "{\"name\": ").statusCode());
+        assertError(400, "limit must be between 1 and " + Integer.MAX_VALUE,
+                send("GET", "/api/projects?limit=0", null));
+        assertEquals(400, send("GET", "/api/ambassadors?after=soon", null).statusCode());
+        assertError(400, "Missing query parameter: q", send("GET", "/api/search", null));
+
+        assertError(404, "Ambassador not found: 999999999", send("GET", "/api/ambassadors/999999999", null));
+        assertError(404, "Not an ID: abc", send("GET", "/api/tasks/abc", null));
+        assertError(404, "Task not found: 999999999",
+                send("PATCH", "/api/tasks/999999999", "{\"status\": \"Completed\"}"));
+        assertError(404, "Ambassador not found: 999999999",
+                send("PATCH", "/api/tasks/" + taskId, "{\"assigneeId\": 999999999}"));
+        assertError(404, "No such resource: /api/widgets", send("GET", "/api/widgets", null));
+        assertError(404, "No such resource: /api/ambassadors/" + annId + "/projects",
+                send("GET", "/api/ambassadors/" + annId + "/projects", null));
+        assertError(404, "Training session not found: 999999999",
+                send("GET", "/api/sessions/999999999/participants", null));
+        assertError(405, "Method not allowed: DELETE", send("DELETE", "/api/projects", null));
+
+        // Nothing above changed the task.
+        Task t = TaskIndex.findTaskById(Integer.parseInt(taskId));
+        assertEquals(TaskStatus.NOT_STARTED, t.getStatusCode());
+        assertNull(t.getAssignee());
+    }
+
+    private static HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path));
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Map<String, String> ok(String method, String path, String body) throws Exception {
+        HttpResponse<String> response = send(method, path, body);
+        assertEquals(200, response.statusCode(), response::body);
+        return Json.parseFlatObject(response.body());
+    }
+
+    private static Map<String, String> get(String path) throws Exception {
+        return ok("GET", path, null);
+    }
+
+    private static List<Map<String, String>> list(String path) throws Exception {
+        HttpResponse<String> response = send("GET", path, null);
+        assertEquals(200, response.statusCode(), response::body);
+        assertTrue(response.body().startsWith("[") && response.body().endsWith("]"), response::body);
+        return objects(response.body());
+    }
+
+    // The objects of a JSON array of flat objects, in order.
+    private static List<Map<String, String>> objects(String array) {
+        List<Map<String, String>> result = new ArrayList<>();
+        Matcher m = OBJECT.matcher(array);
+        while (m.find()) {
+            result.add(Json.parseFlatObject(m.group()));
+        }
+        return result;
+    }
+
+    private static List<String> ids(List<Map<String, String>> objects) {
+        List<String> ids = new ArrayList<>();
+        for (Map<String, String> o : objects) {
+            ids.add(o.get("id"));
+        }
+        return ids;
+    }
+
+    private static void assertError(int status, String message, HttpResponse<String> response) {
+        assertEquals(status, response.statusCode(), response::body);
+        assertEquals(message, Json.parseFlatObject(response.body()).get("error"));
+    }
+}
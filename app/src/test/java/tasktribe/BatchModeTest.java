@@ -0,0 +1,209 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Batch mode as a user runs it, in a JVM of its own: what it prints, how failed commands are
+ * reported and reflected in the exit code, and what a later run finds in the data directory,
+ * including after the process is killed once the batch has reported.
+ */
+class BatchModeTest {
+    private static final Pattern EXECUTED =
+            Pattern.compile("Executed (\\d+) commands \\((\\d+) failed\\) in \\d+ ms\\.");
+    private static final Pattern MATCHED = Pattern.compile("(\\d+) task\\(s\\) matched");
+
+    private static final String SETUP = String.join("\n",
+            "# Two ambassadors, one project, three tasks",
+            "add-ambassador \"Batch Ann\" Mentor",
+            "add-ambassador \"Batch Bob\" \"Content Creator\"",
+            "add-project \"Batch launch\"",
+            "add-task 1 \"Write post\" 2026-05-01 1",
+            "add-task 1 \"Film \"\"the\"\" video\" 2026-05-02 2",
+            "add-task 1 \"Plan event\" 2026-05-03",
+            "",
+            "set-status 1 Completed",
+            "set-status 2 InProgress",
+            "assign 3 2",
+            "");
+    private static final String QUERY =
+            "query tasks where status = InProgress and assignee.role = \"Content Creator\"\n";
+    private static final String QUERY_RESULT =
+            "[Batch launch] Task ID: 2, Name: Film \"the\" video, Deadline: 2026-05-02, Status: In Progress, "
+            + "Assignee: Batch Bob";
+
+    @TempDir
+    Path dir;
+
+    /** Exit code and output of one run. */
+    private static final class Run {
+        final int exitCode;
+        final List<String> out;
+        final List<String> err;
+
+        Run(int exitCode, List<String> out, List<String> err) {
+            this.exitCode = exitCode;
+            this.out = out;
+            this.err = err;
+        }
+
+        // The last line reports how many commands ran and failed; the time varies, so it is checked apart.
+        List<String> outBeforeSummary(int executed, int failed) {
+            Matcher m = EXECUTED.matcher(out.get(out.size() - 1));
+            assertTrue(m.matches(), out::toString);
+            assertEquals(executed, Integer.parseInt(m.group(1)));
+            assertEquals(failed, Integer.parseInt(m.group(2)));
+            return out.subList(0, out.size() - 1);
+        }
+    }
+
+    @Test
+    void printsResultsAndReportsFailuresByLine() throws Exception {
+        String script = SETUP
+                + "set-status 2 Sideways\n"
+                + "add-task 99 \"Orphan\" 2026-05-04\n"
+                + "delete-ambassador 7\n"
+                + "frobnicate\n"
+                + "add-task 1 \"Unclosed\n"
+                + "add-task 1 \"Too\" many \"arguments\" 1 2\n"
+                + QUERY;
+        Run run = run(script(script), "--in-memory");
+
+        assertEquals(1, run.exitCode);
+        assertEquals(List.of("ambassador 1", "ambassador 2", "project 1", "task 1", "task 2", "task 3",
+                QUERY_RESULT, "1 task(s) matched; 3 row(s) read by status counters."), run.outBeforeSummary(16, 6));
+        assertEquals(List.of(
+                "Line 12: Unknown status: Sideways",
+                "Line 13: Project not found: 99",
+                "Line 14: Ambassador not found: 7",
+                "Line 15: Unknown command: frobnicate",
+                "Line 16: Unterminated quote",
+                "Line 17: Usage: add-task <pid> <name> <deadline> [<aid>]"), run.err);
+    }
+
+    @Test
+    void aCleanBatchExitsZeroAndItsChangesSurviveARestart() throws Exception {
+        Path data = dir.resolve("data");
+        Run first = run(script(SETUP), "--data-dir", data.toString());
+        assertEquals(0, first.exitCode, first.err::toString);
+        assertEquals(List.of(), first.err);
+        assertEquals(List.of("ambassador 1", "ambassador 2", "project 1", "task 1", "task 2", "task 3"),
+                first.outBeforeSummary(9, 0));
+
+        Run second = run(script("edit-ambassador 2 \"Batch Bea\" \"Content Creator\"\n" + QUERY
+                + "query tasks where status = Completed and assignee = 1\n"), "--data-dir", data.toString());
+        assertEquals(0, second.exitCode, second.err::toString);
+        assertEquals(List.of("Loaded data from " + data + " (2 ambassadors, 1 projects, 3 tasks).",
+                QUERY_RESULT.replace("Batch Bob", "Batch Bea"),
+                "1 task(s) matched; 3 row(s) read by status counters.",
+                "[Batch launch] Task ID: 1, Name: Write post, Deadline: 2026-05-01, Status: Completed, "
+                        + "Assignee: Batch Ann",
+                "1 task(s) matched; 3 row(s) read by status counters."), second.outBeforeSummary(3, 0));
+
+        Run third = run(script(QUERY), "--data-dir", data.toString());
+        assertTrue(third.out.contains(QUERY_RESULT.replace("Batch Bob", "Batch Bea")), third.out::toString);
+    }
+
+    @Test
+    void aMissingScriptFails() throws Exception {
+        Run run = run(dir.resolve("no-such-script.txt"), "--in-memory");
+        assertEquals(1, run.exitCode);
+        assertEquals(1, run.err.size());
+        assertTrue(run.err.get(0).startsWith("Batch stopped: "), run.err::toString);
+        run.outBeforeSummary(0, 1);
+    }
+
+    // Journal writes in a batch are pipelined; every one must be in the journal by the time it
+    // reports. A killed process keeps what it wrote, so this covers the replay, not the fsync.
+    @Test
+    void writesAreDurableOnceTheBatchReports() throws Exception {
+        int tasks = 3000;
+        StringBuilder script = new StringBuilder("add-ambassador \"Batch Ann\" Mentor\n")
+                .append("add-project \"Batch bulk\"\n");
+        for (int i = 0; i < tasks; i++) {
+            script.append("add-task 1 \"Bulk task ").append(i).append("\" 2026-06-01 1\n");
+        }
+        int completed = 0;
+        for (int id = 1; id <= tasks; id += 2) {
+            script.append("set-status ").append(id).append(" Completed\n");
+            completed++;
+        }
+        Path data = dir.resolve("data");
+        Process p = start(script(script.toString()), true, "--data-dir", data.toString(), "--batch", "-");
+        try (BufferedReader out =
+                new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null && !line.startsWith("Executed ")) {
+                // Skip the IDs of what was added.
+            }
+            assertTrue(line != null && EXECUTED.matcher(line).matches(), String.valueOf(line));
+        }
+        // Killed before the closing snapshot is written, as a rule, so recovery replays the journal.
+        p.destroyForcibly();
+        assertTrue(p.waitFor(60, TimeUnit.SECONDS));
+
+        Run recovered = run(script("query tasks where status = Completed and assignee = 1\n"
+                + "query tasks where status = \"Not Started\"\n"), "--data-dir", data.toString());
+        assertEquals(0, recovered.exitCode, recovered.err::toString);
+        assertEquals("Loaded data from " + data + " (1 ambassadors, 1 projects, " + tasks + " tasks).",
+                recovered.out.get(0));
+        List<Integer> matched = new ArrayList<>();
+        for (String line : recovered.out) {
+            Matcher m = MATCHED.matcher(line);
+            if (m.lookingAt()) {
+                matched.add(Integer.parseInt(m.group(1)));
+            }
+        }
+        assertEquals(List.of(completed, tasks - completed), matched);
+    }
+
+    private Path script(String text) throws IOException {
+        Path file = Files.createTempFile(dir, "batch", ".txt");
+        Files.writeString(file, text);
+        return file;
+    }
+
+    private Run run(Path script, String... options) throws Exception {
+        List<String> args = new ArrayList<>(List.of(options));
+        args.add("--batch");
+        args.add(script.toString());
+        Process p = start(null, false, args.toArray(new String[0]));
+        assertTrue(p.waitFor(60, TimeUnit.SECONDS), "batch did not finish");
+        return new Run(p.exitValue(), Files.readAllLines(dir.resolve("out.txt")),
+                Files.readAllLines(dir.resolve("err.txt")));
+    }
+
+    // Runs the app on the classes under test; stdin comes from {@code input} if given, and output
+    // goes to out.txt and err.txt unless {@code pipeOut} asks for stdout to be read as it comes.
+    private Process start(Path input, boolean pipeOut, String... options) throws Exception {
+        Path classes = Paths.get(TaskTribeApp.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> command = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", classes.toString(), TaskTribeApp.class.getName()));
+        command.addAll(List.of(options));
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (input != null) {
+            pb.redirectInput(input.toFile());
+        }
+        if (!pipeOut) {
+            pb.redirectOutput(dir.resolve("out.txt").toFile());
+        }
+        pb.redirectError(dir.resolve("err.txt").toFile());
+        return pb.start();
+    }
+}
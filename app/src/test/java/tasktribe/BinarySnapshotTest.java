@@ -0,0 +1,184 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A snapshot read back gives the state it was written from, including a project whose columns
+ * were spilled to the {@link TaskTier} and are copied into the snapshot from the spill file.
+ */
+class BinarySnapshotTest {
+    @TempDir
+    Path dir;
+
+    /** Everything a snapshot load hands over, as text in load order, and each project's columns. */
+    private static final class RecordingLoader implements BinarySnapshot.Loader {
+        final List<String> counters = new ArrayList<>();
+        final List<String> programs = new ArrayList<>();
+        final List<String> sessions = new ArrayList<>();
+        final List<String> ambassadors = new ArrayList<>();
+        final List<String> cohorts = new ArrayList<>();
+        final Map<Integer, String> projectNames = new TreeMap<>();
+        final Map<Integer, List<String>> projectTasks = new TreeMap<>();
+        final List<String> attendance = new ArrayList<>();
+
+        @Override
+        public void counters(int ambassadorIdCounter, int projectIdCounter, int taskIdCounter) {
+            counters.add(ambassadorIdCounter + " " + projectIdCounter + " " + taskIdCounter);
+        }
+
+        @Override
+        public void program(int id, String name) {
+            programs.add(id + " " + name);
+        }
+
+        @Override
+        public void session(int id, String date, String topic, int programId) {
+            sessions.add(id + " " + date + " " + topic + " " + programId);
+        }
+
+        @Override
+        public void ambassador(int id, String name, String role, boolean deleted) {
+            ambassadors.add(id + " " + name + " " + role + (deleted ? " deleted" : ""));
+        }
+
+        @Override
+        public void cohort(int id, int programId, String name, int[] members) {
+            cohorts.add(id + " " + programId + " " + name + " " + Arrays.toString(members));
+        }
+
+        @Override
+        public void project(int id, String name, ColumnarTaskStore tasks) {
+            projectNames.put(id, name);
+            projectTasks.put(id, rows(tasks));
+        }
+
+        @Override
+        public void attend(int sessionId, int ambassadorId) {
+            attendance.add(sessionId + " " + ambassadorId);
+        }
+    }
+
+    @Test
+    void roundTripsAPopulatedState() throws IOException {
+        ApiServer.Model model = TaskTribeApp.startInMemory();
+        Ambassador ann = model.addAmbassador("Snapshot Zoë", "Mentor, \"lead\"");
+        Ambassador bob = model.addAmbassador("Snapshot Bob", "Content Creator");
+        Ambassador former = new Ambassador(ann.getId() + 1000, "Snapshot former", "Mentor");
+        TrainingProgram program = TaskTribeApp.createProgram("Snapshot program");
+        TrainingSession kickoff = TaskTribeApp.addProgramSession(program, "2026-03-01", "Kickoff\twith tab");
+        TrainingSession review = TaskTribeApp.addProgramSession(program, "2026-04-01", "Review");
+        Cohort cohort = TaskTribeApp.createCohort(program, "Spring");
+        TaskTribeApp.joinCohort(cohort, List.of(bob, ann));
+        TaskTribeApp.markAttendance(kickoff, ann);
+        TaskTribeApp.markAttendance(review, ann);
+        TaskTribeApp.markAttendance(review, bob);
+
+        ColumnarTaskStore hotTasks = tasks(1_000_000, 300, ann.getId());
+        ColumnarTaskStore coldTasks = tasks(2_000_000, 5000, bob.getId());
+        List<String> hotRows = rows(hotTasks);
+        List<String> coldRows = rows(coldTasks);
+        Path file = dir.resolve(BinarySnapshot.FILE);
+        TaskTier.enable(dir.resolve("tasks"), Long.MAX_VALUE, OperationMetrics.register("snapshotTestPageIn"));
+        try {
+            Project hot = new Project(900_001, "Hot project", hotTasks);
+            Project cold = new Project(900_002, "Cold project", coldTasks);
+            assertEquals(5000, cold.tryEvict());
+            assertNull(cold.getStore());
+
+            BinarySnapshot.write(file, 42, new BinarySnapshot.State() {
+                @Override
+                public int[] counters() {
+                    return new int[] {11, 22, 33};
+                }
+
+                @Override
+                public Iterable<TrainingProgram> programs() {
+                    return List.of(program);
+                }
+
+                @Override
+                public Iterable<TrainingSession> sessions() {
+                    return List.of(kickoff, review);
+                }
+
+                @Override
+                public Iterable<Ambassador> ambassadors() {
+                    return List.of(ann, bob);
+                }
+
+                @Override
+                public Iterable<Cohort> cohorts() {
+                    return List.of(cohort);
+                }
+
+                @Override
+                public Iterable<Ambassador> formerAmbassadors() {
+                    return List.of(former);
+                }
+
+                @Override
+                public Iterable<Project> projects() {
+                    return List.of(hot, cold);
+                }
+            });
+            assertNull(cold.getStore(), "writing the snapshot paged the spilled project in");
+        } finally {
+            TaskTier.reset();
+        }
+
+        RecordingLoader loaded = new RecordingLoader();
+        assertEquals(42, BinarySnapshot.load(file, loaded));
+        assertEquals(List.of("11 22 33"), loaded.counters);
+        assertEquals(List.of(program.getId() + " Snapshot program"), loaded.programs);
+        assertEquals(List.of(
+                kickoff.getId() + " 2026-03-01 Kickoff\twith tab " + program.getId(),
+                review.getId() + " 2026-04-01 Review " + program.getId()), loaded.sessions);
+        assertEquals(List.of(
+                ann.getId() + " Snapshot Zoë Mentor, \"lead\"",
+                bob.getId() + " Snapshot Bob Content Creator",
+                former.getId() + " Snapshot former Mentor deleted"), loaded.ambassadors);
+        assertEquals(List.of(cohort.getId() + " " + program.getId() + " Spring ["
+                + ann.getId() + ", " + bob.getId() + "]"), loaded.cohorts);
+        assertEquals(Map.of(900_001, "Hot project", 900_002, "Cold project"), loaded.projectNames);
+        assertEquals(hotRows, loaded.projectTasks.get(900_001));
+        assertEquals(coldRows, loaded.projectTasks.get(900_002));
+        List<String> attendance = new ArrayList<>(loaded.attendance);
+        attendance.sort(null);
+        List<String> expected = new ArrayList<>(List.of(kickoff.getId() + " " + ann.getId(),
+                review.getId() + " " + ann.getId(), review.getId() + " " + bob.getId()));
+        expected.sort(null);
+        assertEquals(expected, attendance);
+    }
+
+    // Names repeat and deadlines mix dated, undated and unparseable text, so both string pools are exercised.
+    private static ColumnarTaskStore tasks(int firstId, int count, int assigneeId) {
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        for (int i = 0; i < count; i++) {
+            String deadline = i % 7 == 0 ? "" : i % 11 == 0 ? "someday" : "2026-" + (1 + i % 12 < 10 ? "0" : "")
+                    + (1 + i % 12) + "-15";
+            store.append(firstId + i, "Task " + (i % 50) + (i % 3 == 0 ? " ünïcode" : ""), deadline,
+                    i % 4 == 0 ? ColumnarTaskStore.NO_ASSIGNEE : assigneeId, i % (TaskStatus.COMPLETED + 1));
+        }
+        return store;
+    }
+
+    private static List<String> rows(ColumnarTaskStore store) {
+        List<String> rows = new ArrayList<>(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            rows.add(store.id(row) + "|" + store.name(row) + "|" + store.deadline(row) + "|" + store.deadlineDay(row)
+                    + "|" + store.assigneeId(row) + "|" + TaskStatus.label(store.status(row)));
+        }
+        return rows;
+    }
+}
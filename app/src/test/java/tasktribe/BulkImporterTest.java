@@ -0,0 +1,168 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Imports with malformed rows, unknown references and rows that fail after their IDs were
+ * reserved. Errors are reported in line order, whichever stage found them.
+ */
+class BulkImporterTest {
+    /** Existing ambassador and project 1; reserves IDs from 100, 200 and 300; records applied rows. */
+    private static final class RecordingTarget implements BulkImporter.Target {
+        private int nextAmbassador = 100;
+        private int nextProject = 200;
+        private int nextTask = 300;
+        final List<String> applied = new ArrayList<>();
+        boolean finished;
+
+        @Override
+        public int reserveAmbassadorIds(int count) {
+            nextAmbassador += count;
+            return nextAmbassador - count;
+        }
+
+        @Override
+        public int reserveProjectIds(int count) {
+            nextProject += count;
+            return nextProject - count;
+        }
+
+        @Override
+        public int reserveTaskIds(int count) {
+            nextTask += count;
+            return nextTask - count;
+        }
+
+        @Override
+        public boolean hasAmbassador(int id) {
+            return id == 1;
+        }
+
+        @Override
+        public boolean hasProject(int id) {
+            return id == 1;
+        }
+
+        @Override
+        public void apply(BulkImporter.Row[] rows, int count) {
+            for (int i = 0; i < count; i++) {
+                BulkImporter.Row r = rows[i];
+                switch (r.type) {
+                    case BulkImporter.AMBASSADOR:
+                        applied.add("ambassador " + r.id + " " + r.name);
+                        break;
+                    case BulkImporter.PROJECT:
+                        applied.add("project " + r.id + " " + r.name);
+                        break;
+                    default:
+                        applied.add("task " + r.id + " " + r.name + " in " + r.projectId + " for " + r.assigneeId
+                                + " " + TaskStatus.label(r.statusCode));
+                }
+            }
+        }
+
+        @Override
+        public void finish() {
+            finished = true;
+        }
+    }
+
+    @Test
+    void csvErrorsAreReportedInLineOrder() throws IOException {
+        String csv = "type,key,name,role,project,deadline,assignee,status\n"
+                + "ambassador,ann,Ann,Mentor,,,,\n"
+                + "project,p1,Launch,,,,,\n"
+                + "task,,Write docs,,p1,2026-05-01,ann,Completed\n"
+                + "task,,Bad assignee,,p1,,bob,\n"
+                + "task,,Too,many,fields,,,,,\n"
+                + "task,,Existing,,#1,,#1,\n"
+                + "task,,Missing project,,#999,,,\n"
+                + "ambassador,ann,Ann again,Mentor,,,,\n"
+                + "bogus,,Nothing,,,,,\n"
+                + "\"task\",,\"Quoted, with comma\",,p1,,,InProgress\n";
+        RecordingTarget target = new RecordingTarget();
+        BulkImporter.Result r = run(csv, BulkImporter.Format.CSV, target);
+
+        assertEquals(10, r.rows);
+        assertEquals(1, r.ambassadors);
+        assertEquals(1, r.projects);
+        assertEquals(3, r.tasks);
+        assertEquals(5, r.errors);
+        assertEquals(List.of(
+                "Line 5: Unknown ambassador 'bob'",
+                "Line 6: Expected 8 fields but found 10",
+                "Line 8: Unknown project '#999'",
+                "Line 9: Duplicate ambassador key 'ann'",
+                "Line 10: Unknown type 'bogus'"), r.errorSamples);
+        // IDs are reserved per batch before validation, so failed rows leave gaps.
+        assertEquals(List.of(
+                "ambassador 100 Ann",
+                "project 200 Launch",
+                "task 300 Write docs in 200 for 100 Completed",
+                "task 302 Existing in 1 for 1 Not Started",
+                "task 304 Quoted, with comma in 200 for 0 In Progress"), target.applied);
+        assertTrue(target.finished);
+    }
+
+    @Test
+    void ndjsonErrorsAreReportedInLineOrder() throws IOException {
+        String ndjson = "{\"type\": \"ambassador\", \"key\": \"a\", \"name\": \"Ann\", \"role\": \"Mentor\"}\n"
+                + "{\"type\": \"project\", \"key\": \"p\", \"name\": \"P\"}\n"
+                + "{\"type\": \"task\", \"name\": \"T1\", \"project\": \"p\", \"assignee\": \"zed\"}\n"
+                + "{\"type\": \"task\", \"name\": \"T2\", \"project\": \"p\"\n"
+                + "\n"
+                + "{\"type\": \"task\", \"name\": \"T3\", \"project\": \"p\", \"assignee\": \"a\","
+                + " \"status\": \"Completed\"}\n"
+                + "{\"name\": \"No type\"}\n"
+                + "{\"type\": \"task\", \"name\": \"T4\", \"project\": \"#1\", \"status\": \"Nope\"}\n"
+                + "{\"type\": \"task\", \"name\": \"T5\", \"project\": \"#1\", \"assignee\": \"#1\"}\n";
+        RecordingTarget target = new RecordingTarget();
+        BulkImporter.Result r = run(ndjson, BulkImporter.Format.NDJSON, target);
+
+        assertEquals(8, r.rows);
+        assertEquals(1, r.ambassadors);
+        assertEquals(1, r.projects);
+        assertEquals(2, r.tasks);
+        assertEquals(4, r.errors);
+        assertEquals(4, r.errorSamples.size());
+        assertEquals("Line 3: Unknown ambassador 'zed'", r.errorSamples.get(0));
+        assertTrue(r.errorSamples.get(1).startsWith("Line 4: "), r.errorSamples.get(1));
+        assertEquals("Line 7: Missing type", r.errorSamples.get(2));
+        assertEquals("Line 8: Unknown status 'Nope'", r.errorSamples.get(3));
+        assertEquals(List.of(
+                "ambassador 100 Ann",
+                "project 200 P",
+                "task 301 T3 in 200 for 100 Completed",
+                "task 303 T5 in 1 for 1 Not Started"), target.applied);
+    }
+
+    @Test
+    void errorSamplesAreCappedButAllCounted() throws IOException {
+        StringBuilder csv = new StringBuilder("type,name,project\n");
+        int rows = BulkImporter.BATCH_SIZE + 10;
+        for (int i = 0; i < rows; i++) {
+            csv.append(i % 2 == 0 ? "task,T" + i + ",#1\n" : "task,T" + i + ",#2\n");
+        }
+        BulkImporter.Result r = run(csv.toString(), BulkImporter.Format.CSV, new RecordingTarget());
+
+        assertEquals(rows, r.rows);
+        assertEquals(rows / 2, r.tasks);
+        assertEquals(rows / 2, r.errors);
+        assertEquals(BulkImporter.MAX_REPORTED_ERRORS, r.errorSamples.size());
+        assertEquals("Line 3: Unknown project '#2'", r.errorSamples.get(0));
+        assertEquals("Line 5: Unknown project '#2'", r.errorSamples.get(1));
+    }
+
+    private static BulkImporter.Result run(String input, BulkImporter.Format format, RecordingTarget target)
+            throws IOException {
+        return new BulkImporter(target).run(new BufferedReader(new StringReader(input)), format);
+    }
+}
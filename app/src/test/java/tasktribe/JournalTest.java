@@ -0,0 +1,175 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Replay of the operation log after a crash: torn and corrupt tails, missing segments, group commit. */
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsAcrossSegments() throws IOException {
+        try (Journal journal = Journal.open(dir, 0, 0, r -> { })) {
+            append(journal, 1, 3);
+            journal.roll();
+            append(journal, 4, 6);
+        }
+        assertEquals(2, segments().size());
+
+        List<Journal.Record> replayed = new ArrayList<>();
+        try (Journal journal = Journal.open(dir, 0, 0, replayed::add)) {
+            assertEquals(7, journal.append("op", "7"));
+        }
+        assertSeqs(replayed, 1, 6);
+        assertArrayEquals(new String[] {"4", null, "a\tb\nc\\"}, replayed.get(3).fields);
+    }
+
+    @Test
+    void skipsRecordsAtOrBeforeTheSnapshot() throws IOException {
+        try (Journal journal = Journal.open(dir, 0, 0, r -> { })) {
+            append(journal, 1, 5);
+        }
+        List<Journal.Record> replayed = new ArrayList<>();
+        Journal.open(dir, 3, 0, replayed::add).close();
+        assertSeqs(replayed, 4, 5);
+    }
+
+    @Test
+    void dropsATornLastRecord() throws IOException {
+        try (Journal journal = Journal.open(dir, 0, 0, r -> { })) {
+            append(journal, 1, 4);
+        }
+        Path segment = segments().get(0);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 5);
+        }
+
+        List<Journal.Record> replayed = new ArrayList<>();
+        try (Journal journal = Journal.open(dir, 0, 0, replayed::add)) {
+            assertEquals(4, journal.append("op", "4 again"));
+        }
+        assertSeqs(replayed, 1, 3);
+    }
+
+    @Test
+    void dropsACorruptLastRecord() throws IOException {
+        try (Journal journal = Journal.open(dir, 0, 0, r -> { })) {
+            append(journal, 1, 4);
+        }
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        // The last record's first field; its checksum no longer matches.
+        int field = new String(bytes, StandardCharsets.UTF_8).lastIndexOf("\top\t") + 4;
+        bytes[field]++;
+        Files.write(segment, bytes);
+
+        List<Journal.Record> replayed = new ArrayList<>();
+        Journal.open(dir, 0, 0, replayed::add).close();
+        assertSeqs(replayed, 1, 3);
+    }
+
+    @Test
+    void stopsAtAMissingSegment() throws IOException {
+        try (Journal journal = Journal.open(dir, 0, 0, r -> { })) {
+            append(journal, 1, 2);
+            journal.roll();
+            append(journal, 3, 4);
+            journal.roll();
+            append(journal, 5, 6);
+        }
+        Files.delete(dir.resolve(Journal.segmentName(3)));
+
+        List<Journal.Record> replayed = new ArrayList<>();
+        try (Journal journal = Journal.open(dir, 0, 0, replayed::add)) {
+            assertEquals(3, journal.append("op", "3 again"));
+        }
+        assertSeqs(replayed, 1, 2);
+    }
+
+    @Test
+    void deletesOnlySegmentsCoveredByTheSnapshot() throws IOException {
+        try (Journal journal = Journal.open(dir, 0, 0, r -> { })) {
+            append(journal, 1, 2);
+            long last = journal.roll();
+            append(journal, 3, 4);
+            journal.roll();
+            journal.deleteSegmentsThrough(last);
+            assertEquals(List.of(dir.resolve(Journal.segmentName(3)), dir.resolve(Journal.segmentName(5))),
+                    segments());
+        }
+    }
+
+    @Test
+    void writersInOneCommitWindowShareAnFsync() throws Exception {
+        int writers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try (Journal journal = Journal.open(dir, 0, 200_000, r -> { })) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> seqs = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                String field = Integer.toString(i);
+                seqs.add(pool.submit(() -> {
+                    start.await();
+                    long seq = journal.append("op", field);
+                    journal.awaitDurable(seq);
+                    return seq;
+                }));
+            }
+            start.countDown();
+            for (Future<Long> seq : seqs) {
+                seq.get();
+            }
+            assertTrue(journal.commits() < writers, journal.commits() + " fsyncs for " + writers + " writers");
+            // Durable means on disk before close: every record is already in the segment.
+            assertEquals(writers, Files.readAllLines(segments().get(0)).size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void append(Journal journal, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            journal.awaitDurable(journal.append("op", Integer.toString(i), null, "a\tb\nc\\"));
+        }
+    }
+
+    private static void assertSeqs(List<Journal.Record> replayed, long from, long to) {
+        List<Long> expected = new ArrayList<>();
+        for (long seq = from; seq <= to; seq++) {
+            expected.add(seq);
+        }
+        List<Long> actual = new ArrayList<>();
+        for (Journal.Record r : replayed) {
+            actual.add(r.seq);
+        }
+        assertEquals(expected, actual);
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        String glob = Journal.SEGMENT_PREFIX + "*" + Journal.SEGMENT_SUFFIX;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            files.forEach(result::add);
+        }
+        result.sort(null);
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** Parsing of the flat objects the API and the bulk importer accept. */
+class JsonTest {
+    @Test
+    void readsScalarsAsText() {
+        Map<String, String> m = Json.parseFlatObject("{\"name\": \"A\\tb\", \"n\": 12, \"ok\": true, \"x\": null}");
+        assertEquals("A\tb", m.get("name"));
+        assertEquals("12", m.get("n"));
+        assertEquals("true", m.get("ok"));
+        assertNull(m.get("x"));
+    }
+
+    @Test
+    void readsIntegerArraysAsCommaJoinedText() {
+        assertEquals("1,2,3", Json.parseFlatObject("{\"ids\": [1, 2 ,3]}").get("ids"));
+        assertEquals("-4", Json.parseFlatObject("{\"ids\":[-4]}").get("ids"));
+        assertEquals("", Json.parseFlatObject("{\"ids\": [ ]}").get("ids"));
+    }
+
+    @Test
+    void rejectsNestedAndNonIntegerArrays() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"ids\": [1, [2]]}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"ids\": [1.5]}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"ids\": [\"1\"]}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"ids\": [1,]}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"ids\": [1 2]}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseFlatObject("{\"o\": {\"a\": 1}}"));
+    }
+}
@@ -0,0 +1,226 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The leaderboard fed random completions, reopenings, reassignments, attendance and ambassador
+ * churn ranks and counts exactly like a sort of the raw counts. The view is fed its events
+ * directly, so the raw counts here are the whole truth.
+ */
+class LeaderboardViewTest {
+    private static final int AMBASSADORS = 60;
+    private static final int LOADED_TASKS = 400;
+    private static final int NO_ONE = ColumnarTaskStore.NO_ASSIGNEE;
+
+    private final LeaderboardView view = new LeaderboardView();
+    private final TrainingProgram program = new TrainingProgram(1, "Leaderboard program");
+    private final TrainingSession session = new TrainingSession(1, "2026-05-01", "Leaderboard session");
+    private int[] completed = new int[AMBASSADORS * 2];
+    private int[] attended = new int[AMBASSADORS * 2];
+    private final List<Ambassador> active = new ArrayList<>();
+    private final List<Integer> deleted = new ArrayList<>();
+    private final List<int[]> tasks = new ArrayList<>(); // {assignee, status}
+    private int nextAmbassador = 1;
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5})
+    void matchesASortOfTheRawCounts(long seed) {
+        Random rnd = new Random(seed);
+        for (int i = 0; i < AMBASSADORS; i++) {
+            addAmbassador();
+        }
+        loadProject(rnd);
+        check(rnd);
+        for (int step = 1; step <= 4000; step++) {
+            int op = rnd.nextInt(100);
+            if (op < 35) {
+                changeStatus(rnd);
+            } else if (op < 50) {
+                reassign(rnd);
+            } else if (op < 65) {
+                addTask(rnd);
+            } else if (op < 85) {
+                attend(rnd);
+            } else if (op < 90) {
+                sessionWithAttendees(rnd);
+            } else if (op < 95 && active.size() > 5) {
+                Ambassador a = active.remove(rnd.nextInt(active.size()));
+                view.ambassadorDeleted(a);
+                deleted.add(a.getId());
+            } else {
+                addAmbassador();
+            }
+            if (step % 200 == 0) {
+                check(rnd);
+            }
+        }
+        check(rnd);
+    }
+
+    @Test
+    void tiesBreakOnAttendanceThenId() {
+        for (int i = 0; i < 4; i++) {
+            addAmbassador();
+        }
+        // 1 and 3 completed one task each, 3 attended a session, 2 and 4 did nothing.
+        taskAdded(1, TaskStatus.COMPLETED);
+        taskAdded(3, TaskStatus.COMPLETED);
+        view.attendanceMarked(program, session, 3);
+        attended[3]++;
+        // Attendance at a session outside any program is not counted until it joins one.
+        view.attendanceMarked(null, session, 2);
+
+        List<Integer> order = new ArrayList<>();
+        for (LeaderboardView.Standing s : view.top(10)) {
+            order.add(s.ambassadorId);
+        }
+        assertEquals(List.of(3, 1, 2, 4), order);
+        assertEquals(0, view.standing(2).sessionsAttended);
+        check(new Random(0));
+    }
+
+    private void addAmbassador() {
+        int id = nextAmbassador++;
+        Ambassador a = new Ambassador(id, "Ranked " + id, "Mentor");
+        if (id >= completed.length) {
+            completed = Arrays.copyOf(completed, id * 2);
+            attended = Arrays.copyOf(attended, id * 2);
+        }
+        view.ambassadorAdded(a);
+        active.add(a);
+    }
+
+    // Tasks loaded in bulk from a project's columns, as when a snapshot is read.
+    private void loadProject(Random rnd) {
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        for (int i = 0; i < LOADED_TASKS; i++) {
+            int assignee = rnd.nextInt(5) == 0 ? NO_ONE : 1 + rnd.nextInt(AMBASSADORS);
+            int status = rnd.nextInt(TaskStatus.COMPLETED + 1);
+            store.append(950_000 + i, "Loaded task " + i, "", assignee, status);
+            record(assignee, status);
+        }
+        view.tasksLoaded(new Project(950_000, "Leaderboard project", store));
+    }
+
+    private void addTask(Random rnd) {
+        taskAdded(anyAssignee(rnd), rnd.nextInt(TaskStatus.COMPLETED + 1));
+    }
+
+    private void taskAdded(int assignee, int status) {
+        view.taskAdded(null, tasks.size(), assignee, status);
+        record(assignee, status);
+    }
+
+    private void record(int assignee, int status) {
+        tasks.add(new int[] {assignee, status});
+        if (status == TaskStatus.COMPLETED && assignee != NO_ONE) {
+            completed[assignee]++;
+        }
+    }
+
+    // Mostly completions and reopenings, which are the changes that move an ambassador.
+    private void changeStatus(Random rnd) {
+        int id = rnd.nextInt(tasks.size());
+        int[] t = tasks.get(id);
+        int to = t[1] == TaskStatus.COMPLETED ? rnd.nextInt(TaskStatus.COMPLETED) : rnd.nextInt(4) == 0
+                ? rnd.nextInt(TaskStatus.COMPLETED) : TaskStatus.COMPLETED;
+        view.taskStatusChanged(null, id, t[0], t[1], to);
+        if (t[0] != NO_ONE) {
+            completed[t[0]] += (to == TaskStatus.COMPLETED ? 1 : 0) - (t[1] == TaskStatus.COMPLETED ? 1 : 0);
+        }
+        t[1] = to;
+    }
+
+    private void reassign(Random rnd) {
+        int id = rnd.nextInt(tasks.size());
+        int[] t = tasks.get(id);
+        int to = anyAssignee(rnd);
+        view.taskAssigneeChanged(null, id, t[1], t[0], to);
+        if (t[1] == TaskStatus.COMPLETED) {
+            if (t[0] != NO_ONE) {
+                completed[t[0]]--;
+            }
+            if (to != NO_ONE) {
+                completed[to]++;
+            }
+        }
+        t[0] = to;
+    }
+
+    private void attend(Random rnd) {
+        int aid = active.get(rnd.nextInt(active.size())).getId();
+        boolean inProgram = rnd.nextInt(5) != 0;
+        view.attendanceMarked(inProgram ? program : null, session, aid);
+        if (inProgram) {
+            attended[aid]++;
+        }
+    }
+
+    // A session joining a program brings its earlier attendees with it.
+    private void sessionWithAttendees(Random rnd) {
+        IdBitmap attendees = new IdBitmap();
+        for (int i = rnd.nextInt(6); i > 0; i--) {
+            int aid = active.get(rnd.nextInt(active.size())).getId();
+            if (attendees.add(aid)) {
+                attended[aid]++;
+            }
+        }
+        view.sessionAdded(program, session, attendees);
+    }
+
+    // Deleted ambassadors still hold tasks, so events about them keep coming.
+    private int anyAssignee(Random rnd) {
+        int pick = rnd.nextInt(10);
+        if (pick == 0) {
+            return NO_ONE;
+        }
+        if (pick == 1 && !deleted.isEmpty()) {
+            return deleted.get(rnd.nextInt(deleted.size()));
+        }
+        return active.get(rnd.nextInt(active.size())).getId();
+    }
+
+    private void check(Random rnd) {
+        List<int[]> expected = new ArrayList<>();
+        for (Ambassador a : active) {
+            expected.add(new int[] {a.getId(), completed[a.getId()], attended[a.getId()]});
+        }
+        expected.sort((x, y) -> x[1] != y[1] ? Integer.compare(y[1], x[1])
+                : x[2] != y[2] ? Integer.compare(y[2], x[2]) : Integer.compare(x[0], y[0]));
+
+        assertEquals(expected.size(), view.size());
+        LeaderboardView.Standing[] board = view.top(Integer.MAX_VALUE);
+        assertEquals(expected.size(), board.length);
+        for (int i = 0; i < board.length; i++) {
+            assertStanding(i + 1, expected.get(i), board[i]);
+            assertStanding(i + 1, expected.get(i), view.standing(expected.get(i)[0]));
+        }
+        int k = rnd.nextInt(expected.size() + 1);
+        LeaderboardView.Standing[] top = view.top(k);
+        assertEquals(k, top.length);
+        for (int i = 0; i < k; i++) {
+            assertStanding(i + 1, expected.get(i), top[i]);
+        }
+        for (int id : deleted) {
+            assertNull(view.standing(id), "deleted ambassador " + id + " is ranked");
+        }
+        assertNull(view.standing(nextAmbassador));
+    }
+
+    private static void assertStanding(int rank, int[] expected, LeaderboardView.Standing s) {
+        String where = "rank " + rank;
+        assertEquals(rank, s.rank, where);
+        assertEquals(expected[0], s.ambassadorId, where);
+        assertEquals(expected[1], s.completedTasks, where);
+        assertEquals(expected[2], s.sessionsAttended, where);
+    }
+}
@@ -0,0 +1,247 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Recovery of a data directory: snapshot plus journal tail, a damaged last record, background
+ * snapshots and the directory lock. The state is a running total rather than the app's, so each
+ * test can recover it as often as it likes. A crash is simulated by copying the directory while
+ * it is still open.
+ */
+class PersistenceTest {
+    @TempDir
+    Path dir;
+
+    @TempDir
+    Path crashed;
+
+    /** Sum and count of the "add" operations applied. */
+    private static final class Tally implements BinarySnapshot.State, BinarySnapshot.Loader {
+        int total;
+        int count;
+
+        void apply(String op, String[] fields) {
+            total += Integer.parseInt(fields[0]);
+            count++;
+        }
+
+        @Override
+        public int[] counters() {
+            return new int[] {total, count, 0};
+        }
+
+        @Override
+        public void counters(int total, int count, int unused) {
+            this.total = total;
+            this.count = count;
+        }
+
+        @Override
+        public Iterable<TrainingProgram> programs() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<TrainingSession> sessions() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Ambassador> ambassadors() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Cohort> cohorts() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Ambassador> formerAmbassadors() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Project> projects() {
+            return List.of();
+        }
+
+        @Override
+        public void program(int id, String name) {
+        }
+
+        @Override
+        public void session(int id, String date, String topic, int programId) {
+        }
+
+        @Override
+        public void ambassador(int id, String name, String role, boolean deleted) {
+        }
+
+        @Override
+        public void cohort(int id, int programId, String name, int[] members) {
+        }
+
+        @Override
+        public void project(int id, String name, ColumnarTaskStore tasks) {
+        }
+
+        @Override
+        public void attend(int sessionId, int ambassadorId) {
+        }
+    }
+
+    @Test
+    void startupReplaysOnlyTheJournalAfterTheSnapshot() throws IOException {
+        Tally tally = new Tally();
+        try (Persistence p = open(dir, 1000, tally)) {
+            add(p, tally, 1, 7);
+            p.snapshot();
+            add(p, tally, 8, 11);
+            assertFalse(Files.exists(dir.resolve(Journal.segmentName(1))), "covered segment kept");
+            assertTrue(Files.exists(dir.resolve(Journal.segmentName(8))));
+            copyFiles(dir, crashed);
+        }
+
+        Tally recovered = new Tally();
+        try (Persistence p = open(crashed, 1000, recovered)) {
+            assertTrue(p.snapshotLoaded());
+            assertEquals(4, p.replayedRecords());
+            assertEquals(66, recovered.total);
+            assertEquals(11, recovered.count);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void recoversUpToADamagedLastRecord(boolean torn) throws IOException {
+        Tally tally = new Tally();
+        try (Persistence p = open(dir, 1000, tally)) {
+            add(p, tally, 1, 5);
+            copyFiles(dir, crashed);
+        }
+        Path segment = crashed.resolve(Journal.segmentName(1));
+        if (torn) {
+            try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                ch.truncate(ch.size() - 3);
+            }
+        } else {
+            byte[] bytes = Files.readAllBytes(segment);
+            bytes[bytes.length - 2] ^= 1; // last digit of the last record's checksum
+            Files.write(segment, bytes);
+        }
+
+        Tally recovered = new Tally();
+        try (Persistence p = open(crashed, 1000, recovered)) {
+            assertFalse(p.snapshotLoaded());
+            assertEquals(4, p.replayedRecords());
+            assertEquals(10, recovered.total);
+            add(p, recovered, 100, 100);
+        }
+        Tally reopened = new Tally();
+        open(crashed, 1000, reopened).close();
+        assertEquals(110, reopened.total);
+        assertEquals(5, reopened.count);
+    }
+
+    @Test
+    void snapshotsInTheBackgroundAsOperationsGoOn() throws IOException {
+        Tally tally = new Tally();
+        try (Persistence p = open(dir, 5, tally)) {
+            add(p, tally, 1, 23);
+            p.snapshot();
+            assertTrue(Files.exists(dir.resolve(BinarySnapshot.FILE)));
+            assertEquals(List.of(dir.resolve(Journal.segmentName(24))), segments(dir));
+            add(p, tally, 24, 26);
+        }
+
+        Tally recovered = new Tally();
+        try (Persistence p = open(dir, 5, recovered)) {
+            assertTrue(p.snapshotLoaded());
+            assertEquals(0, p.replayedRecords());
+            assertEquals(26 * 27 / 2, recovered.total);
+            assertEquals(26, recovered.count);
+        }
+    }
+
+    @Test
+    void lockFileKeepsASecondUserOut() throws IOException {
+        Tally tally = new Tally();
+        Persistence first = open(dir, 1000, tally);
+        Persistence second = new Persistence(dir, 1000, tally::apply, tally, tally);
+        try {
+            IOException e = assertThrows(IOException.class, second::recover);
+            assertTrue(e.getMessage().contains(Persistence.LOCK_FILE), e.getMessage());
+            add(first, tally, 1, 2);
+        } finally {
+            first.close();
+        }
+
+        Tally recovered = new Tally();
+        second = new Persistence(dir, 1000, recovered::apply, recovered, recovered);
+        try {
+            second.recover();
+            assertEquals(3, recovered.total);
+        } finally {
+            second.close();
+        }
+    }
+
+    private static Persistence open(Path dir, int snapshotEvery, Tally tally) throws IOException {
+        Persistence p = new Persistence(dir, snapshotEvery, tally::apply, tally, tally);
+        p.recover();
+        return p;
+    }
+
+    private static void add(Persistence p, Tally tally, int from, int to) throws IOException {
+        for (int n = from; n <= to; n++) {
+            String[] fields = {Integer.toString(n)};
+            Lock lock = p.operationLock();
+            lock.lock();
+            try {
+                p.log("add", fields);
+                tally.apply("add", fields);
+            } finally {
+                lock.unlock();
+            }
+            p.applied();
+        }
+    }
+
+    // Everything but the lock file, as a crash would leave it.
+    private static void copyFiles(Path from, Path to) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(from)) {
+            for (Path f : files) {
+                if (!f.getFileName().toString().equals(Persistence.LOCK_FILE)) {
+                    Files.copy(f, to.resolve(f.getFileName()));
+                }
+            }
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, Journal.SEGMENT_PREFIX + "*")) {
+            List<Path> result = new ArrayList<>();
+            files.forEach(result::add);
+            result.sort(null);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Reports forked over the fork-join pool must give exactly the answer of one sequential pass. The
+ * dataset holds more tasks than {@link ReportEngine#THRESHOLD}, with one project larger than it so
+ * that reports which split projects scan it in row ranges.
+ */
+class ReportEngineTest {
+    private static final int SEQUENTIAL = Integer.MAX_VALUE;
+
+    @BeforeAll
+    static void buildDataset() {
+        ApiServer.Model model = TaskTribeApp.startInMemory();
+        Random rnd = new Random(20);
+        List<Ambassador> ambassadors = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ambassadors.add(model.addAmbassador("Report ambassador " + i, "Mentor"));
+        }
+        addTasks(model, model.createProject("Report project large"), ReportEngine.THRESHOLD + 1000, ambassadors, rnd);
+        for (int i = 0; i < 60; i++) {
+            addTasks(model, model.createProject("Report project " + i), rnd.nextInt(1000), ambassadors, rnd);
+        }
+        assertTrue(TaskIndex.size() > 2 * ReportEngine.THRESHOLD, "dataset is too small to fork");
+    }
+
+    private static void addTasks(ApiServer.Model model, Project p, int count, List<Ambassador> ambassadors,
+            Random rnd) {
+        for (int i = 0; i < count; i++) {
+            Ambassador a = rnd.nextInt(5) == 0 ? null : ambassadors.get(rnd.nextInt(ambassadors.size()));
+            String deadline = (1 + rnd.nextInt(12)) + "/" + (1 + rnd.nextInt(28)) + "/2026";
+            Task t = model.addTask(p, "Report task " + i, deadline, a);
+            model.setTaskStatus(t, rnd.nextInt(TaskStatus.COMPLETED + 1));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {ReportEngine.THRESHOLD, 1000})
+    void statusCountsMatchSequentialRun(int threshold) {
+        TaskTribeApp.StatisticsRecount sequential = TaskTribeApp.recountTaskStatistics(SEQUENTIAL);
+        TaskTribeApp.StatisticsRecount parallel = TaskTribeApp.recountTaskStatistics(threshold);
+        assertEquals(TaskIndex.size(), sequential.global.total());
+        assertTrue(parallel.global.matches(sequential.global),
+                () -> "parallel [" + parallel.global + "], sequential [" + sequential.global + "]");
+        assertEquals(sequential.mismatches, parallel.mismatches);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {ReportEngine.THRESHOLD, 1000})
+    void completedTasksByAmbassadorMatchesSequentialRun(int threshold) {
+        int[] sequential = TaskTribeApp.completedTasksByAmbassador(SEQUENTIAL);
+        assertArrayEquals(sequential, TaskTribeApp.completedTasksByAmbassador(threshold));
+        assertEquals(TaskTribeApp.ambassadorsWithCompletedTasks(SEQUENTIAL),
+                TaskTribeApp.ambassadorsWithCompletedTasks(threshold));
+
+        int completed = 0;
+        for (int n : sequential) {
+            completed += n;
+        }
+        assertTrue(completed > ReportEngine.THRESHOLD / TaskStatus.COMPLETED, "too few completed tasks to compare");
+    }
+}
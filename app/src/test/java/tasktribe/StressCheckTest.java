@@ -0,0 +1,332 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs a mixed load of writes and reads on many threads at once, then checks that the store and
+ * its indexes still agree with each other: every task is counted once, per-project status
+ * counters match a recount of the column store, the assignee index and the calendar of open
+ * tasks match a scan, each ambassador's attended-session count and each cohort's missed-session
+ * bitmaps and completion count match the session participant lists, and the materialized report
+ * views match answers recomputed from the store. Runs on the in-memory state, so any lost update fails the build.
+ */
+class StressCheckTest {
+    private static final int THREADS = 4;
+    private static final int OPS_PER_THREAD = 10000;
+    private static final int PROJECTS = 16;
+    private static final int AMBASSADORS = 64;
+
+    private final ApiServer.Model model = TaskTribeApp.startInMemory();
+    private final AtomicInteger tasksAdded = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final List<String> problems = new ArrayList<>();
+
+    @Test
+    void concurrentLoadKeepsIndexesConsistent() throws InterruptedException {
+        int tasksBefore = TaskIndex.size();
+        for (int i = 0; i < PROJECTS; i++) {
+            model.createProject("Stress project " + i);
+        }
+        for (int i = 0; i < AMBASSADORS; i++) {
+            model.addAmbassador("Stress ambassador " + i, "Mentor");
+        }
+        List<Project> projects = new ArrayList<>();
+        model.projects().forEach(projects::add);
+        List<Ambassador> ambassadors = new ArrayList<>();
+        model.ambassadors().forEach(ambassadors::add);
+        List<TrainingSession> sessions = new ArrayList<>();
+        model.sessions().forEach(sessions::add);
+        TrainingProgram program = sessions.get(0).getProgram();
+        List<Cohort> cohorts = List.of(TaskTribeApp.createCohort(program, "Stress cohort A"),
+                TaskTribeApp.createCohort(program, "Stress cohort B"));
+
+        int readers = Math.max(1, THREADS / 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(new Thread(() -> guarded(start, () -> write(projects, ambassadors, sessions, cohorts)),
+                    "stress-writer-" + i));
+        }
+        for (int i = 0; i < readers; i++) {
+            workers.add(new Thread(() -> guarded(start, () -> read(projects, ambassadors)), "stress-reader-" + i));
+        }
+        workers.forEach(Thread::start);
+        start.countDown();
+        for (Thread t : workers) {
+            t.join();
+        }
+
+        if (failure.get() != null) {
+            problems.add("Worker failed: " + failure.get());
+        }
+        checkTasks(tasksBefore + tasksAdded.get());
+        checkStatusCounts();
+        checkAssignees();
+        checkOpenDeadlines();
+        checkAttendance();
+        checkViews();
+        assertTrue(problems.isEmpty(), () -> problems.size() + " problems:\n  " + String.join("\n  ", problems));
+    }
+
+    private void guarded(CountDownLatch start, Runnable body) {
+        try {
+            start.await();
+            body.run();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void write(List<Project> projects, List<Ambassador> ambassadors, List<TrainingSession> sessions,
+            List<Cohort> cohorts) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int i = 0; i < OPS_PER_THREAD; i++) {
+            Project p = projects.get(rnd.nextInt(projects.size()));
+            Ambassador a = ambassadors.get(rnd.nextInt(ambassadors.size()));
+            int op = rnd.nextInt(100);
+            if (op < 40 || p.getTaskCount() == 0) {
+                String deadline = (1 + rnd.nextInt(12)) + "/" + (1 + rnd.nextInt(28)) + "/2026";
+                model.addTask(p, "Task " + i, deadline, rnd.nextBoolean() ? a : null);
+                tasksAdded.incrementAndGet();
+            } else if (op < 70) {
+                Task t = p.taskAt(rnd.nextInt(p.getTaskCount()));
+                model.setTaskStatus(t, rnd.nextInt(TaskStatus.COMPLETED + 1));
+            } else if (op < 90) {
+                Task t = p.taskAt(rnd.nextInt(p.getTaskCount()));
+                model.reassignTask(t, rnd.nextInt(4) == 0 ? null : a);
+            } else if (op < 95) {
+                model.markAttendance(sessions.get(rnd.nextInt(sessions.size())), a);
+            } else if (op < 96) {
+                Cohort c = cohorts.get(rnd.nextInt(cohorts.size()));
+                try {
+                    TaskTribeApp.joinCohort(c, List.of(a));
+                } catch (IllegalArgumentException e) {
+                    // Already in the other cohort of the program.
+                }
+            } else if (op < 97) {
+                List<Ambassador> sheet = new ArrayList<>();
+                for (int k = rnd.nextInt(8); k >= 0; k--) {
+                    sheet.add(ambassadors.get(rnd.nextInt(ambassadors.size())));
+                }
+                model.markAttendanceSheet(sessions.get(rnd.nextInt(sessions.size())), sheet);
+            } else {
+                model.editAmbassador(a, "Renamed " + i, a.getRole());
+            }
+        }
+    }
+
+    private void read(List<Project> projects, List<Ambassador> ambassadors) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int[] seen = new int[1];
+        for (int i = 0; i < OPS_PER_THREAD; i++) {
+            int op = rnd.nextInt(4);
+            Ambassador a = ambassadors.get(rnd.nextInt(ambassadors.size()));
+            if (op == 0) {
+                for (Task t : TaskIndex.tasksAssignedTo(a.getId())) {
+                    seen[0] += t.getStatusCode();
+                }
+            } else if (op == 1) {
+                seen[0] += TaskIndex.statusCounts().total();
+            } else if (op == 2) {
+                int from = (int) LocalDate.of(2026, 1 + rnd.nextInt(12), 1).toEpochDay();
+                TaskIndex.forEachDueBetween(from, from + 2, id -> seen[0]++);
+            } else {
+                Project p = projects.get(rnd.nextInt(projects.size()));
+                int n = p.getTaskCount();
+                if (n > 0) {
+                    seen[0] += p.taskAt(rnd.nextInt(n)).toString().length();
+                }
+            }
+        }
+    }
+
+    private void checkTasks(int expected) {
+        if (TaskIndex.size() != expected) {
+            problems.add("Task index holds " + TaskIndex.size() + " tasks, expected " + expected);
+        }
+        IntHashSet ids = new IntHashSet(Math.max(16, expected));
+        int stored = 0;
+        for (Project p : model.projects()) {
+            long stamp = p.readLock();
+            try {
+                ColumnarTaskStore store = p.getStore();
+                for (int row = 0, n = store.size(); row < n; row++) {
+                    int id = store.id(row);
+                    if (!ids.add(id)) {
+                        problems.add("Task ID " + id + " is stored twice");
+                    }
+                    Task t = TaskIndex.findTaskById(id);
+                    if (t == null || t.getProject() != p || t.getRow() != row) {
+                        problems.add("Task " + id + " is not indexed at project " + p.getId() + " row " + row);
+                    }
+                }
+                stored += store.size();
+            } finally {
+                p.unlockRead(stamp);
+            }
+        }
+        if (stored != expected) {
+            problems.add("Projects store " + stored + " tasks, expected " + expected);
+        }
+    }
+
+    private void checkStatusCounts() {
+        StatusCounts global = new StatusCounts();
+        for (Project p : model.projects()) {
+            StatusCounts recount = new StatusCounts();
+            StatusCounts counters = new StatusCounts();
+            p.recountStatuses(recount, counters);
+            global.addAll(recount);
+            if (!recount.matches(counters)) {
+                problems.add("Project " + p.getId() + " counters [" + counters + "], recount [" + recount + "]");
+            }
+        }
+        if (!global.matches(TaskIndex.statusCounts())) {
+            problems.add("Global counters [" + TaskIndex.statusCounts() + "], recount [" + global + "]");
+        }
+    }
+
+    private void checkViews() {
+        problems.addAll(TaskTribeApp.verifyViews(TaskTribeApp.recountTaskStatistics(ReportEngine.THRESHOLD).global));
+    }
+
+    private void checkOpenDeadlines() {
+        IntHashSet open = new IntHashSet(1024);
+        TaskIndex.forEachOpenDueBetween(Integer.MIN_VALUE + 1, Integer.MAX_VALUE, open::add);
+        int expected = 0;
+        for (Project p : model.projects()) {
+            long stamp = p.readLock();
+            try {
+                ColumnarTaskStore store = p.getStore();
+                for (int row = 0, n = store.size(); row < n; row++) {
+                    if (store.status(row) == TaskStatus.COMPLETED || store.deadlineDay(row) == Deadlines.NONE) {
+                        continue;
+                    }
+                    expected++;
+                    if (!open.contains(store.id(row))) {
+                        problems.add("Open task " + store.id(row) + " is missing from the deadline calendar");
+                    }
+                }
+            } finally {
+                p.unlockRead(stamp);
+            }
+        }
+        if (open.size() != expected) {
+            problems.add("Open-task calendar holds " + open.size() + " tasks, the stores " + expected);
+        }
+    }
+
+    private void checkAssignees() {
+        IntObjectMap<int[]> scanned = new IntObjectMap<>();
+        for (Project p : model.projects()) {
+            long stamp = p.readLock();
+            try {
+                ColumnarTaskStore store = p.getStore();
+                for (int row = 0, n = store.size(); row < n; row++) {
+                    int a = store.assigneeId(row);
+                    if (a != ColumnarTaskStore.NO_ASSIGNEE) {
+                        int[] count = scanned.get(a);
+                        if (count == null) {
+                            scanned.put(a, count = new int[1]);
+                        }
+                        count[0]++;
+                    }
+                }
+            } finally {
+                p.unlockRead(stamp);
+            }
+        }
+        for (Ambassador a : model.ambassadors()) {
+            int[] count = scanned.get(a.getId());
+            int expected = count == null ? 0 : count[0];
+            int indexed = TaskIndex.countAssignedTo(a.getId());
+            if (indexed != expected) {
+                problems.add("Ambassador " + a.getId() + " has " + indexed + " indexed tasks, " + expected
+                        + " in the stores");
+            }
+        }
+    }
+
+    private void checkAttendance() {
+        IntObjectMap<int[]> attended = new IntObjectMap<>();
+        List<TrainingProgram> programs = new ArrayList<>();
+        for (TrainingSession s : model.sessions()) {
+            if (!programs.contains(s.getProgram())) {
+                programs.add(s.getProgram());
+            }
+            IntHashSet seen = new IntHashSet(16);
+            for (Ambassador a : s.getParticipants()) {
+                if (!seen.add(a.getId())) {
+                    problems.add("Ambassador " + a.getId() + " attended session " + s.getId() + " twice");
+                }
+                int[] count = attended.get(a.getId());
+                if (count == null) {
+                    attended.put(a.getId(), count = new int[1]);
+                }
+                count[0]++;
+            }
+            if (seen.size() != s.getParticipantCount()) {
+                problems.add("Session " + s.getId() + " counts " + s.getParticipantCount() + " participants, lists "
+                        + seen.size());
+            }
+        }
+        for (Ambassador a : model.ambassadors()) {
+            int[] count = attended.get(a.getId());
+            int expected = count == null ? 0 : count[0];
+            if (a.getTrainingSessionsAttended() != expected) {
+                problems.add("Ambassador " + a.getId() + " counts " + a.getTrainingSessionsAttended()
+                        + " sessions, participant lists show " + expected);
+            }
+        }
+        for (TrainingProgram p : programs) {
+            checkProgram(p);
+        }
+    }
+
+    // Recomputes the program's missed-session answers from the session bitmaps one ID at a time.
+    private void checkProgram(TrainingProgram p) {
+        List<TrainingSession> programSessions = p.getSessions();
+        IdBitmap missing = TrainingIndex.missingAnySession(p);
+        for (Ambassador a : model.ambassadors()) {
+            boolean missedOne = false;
+            for (TrainingSession s : programSessions) {
+                missedOne |= !s.hasParticipated(a);
+            }
+            if (missing.contains(a.getId()) != missedOne) {
+                problems.add("Ambassador " + a.getId() + (missedOne ? " missed" : " did not miss")
+                        + " a session of program " + p.getId() + " but the index says otherwise");
+            }
+        }
+        for (Cohort c : p.getCohorts()) {
+            int[] members = TrainingIndex.members(c).toArray();
+            int completed = 0;
+            for (int aid : members) {
+                boolean all = true;
+                for (int k = 0; k < programSessions.size(); k++) {
+                    boolean missed = !TrainingIndex.hasAttended(programSessions.get(k), aid);
+                    all &= !missed;
+                    if (TrainingIndex.missingSession(c, k).contains(aid) != missed) {
+                        problems.add("Cohort " + c.getId() + " index is wrong for ambassador " + aid
+                                + " at session " + (k + 1));
+                    }
+                }
+                if (all) {
+                    completed++;
+                }
+            }
+            if (completed != c.getCompletedCount()) {
+                problems.add("Cohort " + c.getId() + " counts " + c.getCompletedCount() + " completed, recount "
+                        + completed);
+            }
+        }
+    }
+}
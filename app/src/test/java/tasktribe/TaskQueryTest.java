@@ -0,0 +1,291 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Planned queries must find exactly the tasks a brute-force filter over every task finds, whichever
+ * access path the planner picks. The other tests share the app state, so the expected answers are
+ * recomputed over all tasks rather than only the ones made here.
+ */
+class TaskQueryTest {
+    private static final String[] ROLES = {"Project Lead", "Content Creator", "Community Promoter"};
+    private static final String[] OPS = {"=", "!=", "<", "<=", ">", ">="};
+    private static final String BLOCKED = "Blocked";
+
+    private static final List<Ambassador> ambassadors = new ArrayList<>();
+    private static final List<Project> projects = new ArrayList<>();
+    private static int firstTaskId;
+    private static int lastTaskId;
+    private static Ambassador rarelyAssigned;
+
+    @BeforeAll
+    static void buildDataset() {
+        TaskTribeApp.setReportOutput(new PrintStream(OutputStream.nullOutputStream()));
+        ApiServer.Model model = TaskTribeApp.startInMemory();
+        Random rnd = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            ambassadors.add(model.addAmbassador("Query ambassador " + i, ROLES[rnd.nextInt(ROLES.length)]));
+        }
+        for (int i = 0; i < 30; i++) {
+            projects.add(model.createProject("Query project " + i));
+        }
+        for (int i = 0; i < 20000; i++) {
+            String deadline = rnd.nextInt(20) == 0 ? "someday"
+                    : (1 + rnd.nextInt(12)) + "/" + (1 + rnd.nextInt(28)) + "/2026";
+            Ambassador a = rnd.nextInt(5) == 0 ? null : ambassadors.get(rnd.nextInt(ambassadors.size()));
+            Task t = model.addTask(projects.get(rnd.nextInt(projects.size())), "Query task " + i, deadline, a);
+            int status = rnd.nextInt(10) < 7 ? TaskStatus.NOT_STARTED : 1 + rnd.nextInt(2);
+            if (status != TaskStatus.NOT_STARTED) {
+                model.setTaskStatus(t, status);
+            }
+            if (i == 0) {
+                firstTaskId = t.getId();
+            }
+            lastTaskId = t.getId();
+        }
+        // Unassigns its tasks, which the assignee index must forget.
+        model.deleteAmbassador(ambassadors.remove(0));
+
+        // Data only one index can narrow down: an ambassador with three tasks, deadlines in a year no
+        // other task has, and a status held by tasks of one small project.
+        rarelyAssigned = model.addAmbassador("Query rarely assigned", ROLES[0]);
+        Project blockedProject = model.createProject("Query blocked project");
+        for (int i = 0; i < 50; i++) {
+            String deadline = LocalDate.of(2031, 1, 1 + i % 28).toString();
+            Task t = model.addTask(blockedProject, "Query blocked " + i, deadline, i < 3 ? rarelyAssigned : null);
+            if (i % 10 == 0) {
+                model.setTaskStatus(t, TaskStatus.parse(BLOCKED));
+            }
+        }
+    }
+
+    @AfterAll
+    static void restoreReportOutput() {
+        TaskTribeApp.setReportOutput(System.out);
+    }
+
+    /** A condition as query text and as a predicate over a task. */
+    private static final class Cond {
+        final String text;
+        final Predicate<Task> test;
+
+        Cond(String text, Predicate<Task> test) {
+            this.text = text;
+            this.test = test;
+        }
+    }
+
+    @Test
+    void plannedQueriesMatchBruteForce() {
+        Random rnd = new Random(11);
+        List<Task> all = allTasks();
+        int chosenByIndex = 0;
+        for (int q = 0; q < 1500; q++) {
+            List<Cond> conds = new ArrayList<>();
+            for (int n = rnd.nextInt(4); n > 0; n--) {
+                conds.add(randomCondition(rnd));
+            }
+            StringBuilder text = new StringBuilder("tasks");
+            for (int i = 0; i < conds.size(); i++) {
+                text.append(i == 0 ? " where " : " and ").append(conds.get(i).text);
+            }
+            TaskQuery.Plan plan = TaskQuery.parse(text.toString()).plan();
+            int[] expected = all.stream().filter(t -> conds.stream().allMatch(c -> c.test.test(t)))
+                    .mapToInt(Task::getId).sorted().toArray();
+            assertArrayEquals(expected, plan.execute().taskIds, () -> text + " by " + plan.access());
+            if (!plan.access().equals("full scan")) {
+                chosenByIndex++;
+            }
+            if (q % 25 == 0) {
+                checkPages(plan, expected, rnd);
+            }
+        }
+        assertTrue(chosenByIndex > 300, "too few queries were planned through an index: " + chosenByIndex);
+    }
+
+    // Pages through the results and seeks each of a few matching IDs and some that are not listed.
+    private static void checkPages(TaskQuery.Plan plan, int[] expected, Random rnd) {
+        TaskTribeApp.Pages pages = TaskTribeApp.queryPages(plan);
+        int cursor = pages.write(0);
+        int pageCount = 1;
+        while (cursor != IdRegistry.END) {
+            cursor = pages.write(cursor);
+            pageCount++;
+        }
+        assertEquals(Math.max(1, (expected.length + 19) / 20), pageCount);
+        for (int k = 0; k < 10 && expected.length > 0; k++) {
+            int at = rnd.nextInt(expected.length);
+            assertEquals(at, pages.seek(expected[at]));
+        }
+        for (int k = 0; k < 10; k++) {
+            int id = firstTaskId + rnd.nextInt(lastTaskId - firstTaskId + 1);
+            int at = Arrays.binarySearch(expected, id);
+            assertEquals(at >= 0 ? at : IdRegistry.END, pages.seek(id));
+        }
+        assertEquals(IdRegistry.END, pages.seek(0));
+    }
+
+    private static Cond randomCondition(Random rnd) {
+        switch (rnd.nextInt(6)) {
+            case 0: {
+                String op = OPS[rnd.nextInt(OPS.length)];
+                int id = firstTaskId - 5 + rnd.nextInt(lastTaskId - firstTaskId + 10);
+                return new Cond("id " + op + " " + id, t -> compare(op, t.getId(), id));
+            }
+            case 1: {
+                String op = OPS[rnd.nextInt(2)];
+                int id = rnd.nextInt(10) == 0 ? 99999 : projects.get(rnd.nextInt(projects.size())).getId();
+                return new Cond("project " + op + " " + id, t -> compare(op, t.getProject().getId(), id));
+            }
+            case 2: {
+                String op = OPS[rnd.nextInt(2)];
+                int status = rnd.nextInt(TaskStatus.COMPLETED + 1);
+                return new Cond("status " + op + " \"" + TaskStatus.label(status) + "\"",
+                        t -> compare(op, t.getStatusCode(), status));
+            }
+            case 3: {
+                String op = OPS[rnd.nextInt(2)];
+                if (rnd.nextInt(4) == 0) {
+                    return new Cond("assignee " + op + " none", t -> (t.getAssignee() == null) == op.equals("="));
+                }
+                int id = ambassadors.get(rnd.nextInt(ambassadors.size())).getId();
+                return new Cond("assignee " + op + " " + id, t -> compare(op, assigneeId(t), id));
+            }
+            case 4: {
+                String op = OPS[rnd.nextInt(2)];
+                String role = ROLES[rnd.nextInt(ROLES.length)];
+                int code = Roles.find(role);
+                return new Cond("assignee.role " + op + " \"" + role + "\"",
+                        t -> t.getAssignee() != null && compare(op, t.getAssignee().getRoleCode(), code));
+            }
+            default: {
+                String op = OPS[rnd.nextInt(OPS.length)];
+                LocalDate date = LocalDate.of(2026, 1, 1).plusDays(rnd.nextInt(365));
+                String shown = rnd.nextBoolean() ? date.toString()
+                        : date.getMonthValue() + "/" + date.getDayOfMonth() + "/" + date.getYear();
+                int day = (int) date.toEpochDay();
+                return new Cond("deadline " + op + " " + shown,
+                        t -> t.getDeadlineDay() != Deadlines.NONE && compare(op, t.getDeadlineDay(), day));
+            }
+        }
+    }
+
+    private static boolean compare(String op, int a, int b) {
+        switch (op) {
+            case "=":
+                return a == b;
+            case "!=":
+                return a != b;
+            case "<":
+                return a < b;
+            case "<=":
+                return a <= b;
+            case ">":
+                return a > b;
+            default:
+                return a >= b;
+        }
+    }
+
+    private static int assigneeId(Task t) {
+        Ambassador a = t.getAssignee();
+        return a == null ? ColumnarTaskStore.NO_ASSIGNEE : a.getId();
+    }
+
+    private static List<Task> allTasks() {
+        List<Task> all = new ArrayList<>();
+        for (Project p : TaskIndex.projects()) {
+            for (int row = 0, n = p.getTaskCount(); row < n; row++) {
+                all.add(p.taskAt(row));
+            }
+        }
+        assertEquals(TaskIndex.size(), all.size());
+        return all;
+    }
+
+    @Test
+    void explainChoosesTaskIdIndex() {
+        int from = firstTaskId + 100;
+        TaskQuery.Plan plan = checkExplain("tasks where id >= " + from + " and id < " + (from + 10)
+                + " and status != Completed", "task ID index", "status != Completed");
+        assertEquals(List.of("task ID index: id >= " + from + " and id < " + (from + 10), "10", "50"),
+                columns(chosenLine(plan)));
+    }
+
+    @Test
+    void explainChoosesAssigneeIndex() {
+        int id = rarelyAssigned.getId();
+        TaskQuery.Plan plan = checkExplain("tasks where assignee = " + id + " and deadline > 2030-01-01",
+                "assignee index", "deadline > 2030-01-01");
+        assertEquals(List.of("assignee index: assignee = " + id, "3", "15"), columns(chosenLine(plan)));
+        assertEquals(3, plan.execute().taskIds.length);
+    }
+
+    @Test
+    void explainChoosesStatusCounters() {
+        TaskQuery.Plan plan = checkExplain("tasks where status = " + BLOCKED, "status counters",
+                "status = " + BLOCKED);
+        List<String> chosen = columns(chosenLine(plan));
+        assertTrue(chosen.get(0).startsWith("status counters: status = " + BLOCKED + " (1 of "), chosen.get(0));
+        assertEquals(List.of("50", "50"), chosen.subList(1, 3));
+        assertEquals(5, plan.execute().taskIds.length);
+    }
+
+    @Test
+    void explainChoosesDeadlineCalendar() {
+        TaskQuery.Plan plan = checkExplain("tasks where deadline >= 2031-01-01 and deadline <= 2031-01-07",
+                "deadline calendar", "none");
+        assertEquals(List.of("deadline calendar: deadline >= 2031-01-01 and deadline <= 2031-01-07", "14", "70"),
+                columns(chosenLine(plan)));
+        assertEquals(14, plan.execute().taskIds.length);
+    }
+
+    // Checks the parts of the plan every explain shows, and that the chosen path finds what a full scan finds.
+    private static TaskQuery.Plan checkExplain(String query, String access, String filter) {
+        TaskQuery parsed = TaskQuery.parse(query);
+        TaskQuery.Plan plan = parsed.plan();
+        List<String> lines = plan.explain();
+        assertEquals("Plan for: " + parsed, lines.get(0));
+        assertTrue(lines.get(1).contains("Access paths considered"), lines.get(1));
+        assertTrue(chosenLine(plan).startsWith("* " + access), () -> String.join("\n", lines));
+        assertTrue(lines.stream().anyMatch(l -> l.startsWith("  full scan")), () -> String.join("\n", lines));
+        assertEquals("Chosen: " + access, lines.get(lines.size() - 2));
+        assertEquals("Filter: " + filter, lines.get(lines.size() - 1));
+        assertEquals(access, plan.access());
+        assertArrayEquals(parsed.plan(false).execute().taskIds, plan.execute().taskIds);
+        return plan;
+    }
+
+    // The path, estimated rows and cost of a path line.
+    private static List<String> columns(String line) {
+        String[] words = line.substring(2).trim().split(" +");
+        int n = words.length;
+        String path = String.join(" ", Arrays.copyOf(words, n - 2));
+        return List.of(path, words[n - 2], words[n - 1]);
+    }
+
+    private static String chosenLine(TaskQuery.Plan plan) {
+        List<String> marked = new ArrayList<>();
+        for (String line : plan.explain()) {
+            if (line.startsWith("*")) {
+                marked.add(line);
+            }
+        }
+        assertEquals(1, marked.size(), () -> "one path is marked chosen: " + marked);
+        return marked.get(0);
+    }
+}
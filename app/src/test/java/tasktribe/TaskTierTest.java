@@ -0,0 +1,300 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * With the task cache far smaller than the tasks, counters, views and queries must give the same
+ * answers as a scan, and a snapshot taken while projects are spilled must hold the state as of
+ * its capture. The projects made here stay in the app state the other tests share, so they are
+ * read back into memory before the spill directory goes away.
+ */
+class TaskTierTest {
+    private static final int MAX_ROWS = 500;
+    private static final int PROJECTS = 8;
+    private static final int TASKS = 1200;
+    private static final Pattern STATS = Pattern.compile("hot hits (\\d+), cold misses (\\d+)");
+
+    @TempDir
+    static Path dir;
+
+    private static ApiServer.Model model;
+    private static final List<Ambassador> ambassadors = new ArrayList<>();
+    private static final List<Project> projects = new ArrayList<>();
+    private static final List<Task> tasks = new ArrayList<>();
+
+    @BeforeAll
+    static void buildSpilledDataset() throws IOException {
+        model = TaskTribeApp.startInMemory();
+        TaskTier.enable(dir.resolve("tasks"), MAX_ROWS, OperationMetrics.register("tierTestPageIn"));
+        Random rnd = new Random(24);
+        for (int i = 0; i < 4; i++) {
+            ambassadors.add(model.addAmbassador("Tier ambassador " + i, "Mentor"));
+        }
+        for (int i = 0; i < PROJECTS; i++) {
+            projects.add(model.createProject("Tier project " + i));
+        }
+        for (int i = 0; i < TASKS; i++) {
+            Ambassador a = rnd.nextInt(4) == 0 ? null : ambassadors.get(rnd.nextInt(ambassadors.size()));
+            String deadline = "2026-" + (10 + rnd.nextInt(3)) + "-1" + rnd.nextInt(10);
+            tasks.add(model.addTask(projects.get(rnd.nextInt(PROJECTS)), "Tier task " + i, deadline, a));
+        }
+    }
+
+    @AfterAll
+    static void disableTier() {
+        TaskTier.reset();
+        for (Project p : projects) {
+            p.unlockRead(p.readLock());
+        }
+    }
+
+    @Test
+    void keepsAboutMaxRowsResident() {
+        long missesBefore = stats()[1];
+        Random rnd = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            Project p = projects.get(rnd.nextInt(PROJECTS));
+            p.unlockRead(p.readLock());
+        }
+        assertTrue(stats()[1] > missesBefore, "no project was read back");
+        int spilled = 0;
+        for (Project p : projects) {
+            if (p.getStore() == null) {
+                spilled++;
+            }
+        }
+        assertTrue(spilled > 0 && spilled < PROJECTS, spilled + " of " + PROJECTS + " projects spilled");
+        assertTrue(residentRows() <= MAX_ROWS, residentRows() + " rows resident");
+    }
+
+    @Test
+    void countersMatchARecountAcrossPageIns() {
+        Random rnd = new Random(2);
+        for (int i = 0; i < 3000; i++) {
+            Task t = tasks.get(rnd.nextInt(tasks.size()));
+            if (rnd.nextInt(4) == 0) {
+                model.reassignTask(t, rnd.nextBoolean() ? null : ambassadors.get(rnd.nextInt(ambassadors.size())));
+            } else {
+                model.setTaskStatus(t, rnd.nextInt(TaskStatus.COMPLETED + 1));
+            }
+        }
+        for (Project p : projects) {
+            StatusCounts recount = new StatusCounts();
+            StatusCounts counters = new StatusCounts();
+            p.recountStatuses(recount, counters);
+            assertTrue(recount.matches(counters), () -> "project " + p.getId() + ": counters [" + counters
+                    + "], recount [" + recount + "]");
+        }
+        TaskTribeApp.StatisticsRecount r = TaskTribeApp.recountTaskStatistics(ReportEngine.THRESHOLD);
+        assertEquals(List.of(), r.mismatches);
+        assertEquals(List.of(), TaskTribeApp.verifyViews(r.global));
+        assertTrue(residentRows() <= MAX_ROWS, residentRows() + " rows resident");
+    }
+
+    @Test
+    void queriesFindWhatAScanFinds() {
+        for (Project p : projects) {
+            for (int status = 0; status <= TaskStatus.COMPLETED; status++) {
+                int s = status;
+                int[] expected = tasks.stream().filter(t -> t.getProject() == p && t.getStatusCode() == s)
+                        .mapToInt(Task::getId).sorted().toArray();
+                String query = "tasks where project = " + p.getId() + " and status = \"" + TaskStatus.label(s) + "\"";
+                assertArrayEquals(expected, TaskQuery.parse(query).plan().execute().taskIds, query);
+            }
+        }
+        // Found through the assignee index, then read row by row from projects that may be spilled.
+        for (Ambassador a : ambassadors) {
+            String query = "tasks where assignee = " + a.getId();
+            int[] expected = tasks.stream().filter(t -> t.getAssignee() == a).mapToInt(Task::getId).sorted().toArray();
+            assertArrayEquals(expected, TaskQuery.parse(query).plan().execute().taskIds, query);
+
+            String dated = query + " and deadline >= 2026-11-01";
+            int[] datedExpected = tasks.stream()
+                    .filter(t -> t.getAssignee() == a && t.getDeadline().compareTo("2026-11-01") >= 0)
+                    .mapToInt(Task::getId).sorted().toArray();
+            assertArrayEquals(datedExpected, TaskQuery.parse(dated).plan().execute().taskIds, dated);
+        }
+    }
+
+    @Test
+    void snapshotTakenWhileSpilledHoldsTheCapturedState() throws IOException {
+        Map<Integer, List<String>> expected = new HashMap<>();
+        for (Project p : projects) {
+            expected.put(p.getId(), rows(p));
+        }
+        assertTrue(projects.stream().anyMatch(p -> p.getStore() == null), "no project is spilled");
+        BinarySnapshot.Cut cut = BinarySnapshot.capture(new ProjectsOnly());
+
+        // Change every project before the snapshot is written: resident ones copy their shared
+        // columns, spilled ones are read back and must not overwrite the spill file being copied.
+        // Resident ones go first, before reading the others back evicts them.
+        List<Project> residentFirst = new ArrayList<>(projects);
+        residentFirst.sort(Comparator.comparing(p -> p.getStore() == null));
+        assertTrue(residentFirst.get(0).getStore() != null, "no project is resident");
+        Map<Integer, Integer> changed = new HashMap<>();
+        for (Project p : residentFirst) {
+            Task first = p.getTaskList().get(0);
+            int status = (first.getStatusCode() + 1) % (TaskStatus.COMPLETED + 1);
+            model.setTaskStatus(first, status);
+            tasks.add(model.addTask(p, "Tier task after capture", "2026-12-31", null));
+            changed.put(first.getId(), status);
+        }
+        Path file = dir.resolve(BinarySnapshot.FILE);
+        BinarySnapshot.write(file, 7, cut);
+
+        Map<Integer, List<String>> loaded = new HashMap<>();
+        assertEquals(7, BinarySnapshot.load(file, new ProjectsOnly() {
+            @Override
+            public void project(int id, String name, ColumnarTaskStore store) {
+                loaded.put(id, rows(store));
+            }
+        }));
+        assertEquals(expected, loaded);
+
+        for (Map.Entry<Integer, Integer> e : changed.entrySet()) {
+            assertEquals((int) e.getValue(), TaskIndex.findTaskById(e.getKey()).getStatusCode());
+        }
+        for (Project p : projects) {
+            assertNotEquals(expected.get(p.getId()), rows(p));
+        }
+        // Once written, the changed projects can be spilled again; the next row added sweeps them.
+        tasks.add(model.addTask(projects.get(0), "Tier task after snapshot", "2026-12-31", null));
+        assertTrue(residentRows() <= MAX_ROWS, residentRows() + " rows resident");
+    }
+
+    @Test
+    void rowReadsCountOneHitPerLock() {
+        Project p = projects.get(0);
+        p.unlockRead(p.readLock());
+        Task t = p.getTaskList().get(0);
+        long hits = stats()[0];
+        for (int i = 0; i < 100; i++) {
+            t.getName();
+            t.getStatusCode();
+        }
+        assertEquals(hits, stats()[0]);
+        p.unlockRead(p.readLock());
+        assertEquals(hits + 1, stats()[0]);
+    }
+
+    /** The projects made here and nothing else; loading ignores everything but projects. */
+    private static class ProjectsOnly implements BinarySnapshot.State, BinarySnapshot.Loader {
+        @Override
+        public int[] counters() {
+            return new int[] {0, 0, 0};
+        }
+
+        @Override
+        public Iterable<TrainingProgram> programs() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<TrainingSession> sessions() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Ambassador> ambassadors() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Cohort> cohorts() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Ambassador> formerAmbassadors() {
+            return List.of();
+        }
+
+        @Override
+        public Iterable<Project> projects() {
+            return projects;
+        }
+
+        @Override
+        public void counters(int ambassadorIdCounter, int projectIdCounter, int taskIdCounter) {
+        }
+
+        @Override
+        public void program(int id, String name) {
+        }
+
+        @Override
+        public void session(int id, String date, String topic, int programId) {
+        }
+
+        @Override
+        public void ambassador(int id, String name, String role, boolean deleted) {
+        }
+
+        @Override
+        public void cohort(int id, int programId, String name, int[] members) {
+        }
+
+        @Override
+        public void project(int id, String name, ColumnarTaskStore store) {
+        }
+
+        @Override
+        public void attend(int sessionId, int ambassadorId) {
+        }
+    }
+
+    private static List<String> rows(Project p) {
+        long stamp = p.readLock();
+        try {
+            return rows(p.getStore());
+        } finally {
+            p.unlockRead(stamp);
+        }
+    }
+
+    private static List<String> rows(ColumnarTaskStore store) {
+        List<String> rows = new ArrayList<>(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            rows.add(store.id(row) + "|" + store.name(row) + "|" + store.deadline(row) + "|" + store.assigneeId(row)
+                    + "|" + store.status(row));
+        }
+        return rows;
+    }
+
+    private static long residentRows() {
+        long rows = 0;
+        for (Project p : projects) {
+            if (p.getStore() != null) {
+                rows += p.getTaskCount();
+            }
+        }
+        return rows;
+    }
+
+    // Hits and misses from the cache line of the metrics report.
+    private static long[] stats() {
+        StringBuilder sb = new StringBuilder();
+        TaskTier.appendStats(sb);
+        Matcher m = STATS.matcher(sb);
+        assertTrue(m.find(), sb::toString);
+        return new long[] {Long.parseLong(m.group(1)), Long.parseLong(m.group(2))};
+    }
+}
@@ -0,0 +1,114 @@
+package tasktribe;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Name search: accents and case fold away, every query word must start a word of the text,
+ * short queries still match, and removed or renamed records stop matching their old text.
+ */
+class TextIndexTest {
+    private final TextIndex index = new TextIndex();
+    private final Map<Integer, String> texts = new HashMap<>();
+
+    private void add(int id, String text) {
+        texts.put(id, text);
+        index.add(id, text);
+    }
+
+    private int[] search(String query) {
+        return index.search(query, 10, texts::get);
+    }
+
+    @Test
+    void foldsAccentsAndCase() {
+        add(1, "Zoë Ångström");
+        add(2, "Đorđe Mentor");
+        add(3, "Zoe Angstrom");
+
+        assertArrayEquals(new String[] {"zoe", "angstrom"}, TextIndex.words("Zoë  Ångström!"));
+        assertArrayEquals(new int[] {1, 3}, search("zoe"));
+        assertArrayEquals(new int[] {1, 3}, search("ZOË"));
+        assertArrayEquals(new int[] {1, 3}, search("ångstr"));
+        assertArrayEquals(new int[] {2}, search("dorde"));
+        assertArrayEquals(new int[] {2}, search("ĐORĐE"));
+    }
+
+    @Test
+    void matchesWordPrefixesAndRanksWholeWordsFirst() {
+        add(1, "Content Creator");
+        add(2, "Creative lead");
+        add(3, "Procreate fan");
+        add(4, "Crea team");
+
+        // Id 3 holds "crea" only inside a word.
+        assertArrayEquals(new int[] {4, 1, 2}, search("crea"));
+        assertArrayEquals(new int[] {2}, search("creative"));
+        assertArrayEquals(new int[] {1}, search("con cre"));
+        assertArrayEquals(new int[] {1}, search("creator, content"));
+        assertArrayEquals(new int[0], search("content lead"));
+        assertArrayEquals(new int[0], search("reate"));
+        assertArrayEquals(new int[0], search("creators"));
+        assertArrayEquals(new int[] {4, 1}, index.search("crea", 2, texts::get));
+        assertArrayEquals(new int[0], search(" ,; "));
+    }
+
+    @Test
+    void matchesQueriesShorterThanATrigram() {
+        add(1, "Al Bo");
+        add(2, "Alba Boyd");
+        add(3, "Kalb");
+
+        assertArrayEquals(new int[] {1, 2}, search("a"));
+        assertArrayEquals(new int[] {1, 2}, search("al"));
+        assertArrayEquals(new int[] {2}, search("alb"));
+        assertArrayEquals(new int[] {1, 2}, search("b al"));
+        assertArrayEquals(new int[] {1, 2}, search("bo"));
+        assertArrayEquals(new int[] {3}, search("k"));
+        assertArrayEquals(new int[0], search("lb"));
+    }
+
+    @Test
+    void removedRecordsLeaveThePostings() {
+        add(1, "Content Creator");
+        add(2, "Content Lead");
+        index.remove(1, "Content Creator");
+
+        // The text lookup still has the old text, so only the postings can leave id 1 out.
+        assertArrayEquals(new int[] {2}, search("content"));
+        assertArrayEquals(new int[0], search("cr"));
+
+        index.add(1, "Community Lead");
+        texts.put(1, "Community Lead");
+        assertArrayEquals(new int[] {2}, search("content"));
+        assertArrayEquals(new int[] {1, 2}, search("lead"));
+        assertArrayEquals(new int[] {1}, search("comm"));
+    }
+
+    @Test
+    void appSearchFollowsRenamesAndDeletes() {
+        ApiServer.Model model = TaskTribeApp.startInMemory();
+        Ambassador a = model.addAmbassador("Quillon Vasquez", "Mentor");
+        Project p = model.createProject("Zephyrine launch");
+        Task t = model.addTask(p, "Xylograph the brochure", "2026-06-01", a);
+
+        assertTrue(SearchIndex.ambassadors("quill", 10).contains(a));
+        assertEquals(List.of(p), SearchIndex.projects("zephyrin", 10));
+        assertEquals(List.of(t), SearchIndex.tasks("xylograph", 10));
+
+        model.editAmbassador(a, "Rowena Vasquez", "Storyteller");
+        assertFalse(SearchIndex.ambassadors("quillon", 10).contains(a));
+        assertTrue(SearchIndex.ambassadors("rowena story", 10).contains(a));
+
+        model.deleteAmbassador(a);
+        assertFalse(SearchIndex.ambassadors("rowena", 10).contains(a));
+        assertEquals(List.of(t), SearchIndex.tasks("xylograph", 10));
+    }
+}
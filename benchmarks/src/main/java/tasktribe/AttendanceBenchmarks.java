@@ -0,0 +1,70 @@
+package tasktribe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link TrainingSession#addParticipant}: filling a fresh session with every ambassador in
+ * random order (divide by the entity count for the cost of one call), and marking again an
+ * ambassador who already attended a session everyone attended.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AttendanceBenchmarks {
+    private static final int KEYS = 1 << 16;
+
+    @State(Scope.Thread)
+    public static class Sheet {
+        Ambassador[] order;
+        TrainingSession full;
+        int[] indexes;
+        int next;
+
+        @Setup(Level.Trial)
+        public void shuffle(Dataset d) {
+            int[] shuffled = SyntheticData.shuffledIndexes(d.entities, Dataset.SEED + 3);
+            order = new Ambassador[shuffled.length];
+            for (int i = 0; i < shuffled.length; i++) {
+                order[i] = d.data.ambassadors[shuffled[i]];
+            }
+            full = fill(order);
+            indexes = SyntheticData.randomIndexes(d.entities, KEYS, Dataset.SEED + 4);
+        }
+    }
+
+    @Benchmark
+    public TrainingSession addParticipant(Sheet s) {
+        return fill(s.order);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean addParticipantAgain(Dataset d, Sheet s) {
+        Ambassador a = d.data.ambassadors[s.indexes[s.next]];
+        s.next = (s.next + 1) & (KEYS - 1);
+        return s.full.addParticipant(a);
+    }
+
+    // Not registered with a program, so only the session's own bitmap is updated.
+    private static TrainingSession fill(Ambassador[] order) {
+        TrainingSession session = new TrainingSession(0, "Benchmark", "Benchmark");
+        for (Ambassador a : order) {
+            session.addParticipant(a);
+        }
+        return session;
+    }
+}
@@ -0,0 +1,30 @@
+package tasktribe;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The synthetic data set shared by every benchmark in a fork, generated once per trial at each
+ * size. Reports are written to a null stream so they are formatted but not printed.
+ */
+@State(Scope.Benchmark)
+public class Dataset {
+    static final long SEED = 20260101L;
+
+    @Param({"10000", "100000", "1000000"})
+    public int entities;
+
+    SyntheticData data;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        TaskTribeApp.setReportOutput(new PrintStream(OutputStream.nullOutputStream()));
+        data = SyntheticData.generate(entities, SEED);
+    }
+}
@@ -0,0 +1,53 @@
+package tasktribe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Lookups by ID, with keys replayed from a fixed random sequence. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class LookupBenchmarks {
+    private static final int KEYS = 1 << 16;
+
+    @State(Scope.Thread)
+    public static class Keys {
+        int[] indexes;
+        int next;
+
+        @Setup(Level.Trial)
+        public void choose(Dataset d) {
+            indexes = SyntheticData.randomIndexes(d.entities, KEYS, Dataset.SEED + 1);
+        }
+
+        int next() {
+            int i = indexes[next];
+            next = (next + 1) & (KEYS - 1);
+            return i;
+        }
+    }
+
+    @Benchmark
+    public Ambassador findAmbassadorById(Dataset d, Keys k) {
+        return TaskTribeApp.findAmbassadorById(d.data.ambassadors[k.next()].getId());
+    }
+
+    @Benchmark
+    public Task findTaskById(Dataset d, Keys k) {
+        int i = k.next();
+        return d.data.projectOfTask(i).findTaskById(d.data.taskIds[i]);
+    }
+}
@@ -0,0 +1,36 @@
+package tasktribe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The cost of recording one operation's latency, alone and with every core recording at once. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmarks {
+    private final OperationMetrics metric = OperationMetrics.register("benchmark");
+
+    @Benchmark
+    public void record() {
+        metric.record(System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordContended() {
+        metric.record(System.nanoTime());
+    }
+}
@@ -0,0 +1,126 @@
+package tasktribe;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The statistics reports, formatted in full into a null stream. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ReportBenchmarks {
+    private static final int KEYS = 1 << 12;
+
+    @State(Scope.Thread)
+    public static class Viewers {
+        int[] indexes;
+        int next;
+
+        @Setup(Level.Trial)
+        public void choose(Dataset d) {
+            indexes = SyntheticData.randomIndexes(d.entities, KEYS, Dataset.SEED + 2);
+        }
+
+        Ambassador next(Dataset d) {
+            Ambassador a = d.data.ambassadors[indexes[next]];
+            next = (next + 1) & (KEYS - 1);
+            return a;
+        }
+    }
+
+    @Benchmark
+    public void taskStatistics(Dataset d) {
+        TaskTribeApp.taskStatistics();
+    }
+
+    @Benchmark
+    public void ambassadorsWithoutCompletedTasks(Dataset d) {
+        TaskTribeApp.ambassadorsWithoutCompletedTasks();
+    }
+
+    @Benchmark
+    public void completionByProject(Dataset d) {
+        TaskTribeApp.completionByProject();
+    }
+
+    @Benchmark
+    public void leaderboardTop10(Dataset d) {
+        TaskTribeApp.leaderboard(10);
+    }
+
+    @Benchmark
+    public void ambassadorRank(Dataset d, Viewers v) {
+        TaskTribeApp.ambassadorRank(v.next(d).getId());
+    }
+
+    // One task completed and set back, with every view kept up to date; two changes per call.
+    @Benchmark
+    public void completeAndReopen(Dataset d, Viewers v) {
+        Task t = TaskIndex.findTaskById(d.data.taskIds[v.indexes[v.next] % d.data.taskIds.length]);
+        v.next = (v.next + 1) & (KEYS - 1);
+        int status = t.getStatusCode();
+        TaskTribeApp.setTaskStatus(t, status == TaskStatus.COMPLETED ? TaskStatus.IN_PROGRESS : TaskStatus.COMPLETED);
+        TaskTribeApp.setTaskStatus(t, status);
+    }
+
+    // The scans behind the reports, on the fork-join pool and on the calling thread only.
+
+    @Benchmark
+    public BitSet completedAssigneesParallel(Dataset d) {
+        return TaskTribeApp.ambassadorsWithCompletedTasks(ReportEngine.THRESHOLD);
+    }
+
+    @Benchmark
+    public BitSet completedAssigneesSequential(Dataset d) {
+        return TaskTribeApp.ambassadorsWithCompletedTasks(Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public TaskTribeApp.StatisticsRecount recountParallel(Dataset d) {
+        return TaskTribeApp.recountTaskStatistics(ReportEngine.THRESHOLD);
+    }
+
+    @Benchmark
+    public TaskTribeApp.StatisticsRecount recountSequential(Dataset d) {
+        return TaskTribeApp.recountTaskStatistics(Integer.MAX_VALUE);
+    }
+
+    // A three-condition query as planned (the deadline calendar is the narrowest path) and as a full scan.
+    private static final String QUERY =
+            "tasks where status = InProgress and assignee.role = \"Content creator\" and deadline < 2026-02-01";
+
+    @Benchmark
+    public TaskQuery.Result queryPlanned(Dataset d) {
+        return TaskQuery.parse(QUERY).plan().execute();
+    }
+
+    @Benchmark
+    public TaskQuery.Result queryFullScan(Dataset d) {
+        return TaskQuery.parse(QUERY).plan(false).execute();
+    }
+
+    // The first page of an ambassador's tasks, as the view shows it.
+    @Benchmark
+    public int viewTasksByAmbassador(Dataset d, Viewers v) {
+        return TaskTribeApp.assignedTaskPages(v.next(d)).write(0);
+    }
+
+    // A page of the ambassador list from a cursor anywhere in it.
+    @Benchmark
+    public int ambassadorListPage(Dataset d, Viewers v) {
+        return TaskTribeApp.ambassadorPages().write(v.next(d).getId());
+    }
+}
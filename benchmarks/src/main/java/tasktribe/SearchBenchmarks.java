@@ -0,0 +1,45 @@
+package tasktribe;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Name search for the top 10 matches: a word in every eighth task, a prefix of words in all of
+ * them, a word plus a unique number, and an ambassador's first and last name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmarks {
+    private static final int LIMIT = 10;
+
+    @Benchmark
+    public List<Task> commonWord(Dataset d) {
+        return SearchIndex.tasks("publish", LIMIT);
+    }
+
+    @Benchmark
+    public List<Task> shortPrefix(Dataset d) {
+        return SearchIndex.tasks("p", LIMIT);
+    }
+
+    @Benchmark
+    public List<Task> wordAndNumber(Dataset d) {
+        return SearchIndex.tasks("video " + (d.entities - 7), LIMIT);
+    }
+
+    @Benchmark
+    public List<Ambassador> ambassadorName(Dataset d) {
+        return SearchIndex.ambassadors("linh pham", LIMIT);
+    }
+}
@@ -0,0 +1,111 @@
+package tasktribe;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fills the application's store with a reproducible synthetic data set, through the same core
+ * operations the menus use, so the benchmarks measure the indexes as the app builds them. For
+ * {@code n} entities it creates n ambassadors and n tasks spread round-robin over n / 100
+ * projects; four in five tasks are assigned to a random ambassador, statuses are spread evenly,
+ * and deadlines fall in 2026. Names combine a few common words with the entity's number, so
+ * searches have both frequent and unique words to find. A four-session program is attended by
+ * nine in ten ambassadors per session. The same size and seed always give the same data.
+ *
+ * <p>The store is static, so a data set can be generated once per JVM; JMH runs each benchmark
+ * and parameter set in its own fork.
+ */
+final class SyntheticData {
+    static final int TASKS_PER_PROJECT = 100;
+    static final int SESSIONS = 4;
+
+    static final String[] FIRST_NAMES = {"An", "Binh", "Chi", "Dung", "Giang", "Hoa", "Khanh", "Linh", "Minh",
+        "Nam", "Phuong", "Quang", "Son", "Thu", "Trang", "Vy"};
+    static final String[] LAST_NAMES = {"Nguyen", "Tran", "Le", "Pham", "Hoang", "Vu", "Dang", "Bui", "Do"};
+    static final String[] VERBS = {"Write", "Review", "Publish", "Plan", "Design", "Translate", "Organize",
+        "Record"};
+    static final String[] NOUNS = {"blog post", "video", "study group", "newsletter", "banner", "workshop",
+        "survey", "podcast", "meetup", "tutorial"};
+
+    final int entities;
+    final Ambassador[] ambassadors;
+    final Project[] projects;
+    final int[] taskIds;
+    final TrainingSession[] sessions;
+
+    private SyntheticData(int entities) {
+        this.entities = entities;
+        this.ambassadors = new Ambassador[entities];
+        this.projects = new Project[Math.max(1, entities / TASKS_PER_PROJECT)];
+        this.taskIds = new int[entities];
+        this.sessions = new TrainingSession[SESSIONS];
+    }
+
+    static SyntheticData generate(int entities, long seed) {
+        if (TaskIndex.size() != 0) {
+            throw new IllegalStateException("The store already holds data; generate once per JVM");
+        }
+        SyntheticData d = new SyntheticData(entities);
+        SplittableRandom rnd = new SplittableRandom(seed);
+        String[] roles = {"Mentor", "Coordinator", "Content creator", "Community lead"};
+        for (int i = 0; i < entities; i++) {
+            String name = FIRST_NAMES[i % FIRST_NAMES.length] + " "
+                    + LAST_NAMES[i / FIRST_NAMES.length % LAST_NAMES.length] + " " + i;
+            d.ambassadors[i] = TaskTribeApp.addAmbassador(name, roles[rnd.nextInt(roles.length)]);
+        }
+        for (int i = 0; i < d.projects.length; i++) {
+            d.projects[i] = TaskTribeApp.createProject("Project " + i);
+        }
+        for (int i = 0; i < entities; i++) {
+            Ambassador a = rnd.nextInt(5) == 0 ? null : d.ambassadors[rnd.nextInt(entities)];
+            String deadline = (1 + rnd.nextInt(12)) + "/" + (1 + rnd.nextInt(28)) + "/2026";
+            String name = VERBS[i % VERBS.length] + " " + NOUNS[i / VERBS.length % NOUNS.length] + " " + i;
+            Task t = TaskTribeApp.addTask(d.projectOfTask(i), name, deadline, a);
+            int status = rnd.nextInt(TaskStatus.COMPLETED + 1);
+            if (status != TaskStatus.NOT_STARTED) {
+                TaskTribeApp.setTaskStatus(t, status);
+            }
+            d.taskIds[i] = t.getId();
+        }
+        TrainingProgram program = TaskTribeApp.createProgram("Synthetic training");
+        for (int k = 0; k < SESSIONS; k++) {
+            d.sessions[k] = TaskTribeApp.addProgramSession(program, "Day " + (k + 1), "Synthetic topic " + (k + 1));
+            for (Ambassador a : d.ambassadors) {
+                if (rnd.nextInt(10) != 0) {
+                    TaskTribeApp.markAttendance(d.sessions[k], a);
+                }
+            }
+        }
+        return d;
+    }
+
+    /** The project holding the task at {@code taskIds[index]}. */
+    Project projectOfTask(int index) {
+        return projects[index % projects.length];
+    }
+
+    /** {@code count} random indexes into the entity arrays, to replay as lookup keys. */
+    static int[] randomIndexes(int entities, int count, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = rnd.nextInt(entities);
+        }
+        return indexes;
+    }
+
+    /** The indexes 0 to {@code entities - 1} in random order. */
+    static int[] shuffledIndexes(int entities, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] indexes = new int[entities];
+        for (int i = 0; i < entities; i++) {
+            indexes[i] = i;
+        }
+        for (int i = entities - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = t;
+        }
+        return indexes;
+    }
+}